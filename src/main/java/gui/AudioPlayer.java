@@ -5,7 +5,7 @@ import network.Component;
 import javax.sound.sampled.*;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.concurrent.*;
 
 public class AudioPlayer {
@@ -13,17 +13,16 @@ public class AudioPlayer {
     private ConcurrentLinkedQueue<AudioCommand> commandQueue = new ConcurrentLinkedQueue<>();
     private double masterVolume = 1.0;
     private double targetMasterVolume = 1.0;
-    private Component selectedComponent = null;
-    private ArrayList<Double> simulatedAngularFrequencies = null;   // All the angular frequencies simulated by the network
-    private ArrayList<Integer> sampledFrequencyIndices = null;      // The angular frequencies indices selected to create audio
-    private Component previousSelectedComponent = null;
-    private ArrayList<Double> previousSimulatedAngularFrequencies = null;
-    private ArrayList<Integer> previousSampledFrequencyIndices = null;
+    private OscillatorBank currentBank = null;                      // Audible partials of the selected component's current
+    private OscillatorBank voltageDropBank = null;                  // Audible partials of the selected component's voltage drop
+    private OscillatorBank previousCurrentBank = null;
+    private OscillatorBank previousVoltageDropBank = null;
     private double crossFadeParam = 0.0;
     private boolean isCrossFade = false;
     private boolean isPlaying = false;
     private final double lowestAudibleFrequencyHz = 31.0;
     private final double highestAudibleFrequencyHz = 19000.0;
+    private final int maxNoOfPartials = 4096;
     private boolean fadeIn = false;
     private boolean fadeOut = false;
     private PlaybackMode mode = PlaybackMode.CURRENT;
@@ -43,43 +42,34 @@ public class AudioPlayer {
     }
 
     class SetComponentCommand extends AudioCommand {
-        private Component newComp;
-        private ArrayList<Double> newOmegas;
-        private ArrayList<Integer> newSampledFrequencyIndices;
+        private OscillatorBank newCurrentBank = null;
+        private OscillatorBank newVoltageDropBank = null;
 
         public SetComponentCommand(Component c)
         {
             if (null == c)
             {
-                newComp = null;
-                newOmegas = null;
-                newSampledFrequencyIndices = null;
                 return;
             }
             synchronized (c.getParent().getMutexObj())
             {
-                try {
-                    newComp = c.clone();
-                } catch (CloneNotSupportedException ex) {
-                    throw new RuntimeException(ex);
-                }
-                newOmegas = (ArrayList<Double>)c.getParent().getSimulatedAngularFrequencies().clone();
-                newSampledFrequencyIndices = new ArrayList<Integer>(200);
+                ArrayList<Double> omegas = c.getParent().getSimulatedAngularFrequencies();
+                ArrayList<Integer> sampledFrequencyIndices = new ArrayList<Integer>();
 
                 // "Band pass" filtering the frequency components to the audible range:
-                for (int i = 0; i < newOmegas.size(); i++) {
-                    double omega = newOmegas.get(i);
+                for (int i = 0; i < omegas.size(); i++) {
+                    double omega = omegas.get(i);
                     if (omega > 2 * Math.PI * lowestAudibleFrequencyHz && omega < 2 * Math.PI * highestAudibleFrequencyHz) {
-                        newSampledFrequencyIndices.add(i);
-                        if (newSampledFrequencyIndices.size() == 200) {
+                        sampledFrequencyIndices.add(i);
+                        if (sampledFrequencyIndices.size() == maxNoOfPartials) {
                             break;
                         }
                     }
                 }
-                if (newSampledFrequencyIndices.isEmpty()) {
-                    newComp = null;
-                    newOmegas = null;
-                    newSampledFrequencyIndices = null;
+                if (!sampledFrequencyIndices.isEmpty()) {
+                    // The banks copy the phasors, so the component is not needed during playback:
+                    newCurrentBank = new OscillatorBank(omegas, sampledFrequencyIndices, c.getFrequencyDomainCurrent());
+                    newVoltageDropBank = new OscillatorBank(omegas, sampledFrequencyIndices, c.getTimeDomainVoltageDropPhasors());
                 }
             }
         }
@@ -88,18 +78,15 @@ public class AudioPlayer {
         public void execute()
         {
             if (!isCrossFade) { // Only change previous state if no cross-fade is happening to prevent click
-                previousSelectedComponent = selectedComponent;
-                previousSimulatedAngularFrequencies = simulatedAngularFrequencies;
-                previousSampledFrequencyIndices = sampledFrequencyIndices;
+                previousCurrentBank = currentBank;
+                previousVoltageDropBank = voltageDropBank;
                 previousMode = mode;
                 crossFadeParam = 0.0;
                 isCrossFade = true;
             }
 
-            selectedComponent = newComp;
-            simulatedAngularFrequencies = newOmegas;
-            sampledFrequencyIndices = newSampledFrequencyIndices;
-
+            currentBank = newCurrentBank;
+            voltageDropBank = newVoltageDropBank;
         }
     }
 
@@ -186,9 +173,8 @@ public class AudioPlayer {
         public void execute() {
             if (!isCrossFade)
             {
-                previousSelectedComponent = selectedComponent;
-                previousSimulatedAngularFrequencies = simulatedAngularFrequencies;
-                previousSampledFrequencyIndices = sampledFrequencyIndices;
+                previousCurrentBank = currentBank;
+                previousVoltageDropBank = voltageDropBank;
                 previousMode = mode;
                 isCrossFade = true;
                 crossFadeParam = 0.0;
@@ -225,20 +211,6 @@ public class AudioPlayer {
         workThread.start();
     }
 
-    private double filterSample(double sample, LinkedList<Double> previousSamples){
-        double sum = 0;
-        for (Double prev : previousSamples) {
-            sum += prev;
-        }
-        sum += sample;
-        sample = sum / (previousSamples.size() + 1);
-        previousSamples.push(sample);
-        if (previousSamples.size() > 50) {
-            previousSamples.poll();
-        }
-        return sample;
-    }
-
     class TerminateCommand extends AudioCommand
     {
 
@@ -258,21 +230,25 @@ public class AudioPlayer {
         }
     }
 
-    private double sampleData(double elapsedTimeSec, Component component, ArrayList<Double> omegas, ArrayList<Integer> indices, PlaybackMode playbackMode)
+    private OscillatorBank selectBank(PlaybackMode playbackMode, OscillatorBank current, OscillatorBank voltageDrop)
     {
-        component.updateTimeDomainParametersUsingSpecificFrequencies(
-                elapsedTimeSec,
-                omegas,
-                indices
-        );
         switch (playbackMode) {
-            case PlaybackMode.VOLTAGE_DROP -> { return component.getTimeDomainVoltageDrop(); }
-            case PlaybackMode.CURRENT -> { return component.getTimeDomainCurrent(); }
+            case PlaybackMode.VOLTAGE_DROP -> { return voltageDrop; }
+            case PlaybackMode.CURRENT -> { return current; }
             case PlaybackMode.INPUT_POTENTIAL -> {}
             case PlaybackMode.OUTPUT_POTENTIAL -> {}
-            default -> { return 0.0; }
+            default -> { return null; }
+        }
+        return null;
+    }
+
+    private void renderBlock(OscillatorBank bank, double startSec, double stepSec, double block[])
+    {
+        if (null == bank) {
+            Arrays.fill(block, 0.0);
+            return;
         }
-        return 0.0;
+        bank.render(startSec, stepSec, block, block.length);
     }
 
     public void playbackLoop() {
@@ -285,7 +261,9 @@ public class AudioPlayer {
         double crossFadeSpeed = 6.0;
         double faderVolume = 0.0;
         int bufferSize = bufferSampleCount * shortByteSize;
-        LinkedList<Double> previousSamples = new LinkedList<>();    // Accumulate for filtering
+        RunningAverageFilter filter = new RunningAverageFilter(50);
+        double block[] = new double[bufferSampleCount];
+        double previousBlock[] = new double[bufferSampleCount];
 
         // Build audio buffer:
         AudioFormat format = new AudioFormat(
@@ -322,25 +300,19 @@ public class AudioPlayer {
             double maxOriginal = 1.0;
             short minTarget = Short.MIN_VALUE;
             short maxTarget = Short.MAX_VALUE;
+
+            // Render the whole block of the oscillator banks:
+            renderBlock(selectBank(mode, currentBank, voltageDropBank),
+                    elapsedTimeSec * playBackSpeed, timeStepSec * playBackSpeed, block);
+            if (isCrossFade) {
+                renderBlock(selectBank(previousMode, previousCurrentBank, previousVoltageDropBank),
+                        elapsedTimeSec * playBackSpeed, timeStepSec * playBackSpeed, previousBlock);
+            }
+
             for (int i = 0; i < bufferSampleCount; i++) {
-                double sample = 0;
+                double sample = block[i];
                 if (isCrossFade) {
-                    if (null != previousSelectedComponent) {
-                        sample = (1.0 - crossFadeParam) * sampleData(elapsedTimeSec * playBackSpeed,
-                                previousSelectedComponent,
-                                previousSimulatedAngularFrequencies,
-                                previousSampledFrequencyIndices,
-                                previousMode
-                        );
-                    }
-                    if (null != selectedComponent) {
-                        sample += crossFadeParam * sampleData(elapsedTimeSec * playBackSpeed,
-                                selectedComponent,
-                                simulatedAngularFrequencies,
-                                sampledFrequencyIndices,
-                                mode
-                        );
-                    }
+                    sample = (1.0 - crossFadeParam) * previousBlock[i] + crossFadeParam * block[i];
 
                     crossFadeParam += timeStepSec * crossFadeSpeed;
                     if (crossFadeParam > 1.0) {
@@ -348,16 +320,6 @@ public class AudioPlayer {
                         isCrossFade = false;
                     }
                 }
-                else {
-                    if (null != selectedComponent) {
-                        sample = sampleData(elapsedTimeSec * playBackSpeed,
-                                selectedComponent,
-                                simulatedAngularFrequencies,
-                                sampledFrequencyIndices,
-                                mode
-                        );
-                    }
-                }
 
                 // Gradually change fader volume:
                 if (fadeIn) {
@@ -393,13 +355,16 @@ public class AudioPlayer {
                     }
                 }
 
-                sample = Math.max(Math.min(Math.pow(masterVolume * faderVolume, 3) * sample, 1.0), -1.0); // Clip peaks
-                sample = filterSample(sample, previousSamples);
-                short remappedSample = (short)((sample - minOriginal) * (maxTarget - minTarget) / (maxOriginal - minOriginal) + minTarget);
-                masteredByteBuffer.putShort(bufferByteOffset + i * shortByteSize, remappedSample);
+                block[i] = Math.max(Math.min(Math.pow(masterVolume * faderVolume, 3) * sample, 1.0), -1.0); // Clip peaks
                 elapsedTimeSec += timeStepSec;
             }
 
+            filter.process(block, bufferSampleCount);
+            for (int i = 0; i < bufferSampleCount; i++) {
+                short remappedSample = (short)((block[i] - minOriginal) * (maxTarget - minTarget) / (maxOriginal - minOriginal) + minTarget);
+                masteredByteBuffer.putShort(bufferByteOffset + i * shortByteSize, remappedSample);
+            }
+
             // Export mastered buffer through sound API:
             dataLine.write(masteredByteBuffer.array(), bufferByteOffset, bufferSize);   // NOTE: For continuous audio, it is good to reuse the same buffer
             // Increment buffer offsets:
@@ -14,6 +14,7 @@ import math.Coordinate;
 import math.Line;
 import math.MyMath;
 import math.Vector;
+import math.Waveform;
 import network.Component;
 import network.Network;
 
@@ -45,6 +46,18 @@ public class DrawingHelper {
 	private static double scopeFrequencyYScale = 0.5;
 	private static final Object accessMutexObj = new Object();
 
+	/**
+	 * Waveform of the scope window, kept while the simulated frequencies of the network and the sample step are unchanged,
+	 * so the analysis of the frequencies and the transform kernel are not computed again on every refresh.
+	 * HUN: A szkóp ablakának hullámformája, ami megmarad, amíg a hálózat szimulált frekvenciái és a mintavételi lépés nem változik,
+	 * így a frekvenciák elemzése és a transzformáció magja nem számolódik újra minden frissítéskor.
+	 */
+	private static Waveform scopeWaveform = null;
+	private static Network scopeWaveformNetwork = null;
+	private static int scopeWaveformFrequencySetVersion;
+	private static final double scopeCurrentSamples[] = new double[maxScopeDataPoints];
+	private static final double scopeVoltageSamples[] = new double[maxScopeDataPoints];
+
 	/**
 	 * Sets drawing attributes for normal drawing. (Uses the predefined, static variables.)
 	 * HUN: Beállítja a rajzolás paramétereit normál rajzoláshoz. (Statikus adattagokat használ.)
@@ -274,17 +287,31 @@ public class DrawingHelper {
 				throw new RuntimeException(e);
 			}
 
-			double virtualTimeSec = scopeTimeXStart;
+			component.sampleTimeDomain(scopeWaveform(component.getParent()), scopeTimeXStart, scopeCurrentSamples, scopeVoltageSamples);
 			for (int i = 0; i < maxScopeDataPoints; i++)
 			{
-				component.updateTimeDomainParameters(virtualTimeSec, component.getParent().getSimulatedAngularFrequencies());
-				scopeCurrentBuffer.add(component.getTimeDomainCurrent());
-				scopeVoltageBuffer.add(component.getTimeDomainVoltageDrop());
-				virtualTimeSec += scopeTimeXSampleStep;
+				scopeCurrentBuffer.add(scopeCurrentSamples[i]);
+				scopeVoltageBuffer.add(scopeVoltageSamples[i]);
 			}
 		}
 	}
 
+	/**
+	 * The waveform of the scope window for the network, prepared again only if the network, its frequencies or the sample step changed.
+	 * HUN: A szkóp ablakának hullámformája a hálózathoz, csak akkor készül újra, ha a hálózat, a frekvenciái vagy a mintavételi lépés megváltozott.
+	 */
+	private static Waveform scopeWaveform(Network network)
+	{
+		int version = network.getFrequencySetVersion();
+		if (scopeWaveform == null || scopeWaveformNetwork != network || scopeWaveformFrequencySetVersion != version
+				|| scopeWaveform.getStepSec() != scopeTimeXSampleStep) {
+			scopeWaveform = new Waveform(network.getSimulatedAngularFrequencies(), scopeTimeXSampleStep, maxScopeDataPoints);
+			scopeWaveformNetwork = network;
+			scopeWaveformFrequencySetVersion = version;
+		}
+		return scopeWaveform;
+	}
+
 	public static void setScopeXInterval(double interval)
 	{
 		synchronized (accessMutexObj)
@@ -44,6 +44,7 @@ public class MainController {
 	AudioPlayer audioPlayer = new AudioPlayer();
 
 	boolean snapToGrid = true;
+	int parallelism = Runtime.getRuntime().availableProcessors();	//Threads solving the frequencies of the network
 	Boolean simulating = null;
 	double totalTimeSec = 0;
 
@@ -76,6 +77,9 @@ public class MainController {
     @FXML
     private MenuItem miStop;
 
+    @FXML
+    private MenuItem miSettings;
+
     @FXML
     private MenuItem miAbout;
 
@@ -289,6 +293,107 @@ public class MainController {
 		}
 	}
 
+    /**
+     * Show settings of the simulation.
+     * HUN: Megjeleníti a szimuláció beállításait.
+     * @param event
+     */
+    @FXML
+    void miSettingsAction(ActionEvent event) {
+    	int processors = Runtime.getRuntime().availableProcessors();
+    	Spinner<Integer> threadSpinner = new Spinner<>(1, Math.max(processors, parallelism), parallelism);
+    	GridPane grid = new GridPane();
+    	grid.setHgap(10);
+    	grid.setVgap(10);
+    	grid.setPadding(new Insets(10));
+    	grid.add(new Label("Számítási szálak:"), 0, 0);
+    	grid.add(threadSpinner, 1, 0);
+
+    	//Truncation of the Fourier series of the periodic sources. Empty ceiling keeps all harmonics:
+    	TextField toleranceField;
+    	TextField ceilingField;
+		synchronized (network.getMutexObj())
+		{
+			toleranceField = new TextField(String.valueOf(network.getHarmonicTolerance() * 100));
+			double ceiling = network.getHarmonicFrequencyCeiling();
+			ceilingField = new TextField((ceiling < Double.POSITIVE_INFINITY) ? String.valueOf(ceiling / (2 * Math.PI)) : "");
+		}
+    	grid.add(new Label("Felharmonikusok elhagyható része:"), 0, 1);
+    	grid.add(toleranceField, 1, 1);
+    	grid.add(new Label("%"), 2, 1);
+    	grid.add(new Label("Legmagasabb felharmonikus:"), 0, 2);
+    	grid.add(ceilingField, 1, 2);
+    	grid.add(new Label("Hz"), 2, 2);
+
+    	//Engine of the current calculation. The nodal one keeps its factorizations, so editing a component is cheap with it:
+    	ChoiceBox<String> solverChoice = new ChoiceBox<>();
+    	solverChoice.getItems().addAll("Gauss elimináció", "Ritka LU felbontás", "Csomóponti potenciálok");
+    	int solverIndex;
+		synchronized (network.getMutexObj())
+		{
+			CurrentSolver solver = network.getCurrentSolver();
+			solverIndex = (solver instanceof NodalCurrentSolver) ? 2 : (solver instanceof SparseCurrentSolver) ? 1 : 0;
+		}
+    	solverChoice.getSelectionModel().select(solverIndex);
+    	grid.add(new Label("Áramszámítás:"), 0, 3);
+    	grid.add(solverChoice, 1, 3);
+
+    	Dialog<ButtonType> dlg = new Dialog<>();
+    	dlg.setTitle("Beállítások");
+    	dlg.getDialogPane().setContent(grid);
+    	dlg.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+    	if (dlg.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
+    		double tolerance = parseSetting(toleranceField.getText(), 0) / 100;
+    		double ceiling = parseSetting(ceilingField.getText(), Double.POSITIVE_INFINITY) * 2 * Math.PI;
+    		String truncationError = null;
+    		if (!(tolerance >= 0 && tolerance < 1)) {
+    			truncationError = "A felharmonikusok elhagyható része 0 és 100% közötti szám lehet.";
+    		}
+    		else if (!(ceiling > 0)) {
+    			truncationError = "A legmagasabb felharmonikus pozitív szám lehet, vagy üresen hagyható.";
+    		}
+			synchronized (network.getMutexObj())
+			{
+				parallelism = threadSpinner.getValue();
+				network.setParallelism(parallelism);
+				if (solverChoice.getSelectionModel().getSelectedIndex() != solverIndex) {
+					switch (solverChoice.getSelectionModel().getSelectedIndex()) {
+						case 1 -> network.setCurrentSolver(new SparseCurrentSolver());
+						case 2 -> network.setCurrentSolver(new NodalCurrentSolver());
+						default -> network.setCurrentSolver(new GaussCurrentSolver());
+					}
+				}
+				if (truncationError == null) {
+					network.setHarmonicTruncation(tolerance, ceiling);
+				}
+				network.evaluate(true);
+				DrawingHelper.updateScopeSamples(selectedComponent);
+			}
+			if (truncationError != null) {
+				new Alert(AlertType.ERROR, truncationError + "\nA felharmonikusok beállítása nem változott.", ButtonType.OK).show();
+			}
+    	}
+    }
+
+    /**
+     * Number in a settings field.
+     * HUN: Egy beállítás mező száma.
+     * @param text	Text of the field.
+     * @param empty	Value of an empty field.
+     * @return	The number, or NaN, if the text is not a number.
+     */
+    private static double parseSetting(String text, double empty) {
+    	String trimmed = text.trim();
+    	if (trimmed.isEmpty()) {
+    		return empty;
+    	}
+    	try {
+    		return Double.parseDouble(trimmed);
+    	} catch (NumberFormatException e) {
+    		return Double.NaN;
+    	}
+    }
+
     //Button actions:--------------------------------------------------------------------------
 
     @FXML
@@ -322,6 +427,7 @@ public class MainController {
         assert miStart != null : "fx:id=\"miStart\" was not injected: check your FXML file 'windowlayout.fxml'.";
         assert miPause != null : "fx:id=\"miPause\" was not injected: check your FXML file 'windowlayout.fxml'.";
         assert miStop != null : "fx:id=\"miStop\" was not injected: check your FXML file 'windowlayout.fxml'.";
+        assert miSettings != null : "fx:id=\"miSettings\" was not injected: check your FXML file 'windowlayout.fxml'.";
         assert miAbout != null : "fx:id=\"miAbout\" was not injected: check your FXML file 'windowlayout.fxml'.";
         assert btnStart != null : "fx:id=\"btnStart\" was not injected: check your FXML file 'windowlayout.fxml'.";
         assert btnPause != null : "fx:id=\"btnPause\" was not injected: check your FXML file 'windowlayout.fxml'.";
@@ -348,6 +454,7 @@ public class MainController {
 		assert btnScopeReset != null : "fx:id=\"btnScopeReset\" was not injected: check your FXML file 'windowlayout.fxml'.";
 
         mainController = this;
+        network.setParallelism(parallelism);
         
         lvLeftListView.getItems().add("Feszültségforrás");
 		lvLeftListView.getItems().add("Szinuszos feszültségforrás");
@@ -695,7 +802,7 @@ public class MainController {
 							{
 								prop.value = prop.valueN.getText().trim();
 								component.updatePropertyModel();
-								network.evaluate(true);
+								network.evaluateParameterChange(component);
 								audioPlayer.setSelectedComponent(component);
 								DrawingHelper.updateScopeSamples(component);
 							}
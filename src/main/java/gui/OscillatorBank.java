@@ -0,0 +1,116 @@
+package gui;
+
+import math.Vector;
+
+import java.util.ArrayList;
+
+/**
+ * Bank of sinusoidal oscillators, that renders the phasors of a component at the selected angular frequencies in blocks of samples.
+ * Within a block each oscillator is rotated by one complex multiplication per sample.
+ * At the start of each block the phases are set exactly from the time, so rounding errors do not accumulate.
+ * The phasors are copied at construction, so the bank does not depend on the network anymore.
+ */
+class OscillatorBank {
+    private final int size;
+    private final double omega[];
+    private final double amplitudeRe[];
+    private final double amplitudeIm[];
+
+    // Rotation by one sample step, recomputed only when the step changes:
+    private double stepSec = Double.NaN;
+    private final double stepCos[];
+    private final double stepSin[];
+
+    /**
+     * @param omegas	Simulated angular frequencies.
+     * @param indices	Indices of the frequencies to render.
+     * @param phasors	Phasor of each simulated frequency, whose real part is the rendered signal.
+     */
+    OscillatorBank(ArrayList<Double> omegas, ArrayList<Integer> indices, Vector phasors) {
+        int noOfPartials = 0;
+        for (int k : indices) {
+            if (phasors.getRe(k) != 0 || phasors.getIm(k) != 0) {
+                noOfPartials++;
+            }
+        }
+        size = noOfPartials;
+        omega = new double[size];
+        amplitudeRe = new double[size];
+        amplitudeIm = new double[size];
+        stepCos = new double[size];
+        stepSin = new double[size];
+        int j = 0;
+        for (int k : indices) {
+            if (phasors.getRe(k) != 0 || phasors.getIm(k) != 0) {
+                omega[j] = omegas.get(k);
+                amplitudeRe[j] = phasors.getRe(k);
+                amplitudeIm[j] = phasors.getIm(k);
+                j++;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Overwrites the first count elements of out with the signal sampled from startSec with the given step.
+     */
+    void render(double startSec, double stepSec, double out[], int count) {
+        if (this.stepSec != stepSec) {
+            this.stepSec = stepSec;
+            for (int k = 0; k < size; k++) {
+                stepCos[k] = Math.cos(omega[k] * stepSec);
+                stepSin[k] = Math.sin(omega[k] * stepSec);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = 0;
+        }
+        int k = 0;
+        // Two oscillators at a time, so their independent recurrences overlap in the pipeline:
+        for (; k + 1 < size; k += 2) {
+            double re0 = startRe(k, startSec);
+            double im0 = startIm(k, startSec);
+            double re1 = startRe(k + 1, startSec);
+            double im1 = startIm(k + 1, startSec);
+            double c0 = stepCos[k];
+            double s0 = stepSin[k];
+            double c1 = stepCos[k + 1];
+            double s1 = stepSin[k + 1];
+            for (int i = 0; i < count; i++) {
+                out[i] += re0 + re1;
+                double next0 = re0 * c0 - im0 * s0;
+                im0 = re0 * s0 + im0 * c0;
+                re0 = next0;
+                double next1 = re1 * c1 - im1 * s1;
+                im1 = re1 * s1 + im1 * c1;
+                re1 = next1;
+            }
+        }
+        for (; k < size; k++) {
+            double re = startRe(k, startSec);
+            double im = startIm(k, startSec);
+            double c = stepCos[k];
+            double s = stepSin[k];
+            for (int i = 0; i < count; i++) {
+                out[i] += re;
+                double next = re * c - im * s;
+                im = re * s + im * c;
+                re = next;
+            }
+        }
+    }
+
+    // Phasor of the k. oscillator rotated to the given time:
+    private double startRe(int k, double timeSec) {
+        double phase = omega[k] * timeSec;
+        return amplitudeRe[k] * Math.cos(phase) - amplitudeIm[k] * Math.sin(phase);
+    }
+
+    private double startIm(int k, double timeSec) {
+        double phase = omega[k] * timeSec;
+        return amplitudeRe[k] * Math.sin(phase) + amplitudeIm[k] * Math.cos(phase);
+    }
+}
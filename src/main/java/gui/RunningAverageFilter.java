@@ -0,0 +1,50 @@
+package gui;
+
+/**
+ * Low-pass filter stage, that averages each input sample with the previous outputs:
+ * y[n] = (x[n] + y[n - 1] + ... + y[n - length]) / (length + 1).
+ * The previous outputs are kept in a ring buffer with their running sum, so a sample costs constant time,
+ * and processing a block allocates nothing.
+ */
+class RunningAverageFilter {
+    private final double history[];     // Ring buffer of the previous outputs
+    private int next = 0;               // Position of the oldest output, that is overwritten next
+    private double sum = 0;
+    private final double scale;         // 1 / (length + 1)
+
+    /**
+     * @param length	Number of previous outputs averaged with the input.
+     */
+    RunningAverageFilter(int length) {
+        if (length < 1) {
+            throw new RuntimeException("Filter length must be at least 1.");
+        }
+        history = new double[length];
+        scale = 1.0 / (length + 1);
+    }
+
+    /**
+     * Filters the first count samples of the block in place.
+     */
+    void process(double block[], int count) {
+        for (int i = 0; i < count; i++) {
+            double output = (block[i] + sum) * scale;
+            sum += output - history[next];
+            history[next] = output;
+            next++;
+            if (next == history.length) {
+                next = 0;
+                resum();
+            }
+            block[i] = output;
+        }
+    }
+
+    // Recomputes the running sum once per round of the ring buffer, so rounding errors do not accumulate:
+    private void resum() {
+        sum = 0;
+        for (double output : history) {
+            sum += output;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package math;
+
+/**
+ * In-place radix-2 fast Fourier transform of complex values stored interleaved in a primitive array, as in {@link Vector}.
+ * HUN: Komplex értékek helyben végzett, kettes alapú gyors Fourier transzformációja, a {@link Vector}-hoz hasonlóan váltott tárolású primitív tömbben.
+ * @author Simon Zoltán
+ *
+ */
+public class FFT {
+
+	private FFT() {
+	}
+
+	/**
+	 * @return	The smallest power of two, that is not less than n.
+	 */
+	public static int size(int n) {
+		int size = 1;
+		while (size < n) {
+			size <<= 1;
+		}
+		return size;
+	}
+
+	/**
+	 * Transforms the first n complex values of data in place. The inverse transform is not scaled by 1 / n.
+	 * HUN: Helyben transzformálja a data első n komplex értékét. Az inverz transzformáció nincs 1 / n-nel skálázva.
+	 * @param data	Real and imaginary parts interleaved.
+	 * @param n	Number of complex values, must be a power of two.
+	 * @param inverse	Positive exponent, if true, negative otherwise.
+	 */
+	public static void transform(double data[], int n, boolean inverse) {
+		if (Integer.bitCount(n) != 1) {
+			throw new RuntimeException("FFT size must be a power of two.");
+		}
+		//Bit reversal permutation:
+		for (int i = 1, j = 0; i < n; i++) {
+			int bit = n >> 1;
+			for (; (j & bit) != 0; bit >>= 1) {
+				j ^= bit;
+			}
+			j ^= bit;
+			if (i < j) {
+				double re = data[2 * i];
+				double im = data[2 * i + 1];
+				data[2 * i] = data[2 * j];
+				data[2 * i + 1] = data[2 * j + 1];
+				data[2 * j] = re;
+				data[2 * j + 1] = im;
+			}
+		}
+		//Butterflies:
+		double sign = inverse ? 1 : -1;
+		for (int length = 2; length <= n; length <<= 1) {
+			double angle = sign * 2 * Math.PI / length;
+			double wRe = Math.cos(angle);
+			double wIm = Math.sin(angle);
+			int half = length >> 1;
+			for (int start = 0; start < n; start += length) {
+				double tRe = 1;
+				double tIm = 0;
+				for (int k = 0; k < half; k++) {
+					int a = 2 * (start + k);
+					int b = 2 * (start + k + half);
+					double re = data[b] * tRe - data[b + 1] * tIm;
+					double im = data[b] * tIm + data[b + 1] * tRe;
+					data[b] = data[a] - re;
+					data[b + 1] = data[a + 1] - im;
+					data[a] += re;
+					data[a + 1] += im;
+					double next = tRe * wRe - tIm * wIm;
+					tIm = tRe * wIm + tIm * wRe;
+					tRe = next;
+				}
+			}
+		}
+	}
+}
@@ -38,21 +38,27 @@ public class Gauss {
             }
             case cleanSolution: {
     //Second phase of Gauss elimination after reduction:----------------------------
+                double[] n = M.n;
+                int rows = M.row;
                 int r = M.row-2;
                 int rightSideRow = M.row-1;     //The right side of the equations.
                 for (int c = M.column-1; c > 0; c--) {    //Reverse iteration on columns
+                    int rhsC = 2 * (c * rows + rightSideRow);
+                    double fRe = n[rhsC];
+                    double fIm = n[rhsC + 1];
                     for (int ci = c-1; ci >= 0; ci--) {
-                            M.setAt(rightSideRow, ci, Complex.subtract(
-                                    M.at(rightSideRow, ci),
-                                    Complex.multiply(M.at(rightSideRow, c), M.at(r, ci))
-                            ));
-                            M.setAt(r, ci, new Complex(0, 0));
+                            int rhsCi = 2 * (ci * rows + rightSideRow);
+                            int rCi = 2 * (ci * rows + r);
+                            n[rhsCi] -= fRe * n[rCi] - fIm * n[rCi + 1];
+                            n[rhsCi + 1] -= fRe * n[rCi + 1] + fIm * n[rCi];
+                            n[rCi] = 0;
+                            n[rCi + 1] = 0;
                     }
                     r--;
                 }
                 Vector ret = new Vector(M.row-1);
                 for (int c = 0; c < M.column; c++) {
-                    ret.setAt(c, M.at(rightSideRow, c));
+                    ret.setAt(c, M.getRe(rightSideRow, c), M.getIm(rightSideRow, c));
                 }
                 return ret;
     //---------------------------------------------------------------------------
@@ -62,6 +68,262 @@ public class Gauss {
         }
     }
 
+    /**
+     * Default relative tolerance of the rank decision of {@link #EliminateWithPivoting(Matrix, double, int)}.
+     */
+    public static final double defaultTolerance = 1e-10;
+
+    /**
+     * Gaussian elimination with partial pivoting, one step of iterative refinement and the default tolerance.
+     * HUN: Gauss-elimináció részleges főelemkiválasztással, egy lépés iteratív finomítással és alapértelmezett toleranciával.
+     * @param system M - (N+1)*M matrix in the same layout as for {@link #Eliminate(Matrix)}. Not modified.
+     * @return Vector - The solution of the linear system.
+     * @throws GaussException - if the matrix has no solution or has infinite solutions.
+     */
+    public static Vector EliminateWithPivoting (Matrix system) throws GaussException {
+        return EliminateWithPivoting(system, defaultTolerance, 1);
+    }
+
+    /**
+     * Gaussian elimination with partial pivoting for column major matrix. Each column is an equation, the right side is in the last row.
+     * The equations are scaled to unit largest coefficient, then for each variable the equation with the largest coefficient is chosen as pivot.
+     * A variable means infinite solutions, if its remaining coefficients are below the tolerance both in the equilibrated equations
+     * and in the unscaled equations relative to its largest original coefficient, so a variable with coefficients of very different
+     * magnitudes, like the currents of a capacitor at zero frequency, is not mistaken for a dependent one. An equation left over after
+     * the elimination must be satisfied by the solution relative to the magnitude of its terms, otherwise there is no solution. The solution is improved
+     * by iterative refinement: the residual of the original system is solved with the same factorization and added to the solution.
+     * HUN: Gauss-elimináció részleges főelemkiválasztással oszlop-folytonos mátrixra. Minden oszlop egy egyenlet, a jobb oldal az utolsó sorban van.
+     * Az egyenleteket a legnagyobb együtthatójukkal normálja, majd minden változóhoz a legnagyobb együtthatójú egyenletet választja főelemnek.
+     * Ha egy változó maradék együtthatói a toleranciánál kisebbek mind a normált egyenletekben, mind a normálatlan egyenletekben
+     * az eredeti legnagyobb együtthatójához képest, végtelen sok megoldás van, így a nagyon különböző nagyságú együtthatójú változók,
+     * mint a kondenzátor árama nulla frekvencián, nem tűnnek összefüggőnek. Az elimináció után megmaradt egyenleteket a megoldásnak
+     * a tagjaik nagyságához képest teljesítenie kell, különben nincs megoldás. A megoldást iteratív finomítással javítja.
+     * @param system M - (N+1)*M matrix with M &gt;= N. The right side values should be in the last row. Not modified.
+     * @param tolerance - Relative tolerance of the rank and consistency decisions.
+     * @param refinementSteps - Number of iterative refinement steps. 0 means no refinement.
+     * @return Vector - The solution of the linear system. The 0. index value of the vector is the value of the 0. index variable.
+     * @throws GaussException - if the matrix has no solution or has infinite solutions.
+     */
+    public static Vector EliminateWithPivoting (Matrix system, double tolerance, int refinementSteps) throws GaussException {
+        Vector solution = new Vector(system.row - 1);
+        EliminateWithPivoting(system, new GaussWorkspace(), solution, tolerance, refinementSteps);
+        return solution;
+    }
+
+    /**
+     * Allocation free variant of {@link #EliminateWithPivoting(Matrix, double, int)}. The factorization is done in the caller-owned workspace,
+     * the equations are reordered by the permutation of the workspace instead of being removed from the system, and the solution is written
+     * into the given vector. After the workspace has grown to the size of the system, repeated solves do not allocate.
+     * HUN: A {@link #EliminateWithPivoting(Matrix, double, int)} memóriafoglalás nélküli változata. A felbontás a hívó munkaterületén történik,
+     * az egyenleteket a munkaterület permutációja rendezi át a rendszerből való törlésük helyett, a megoldást a megadott vektorba írja.
+     * Miután a munkaterület felnőtt a rendszer méretéhez, az ismételt megoldások nem foglalnak memóriát.
+     * @param system M - (N+1)*M matrix with M &gt;= N. The right side values should be in the last row. Not modified.
+     * @param workspace - Working buffers, grown if needed.
+     * @param solution - Vector of dimension N, that receives the solution.
+     * @param tolerance - Relative tolerance of the rank and consistency decisions.
+     * @param refinementSteps - Number of iterative refinement steps. 0 means no refinement.
+     * @throws GaussException - if the matrix has no solution or has infinite solutions. The content of the solution vector is undefined then.
+     */
+    public static void EliminateWithPivoting (Matrix system, GaussWorkspace workspace, Vector solution, double tolerance, int refinementSteps) throws GaussException {
+        int rows = system.row;
+        int N = system.row - 1;     //Number of variables
+        int m = system.column;      //Number of equations
+        if (solution.dimension != N) {
+            throw new RuntimeException("The dimension of the solution vector must be the number of variables.");
+        }
+        if (m < N) {
+            throw new InfiniteSolutions();
+        }
+        workspace.reserve(rows, m);
+        double[] a = workspace.factor;
+        double[] scale = workspace.scale;
+        int[] order = workspace.order;
+        double[] variableMagnitude = workspace.variableMagnitude;
+        System.arraycopy(system.n, 0, a, 0, 2 * rows * m);
+        for (int r = 0; r < N; r++) {
+            variableMagnitude[r] = 0;
+        }
+
+        //Equilibration:
+        for (int c = 0; c < m; c++) {
+            order[c] = c;
+            double largest = 0;
+            for (int r = 0; r < N; r++) {
+                int i = 2 * (c * rows + r);
+                double magnitude = Math.hypot(a[i], a[i + 1]);
+                largest = Math.max(largest, magnitude);
+                variableMagnitude[r] = Math.max(variableMagnitude[r], magnitude);
+            }
+            if (largest == 0) {
+                scale[c] = 0;
+                int i = 2 * (c * rows + N);
+                if (a[i] != 0 || a[i + 1] != 0) {     //Forbidden column, where all elements are 0 except the last element.
+                    throw new NoSolution();
+                }
+                continue;                           //Zero equation, never chosen as pivot.
+            }
+            scale[c] = 1 / largest;
+            for (int r = 0; r < N; r++) {
+                int i = 2 * (c * rows + r);
+                a[i] *= scale[c];
+                a[i + 1] *= scale[c];
+            }
+        }
+
+        //Factorization. The multipliers are stored in place of the eliminated elements:
+        for (int k = 0; k < N; k++) {
+            int pivot = k;
+            double largest = 0;
+            double remaining = 0;       //Largest remaining coefficient in the unscaled equations
+            for (int c = k; c < m; c++) {
+                int i = 2 * (c * rows + k);
+                double magnitude = Math.hypot(a[i], a[i + 1]);
+                if (magnitude == 0) {
+                    continue;
+                }
+                if (magnitude > largest) {
+                    largest = magnitude;
+                    pivot = c;
+                }
+                remaining = Math.max(remaining, magnitude / scale[order[c]]);
+            }
+            if (remaining <= tolerance * variableMagnitude[k] && largest <= tolerance) {
+                throw new InfiniteSolutions();
+            }
+            if (pivot != k) {
+                swapColumns(a, rows, k, pivot);
+                int temp = order[k];
+                order[k] = order[pivot];
+                order[pivot] = temp;
+            }
+            int kk = 2 * (k * rows + k);
+            double div = a[kk] * a[kk] + a[kk + 1] * a[kk + 1];
+            double dRe = a[kk] / div;
+            double dIm = -a[kk + 1] / div;
+            for (int c = k + 1; c < m; c++) {
+                int kc = 2 * (c * rows + k);
+                double fRe = a[kc] * dRe - a[kc + 1] * dIm;
+                double fIm = a[kc] * dIm + a[kc + 1] * dRe;
+                a[kc] = fRe;
+                a[kc + 1] = fIm;
+                if (fRe == 0 && fIm == 0) {
+                    continue;
+                }
+                for (int r = k + 1; r < N; r++) {
+                    int rk = 2 * (k * rows + r);
+                    int rc = 2 * (c * rows + r);
+                    a[rc] -= fRe * a[rk] - fIm * a[rk + 1];
+                    a[rc + 1] -= fRe * a[rk + 1] + fIm * a[rk];
+                }
+            }
+        }
+
+        //Solution:
+        double[] d = workspace.rightSide;
+        double[] x = solution.values();
+        for (int c = 0; c < m; c++) {
+            int i = 2 * (order[c] * rows + N);
+            d[2 * c] = system.n[i] * scale[order[c]];
+            d[2 * c + 1] = system.n[i + 1] * scale[order[c]];
+        }
+        forwardSubstitute(a, rows, N, m, d);
+        backSubstitute(a, rows, N, d, x);
+        for (int c = N; c < m; c++) {    //Equations left over must be satisfied.
+            if (!isSatisfied(system, order[c], x, tolerance)) {
+                throw new NoSolution();
+            }
+        }
+
+        //Iterative refinement with the residual of the original system:
+        for (int step = 0; step < refinementSteps; step++) {
+            for (int c = 0; c < m; c++) {
+                int col = order[c];
+                int i = 2 * (col * rows + N);
+                double re = system.n[i];
+                double im = system.n[i + 1];
+                for (int r = 0; r < N; r++) {
+                    int j = 2 * (col * rows + r);
+                    re -= system.n[j] * x[2 * r] - system.n[j + 1] * x[2 * r + 1];
+                    im -= system.n[j] * x[2 * r + 1] + system.n[j + 1] * x[2 * r];
+                }
+                d[2 * c] = re * scale[col];
+                d[2 * c + 1] = im * scale[col];
+            }
+            forwardSubstitute(a, rows, N, m, d);
+            double[] correction = workspace.correction;
+            backSubstitute(a, rows, N, d, correction);
+            for (int i = 0; i < 2 * N; i++) {
+                x[i] += correction[i];
+            }
+        }
+    }
+
+    /**
+     * Whether the residual of the equation is small compared to its right side and its coefficients times the largest variable of the solution.
+     * The test does not depend on the scale of the equation.
+     * HUN: Az egyenlet maradéka kicsi-e a jobb oldalához és az együtthatói és a megoldás legnagyobb változójának szorzatához képest.
+     * A döntés nem függ az egyenlet skálájától.
+     */
+    private static boolean isSatisfied(Matrix system, int equation, double[] x, double tolerance) {
+        int rows = system.row;
+        int N = rows - 1;
+        double largestVariable = 0;
+        for (int r = 0; r < N; r++) {
+            largestVariable = Math.max(largestVariable, Math.hypot(x[2 * r], x[2 * r + 1]));
+        }
+        int i = 2 * (equation * rows + N);
+        double re = system.n[i];
+        double im = system.n[i + 1];
+        double coefficients = 0;
+        for (int r = 0; r < N; r++) {
+            int j = 2 * (equation * rows + r);
+            re -= system.n[j] * x[2 * r] - system.n[j + 1] * x[2 * r + 1];
+            im -= system.n[j] * x[2 * r + 1] + system.n[j + 1] * x[2 * r];
+            coefficients += Math.hypot(system.n[j], system.n[j + 1]);
+        }
+        double size = Math.hypot(system.n[i], system.n[i + 1]) + coefficients * largestVariable;
+        return Math.hypot(re, im) <= tolerance * size;
+    }
+
+    /**
+     * Applies the stored multipliers of the factorization to the right side of the equations in pivot order.
+     * HUN: A felbontás tárolt szorzóit alkalmazza az egyenletek főelem sorrendű jobb oldalára.
+     */
+    private static void forwardSubstitute(double[] a, int rows, int N, int m, double[] d) {
+        for (int k = 0; k < N; k++) {
+            double re = d[2 * k];
+            double im = d[2 * k + 1];
+            if (re == 0 && im == 0) {
+                continue;
+            }
+            for (int c = k + 1; c < m; c++) {
+                int kc = 2 * (c * rows + k);
+                d[2 * c] -= a[kc] * re - a[kc + 1] * im;
+                d[2 * c + 1] -= a[kc] * im + a[kc + 1] * re;
+            }
+        }
+    }
+
+    /**
+     * Solves the triangular system of the pivot equations.
+     * HUN: Megoldja a főelem egyenletek háromszög rendszerét.
+     */
+    private static void backSubstitute(double[] a, int rows, int N, double[] d, double[] x) {
+        for (int k = N - 1; k >= 0; k--) {
+            double re = d[2 * k];
+            double im = d[2 * k + 1];
+            for (int v = k + 1; v < N; v++) {
+                int vk = 2 * (k * rows + v);
+                re -= a[vk] * x[2 * v] - a[vk + 1] * x[2 * v + 1];
+                im -= a[vk] * x[2 * v + 1] + a[vk + 1] * x[2 * v];
+            }
+            int kk = 2 * (k * rows + k);
+            double div = a[kk] * a[kk] + a[kk + 1] * a[kk + 1];
+            x[2 * k] = (re * a[kk] + im * a[kk + 1]) / div;
+            x[2 * k + 1] = (im * a[kk] - re * a[kk + 1]) / div;
+        }
+    }
+
     /**
 	 * Reduces matrix to r.e.f.
 	 * HUN: A mátrixot lineárisan függetlené redukálja.
@@ -78,26 +340,40 @@ public class Gauss {
             return SingularityFlag.infiniteSolutions;
         }
     	
-
+        double[] n = M.n;
+        int rows = M.row;
         int c = 0;
         int r = 0;
         
         while (true) {
-            if (!M.at(r,c).equals(new Complex(0, 0))) {
+            if (!isZero(M, r, c)) {
                 //Divide column[c] by M(r,c).
-                Complex divider = M.at(r, c).inverse();
-                for (int i = 0; i < M.row; i++) {
-                    M.setAt(i, c, Complex.multiply(M.at(i, c), divider));
+                int rc = 2 * (c * rows + r);
+                double div = n[rc] * n[rc] + n[rc + 1] * n[rc + 1];
+                double dRe = n[rc] / div;
+                double dIm = -n[rc + 1] / div;
+                int colC = 2 * c * rows;
+                for (int i = colC; i < colC + 2 * rows; i += 2) {
+                    double re = n[i];
+                    double im = n[i + 1];
+                    n[i] = re * dRe - im * dIm;
+                    n[i + 1] = re * dIm + im * dRe;
                 }
                 if (c < M.column - 1) {
                     //Add the -M(r, i) * M[c] column to all "M[i]" columns:
                     for (int i = c+1; i < M.column; i++) {
-                        Complex fact = M.at(r, i);
-                        for (int j = 0; j < M.row; j++) {
-                            M.setAt(j, i, Complex.subtract(
-                                    M.at(j, i),
-                                    Complex.multiply(fact, M.at(j, c))
-                                    ));
+                        int ri = 2 * (i * rows + r);
+                        double fRe = n[ri];
+                        double fIm = n[ri + 1];
+                        if (fRe == 0 && fIm == 0) {
+                            continue;
+                        }
+                        int colI = 2 * i * rows;
+                        for (int j = 0; j < 2 * rows; j += 2) {
+                            double re = n[colC + j];
+                            double im = n[colC + j + 1];
+                            n[colI + j] -= fRe * re - fIm * im;
+                            n[colI + j + 1] -= fRe * im + fIm * re;
                         }
                     }
                 }
@@ -114,7 +390,7 @@ public class Gauss {
                 if (c < M.column-1) {
                     //Search for swapable. Criteria: 0 != M(r, i)
                     for (int i = c+1; i < M.column; i++) {
-                        if (! M.at(r, i).equals(new Complex(0, 0))) {     //if swappable found swap columns
+                        if (!isZero(M, r, i)) {     //if swappable found swap columns
                             SwapColumn(M, c, i);
                             foundSwappable = true;
                             break;
@@ -144,7 +420,7 @@ public class Gauss {
             for (int i = c; i < M.column; i++) {    //Iterate on columns
                 boolean foundNotZeroInColumn = false;
                 for (int j = 0; j < M.row; j++) {   //Iterate element in current column
-                    if (!M.at(j, i).equals(new Complex(0, 0))) {
+                    if (!isZero(M, j, i)) {
                         if (j == M.row-1) {     //Found a forbidden column, where all elements are 0 except the last element.
                             return SingularityFlag.noSolution;
                         }
@@ -176,6 +452,25 @@ public class Gauss {
 
     //Auxiliary functions:
 
+    /**
+     * Whether the element at position (r, c) is exactly zero.
+     * HUN: Pontosan nulla-e az (r, c) pozíción álló elem.
+     */
+    private static boolean isZero(Matrix M, int r, int c) {
+        int i = 2 * (c * M.row + r);
+        return M.n[i] == 0 && M.n[i + 1] == 0;
+    }
+
+    private static void swapColumns(double[] a, int rows, int col1, int col2) {
+        int offset1 = 2 * col1 * rows;
+        int offset2 = 2 * col2 * rows;
+        for (int i = 0; i < 2 * rows; i++) {
+            double temp = a[offset1 + i];
+            a[offset1 + i] = a[offset2 + i];
+            a[offset2 + i] = temp;
+        }
+    }
+
 	/**
      * Swaps content of two columns of M matrix.
      * HUN: Megcserél két oszlopot a mátrixban.
@@ -184,13 +479,7 @@ public class Gauss {
      * @param col2 - Column no. 2
      */
     private static void SwapColumn (Matrix M, int col1, int col2) {
-    	Complex temp;
-        for (int r = 0; r < M.row; r++) {
-            temp = M.at(r, col1);
-            M.setAt(r, col1, M.at(r, col2));
-            M.setAt(r, col2, temp);
-        }
-
+        swapColumns(M.n, M.row, col1, col2);
     }
 
     /**
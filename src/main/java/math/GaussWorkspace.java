@@ -0,0 +1,97 @@
+package math;
+
+
+/**
+ * Caller-owned working buffers of {@link Gauss#EliminateWithPivoting(Matrix, GaussWorkspace, Vector, double, int)}.
+ * The buffers grow to the largest system solved with them and are reused, so repeated solves of systems of the same size do not allocate.
+ * A workspace must not be used by more threads at the same time.
+ * HUN: A hívó tulajdonában lévő munkaterület a {@link Gauss#EliminateWithPivoting(Matrix, GaussWorkspace, Vector, double, int)} számára.
+ * A pufferek a velük megoldott legnagyobb rendszer méretére nőnek és újrahasznosulnak, így az azonos méretű rendszerek ismételt megoldása nem foglal memóriát.
+ * Egy munkaterületet egyszerre csak egy szál használhat.
+ * @author Simon Zoltán
+ *
+ */
+public class GaussWorkspace {
+
+	/**
+	 * Copy of the system, that is overwritten by the factorization. The original system is kept for the iterative refinement.
+	 * HUN: A rendszer másolata, amit a felbontás felülír. Az eredeti rendszer az iteratív finomításhoz megmarad.
+	 */
+	double factor[] = new double[0];
+
+	/**
+	 * Equilibration factor of each equation.
+	 * HUN: Az egyenletek normáló tényezői.
+	 */
+	double scale[] = new double[0];
+
+	/**
+	 * Permutation of the equations: order[k] is the index of the equation in the system, that is at position k after pivoting.
+	 * Equations are never removed from the system, only moved in this permutation.
+	 * HUN: Az egyenletek permutációja: order[k] annak az egyenletnek az indexe, ami a főelemkiválasztás után a k. helyen áll.
+	 * Az egyenleteket nem törli a rendszerből, csak ebben a permutációban mozgatja.
+	 */
+	int order[] = new int[0];
+
+	/**
+	 * Right side of the equations in pivot order, interleaved.
+	 * HUN: Az egyenletek főelem sorrendű jobb oldala, váltott tárolással.
+	 */
+	double rightSide[] = new double[0];
+
+	/**
+	 * Correction of the solution in a refinement step, interleaved.
+	 * HUN: A megoldás javítása egy finomítási lépésben, váltott tárolással.
+	 */
+	double correction[] = new double[0];
+
+	/**
+	 * Largest coefficient of each variable in the original system, the reference of the rank decision.
+	 * HUN: Az egyes változók legnagyobb együtthatója az eredeti rendszerben, a rangdöntés viszonyítási alapja.
+	 */
+	double variableMagnitude[] = new double[0];
+
+	public GaussWorkspace() {
+	}
+
+	/**
+	 * Constructor, that allocates the buffers for a system of the given size in advance.
+	 * HUN: Konstruktor, ami előre lefoglalja a puffereket az adott méretű rendszerhez.
+	 * @param rows	Number of rows of the system: number of variables + 1.
+	 * @param columns	Number of columns of the system: number of equations.
+	 */
+	public GaussWorkspace(int rows, int columns) {
+		reserve(rows, columns);
+	}
+
+	/**
+	 * Grows the buffers, if they are too small for a system of the given size. Never shrinks them.
+	 * HUN: Megnöveli a puffereket, ha kicsik az adott méretű rendszerhez. Sosem csökkenti őket.
+	 * @param rows	Number of rows of the system.
+	 * @param columns	Number of columns of the system.
+	 */
+	public final void reserve(int rows, int columns) {
+		if (factor.length < 2 * rows * columns) {
+			factor = new double[2 * rows * columns];
+		}
+		if (order.length < columns) {
+			scale = new double[columns];
+			order = new int[columns];
+			rightSide = new double[2 * columns];
+		}
+		if (correction.length < 2 * rows) {
+			correction = new double[2 * rows];
+			variableMagnitude = new double[rows];
+		}
+	}
+
+	/**
+	 * Index of the equation, that was used as pivot of the given variable in the last solve.
+	 * HUN: Annak az egyenletnek az indexe, ami a legutóbbi megoldásban az adott változó főeleme volt.
+	 * @param variable	Index of the variable.
+	 * @return	Index of the equation (column) in the system.
+	 */
+	public int pivotEquation(int variable) {
+		return order[variable];
+	}
+}
@@ -22,11 +22,11 @@ public class Line {
 		a = new Vector(2);
 		b = new Vector(2);
 		
-		a.setAt(0, new Complex(ax, 0));
-		a.setAt(1, new Complex(ay, 0));
+		a.setAt(0, ax, 0);
+		a.setAt(1, ay, 0);
 
-		b.setAt(0, new Complex(bx, 0));
-		b.setAt(1, new Complex(by, 0));
+		b.setAt(0, bx, 0);
+		b.setAt(1, by, 0);
 		
 	}
 
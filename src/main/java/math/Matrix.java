@@ -1,14 +1,23 @@
 package math;
 
+import java.util.Arrays;
+
 
 /**
- * Column major matrix, for double values.
- * HUN: Oszlopfolytonos mátrix, lebegőpontos értékek tárolására.
+ * Column major matrix, for complex values.
+ * The values are stored in a single primitive array, with the real and imaginary parts interleaved,
+ * so reading and writing elements does not allocate.
+ * HUN: Oszlopfolytonos mátrix, komplex értékek tárolására.
+ * Az értékek egyetlen primitív tömbben vannak, a valós és képzetes részek felváltva követik egymást.
  * @author Simon Zoltán
  *
  */
 public class Matrix {
-	Complex n[];
+	/**
+	 * Interleaved storage: the real part of element (r, c) is at index 2 * (c * row + r), the imaginary part is right after it.
+	 * HUN: Váltott tárolás: az (r, c) elem valós része a 2 * (c * row + r) indexen van, a képzetes rész közvetlenül utána.
+	 */
+	double n[];
     public int row;
     public int column;
 
@@ -16,22 +25,14 @@ public class Matrix {
 	//Constructors:---------------------------------------------------
 	
     /**
-     * Constructor
+     * Constructor. All elements are initialised to zero.
      * @param r - number of rows
      * @param c - number of columns
      */    
     public Matrix(int r,int c) {
     	row = r;
     	column = c;
-        n = new Complex[row * column];
-        for (int j = 0; j < column; j++) {
-            for (int i = 0; i < row; i++) {
-                n[j * row + i] = new Complex(0, 0);
-            }
-        }
-        /*if (n == nullptr) {
-            throw runtime_error("Initialisation failed!");
-        }*/
+        n = new double[2 * row * column];
     }
 
     /**
@@ -41,15 +42,7 @@ public class Matrix {
     public Matrix(Matrix M) {
     	row = M.row;
     	column = M.column;
-        n = new Complex[row * column];
-        /*if (n == nullptr) {
-            throw std::runtime_error("Initialisation failed!");
-        }*/
-        for (int c = 0; c < column; c++) {
-            for  (int r = 0; r < row; r++) {
-                n[c * row + r] = M.at(r, c).copy();
-            }
-        }
+        n = M.n.clone();
     }
 
     //hashCode/equals:---------------------------------------------------
@@ -76,26 +69,41 @@ public class Matrix {
 			return false;
 		if (row != other.row)
 			return false;
-		for (int c = 0; c < column; c++) {
-			for (int r = 0; r < row; r++) {
-				if (n[c * row + r] != other.at(r, c)) {
-					return false;
-				}
-			}
-		}
-		return true;
+		return Arrays.equals(n, other.n);
 	}
 
     //Indexing:-------------------------------------------------------
     
     /**
-     * Indexing. Returns the value stored at position of r. row and c. column. 
+     * Indexing. Returns a copy of the value stored at position of r. row and c. column.
+     * Use {@link #getRe(int, int)} and {@link #getIm(int, int)} in performance critical code, those do not allocate.
      * @param r - row index
      * @param c - columns index
      * @return	value
      */
     public Complex at(int r, int c) { //indexeles (sor, oszlop)
-    	return n[c * row + r];
+    	int i = 2 * (c * row + r);
+    	return new Complex(n[i], n[i + 1]);
+    }
+
+    /**
+     * Real part of the value stored at position of r. row and c. column.
+     * @param r - row index
+     * @param c - column index
+     * @return real part
+     */
+    public double getRe(int r, int c) {
+    	return n[2 * (c * row + r)];
+    }
+
+    /**
+     * Imaginary part of the value stored at position of r. row and c. column.
+     * @param r - row index
+     * @param c - column index
+     * @return imaginary part
+     */
+    public double getIm(int r, int c) {
+    	return n[2 * (c * row + r) + 1];
     }
     
     /**
@@ -105,7 +113,22 @@ public class Matrix {
      * @param val new value at given position.
      */
     public void setAt(int r, int c, Complex val) {
-    	n[c * row + r] = val.copy();
+    	int i = 2 * (c * row + r);
+    	n[i] = val.getRe();
+    	n[i + 1] = val.getIm();
+    }
+
+    /**
+     * Writing. Sets the value at position of r. row and c. column to the given value without allocation.
+     * @param r	row index
+     * @param c column index
+     * @param re real part of the new value
+     * @param im imaginary part of the new value
+     */
+    public void setAt(int r, int c, double re, double im) {
+    	int i = 2 * (c * row + r);
+    	n[i] = re;
+    	n[i + 1] = im;
     }
 
     /**
@@ -114,10 +137,11 @@ public class Matrix {
      * @param val - to fill with
      */
     public void fill(Complex val) {
-        for (int c = 0; c < column; c++) {
-            for (int r = 0; r < row; r++) {
-            	n[c * row + r] = val.copy();
-            }
+    	double re = val.getRe();
+    	double im = val.getIm();
+        for (int i = 0; i < n.length; i += 2) {
+        	n[i] = re;
+        	n[i + 1] = im;
         }
     }
 
@@ -128,12 +152,8 @@ public class Matrix {
      * @return this
      */
     public Matrix copy (Matrix M) {
-        if (!this.equals(M)) {
-            for (int c = 0; c < column; c++) {
-                for (int r = 0; r < row; r++) {
-                	n[c * row + r] = M.at(r, c).copy();
-                }
-            }
+        if (this != M) {
+        	System.arraycopy(M.n, 0, n, 0, n.length);
         }
         return this;
     }
@@ -145,16 +165,13 @@ public class Matrix {
      * @return this
      */    
     public Matrix copyWithResize (Matrix M) {
-        if (!this.equals(M)) {
+        if (this != M) {
             row = M.row;
             column = M.column;
-            n = new Complex[row * column];
-            
-            for (int c = 0; c < column; c++) {
-                for (int r = 0; r < row; r++) {
-                	n[c * row + r] = M.at(r, c).copy();
-                }
+            if (n.length != M.n.length) {
+            	n = new double[M.n.length];
             }
+            System.arraycopy(M.n, 0, n, 0, n.length);
         }
         return this;
     }
@@ -18,8 +18,8 @@ public class MyMath {
 	 */
 	public static Vector coordToVector(Coordinate c) {
 		Vector v = new Vector(2);
-		v.setAt(0, new Complex(c.x, 0));
-		v.setAt(1, new Complex(c.y, 0));
+		v.setAt(0, c.x, 0);
+		v.setAt(1, c.y, 0);
 		return v; 
 	}
 
@@ -46,10 +46,11 @@ public class MyMath {
 	 */
 	public static Matrix multiply(Complex s, Matrix M) {
 	    Matrix retM = new Matrix(M.row, M.column);
-	    for (int c = 0; c < M.column; c++) {
-	        for (int r = 0; r < M.row; r++) {
-	            retM.setAt(r, c, Complex.multiply(M.at(r, c), s));
-	        }
+	    double sRe = s.getRe();
+	    double sIm = s.getIm();
+	    for (int i = 0; i < M.n.length; i += 2) {
+	        retM.n[i] = M.n[i] * sRe - M.n[i + 1] * sIm;
+	        retM.n[i + 1] = M.n[i] * sIm + M.n[i + 1] * sRe;
 	    }
 	    return retM;
 	}
@@ -69,11 +70,17 @@ public class MyMath {
 	    Matrix retM = new Matrix(row1, column2);
 	    for (int c = 0; c < column2; c++) {
 	        for (int r = 0; r < row1; r++) {
-	            Complex n = new Complex(0, 0);
+	            double re = 0;
+	            double im = 0;
 	            for (int k = 0; k < column1row2; k++) {
-	                n.add(Complex.multiply(A.at(r, k), B.at(k, c)));
+	                double aRe = A.getRe(r, k);
+	                double aIm = A.getIm(r, k);
+	                double bRe = B.getRe(k, c);
+	                double bIm = B.getIm(k, c);
+	                re += aRe * bRe - aIm * bIm;
+	                im += aRe * bIm + aIm * bRe;
 	            }
-	            retM.setAt(r, c, n);
+	            retM.setAt(r, c, re, im);
 	        }
 	    }
 	    return retM;
@@ -89,11 +96,15 @@ public class MyMath {
 	public static Vector multiply(Matrix M, Vector v) {
 	    Vector retV = new Vector(M.row);
 	    for ( int r = 0; r < M.row; r++) {
-	        Complex n = new Complex(0, 0);
+	        double re = 0;
+	        double im = 0;
 	        for (int c = 0; c < M.column; c++) {
-	            n.add(Complex.multiply(M.at(r, c), v.at(c)));
+	            double mRe = M.getRe(r, c);
+	            double mIm = M.getIm(r, c);
+	            re += mRe * v.getRe(c) - mIm * v.getIm(c);
+	            im += mRe * v.getIm(c) + mIm * v.getRe(c);
 	        }
-	        retV.setAt(r, n);
+	        retV.setAt(r, re, im);
 	    }
 	    return retV;
 	}
@@ -108,11 +119,15 @@ public class MyMath {
 	public static Vector multiply(Vector v, Matrix M) {
 	    Vector retV = new Vector(M.column);
 	    for (int c = 0; c < M.column; c++) {
-			Complex n = new Complex(0, 0);
+	        double re = 0;
+	        double im = 0;
             for (int r = 0; r < M.row; r++) {
-	                n.add(Complex.multiply(v.at(r), M.at(r, c)));
+	            double mRe = M.getRe(r, c);
+	            double mIm = M.getIm(r, c);
+	            re += v.getRe(r) * mRe - v.getIm(r) * mIm;
+	            im += v.getRe(r) * mIm + v.getIm(r) * mRe;
 	        }
-            retV.setAt(c, n);
+            retV.setAt(c, re, im);
 	    }
 	    return retV;
 	}
@@ -125,13 +140,7 @@ public class MyMath {
 	 * @return solution
 	 */
 	public static Matrix multiply(Matrix M, Complex s) {
-	    Matrix retM = new Matrix(M.row, M.column);
-	    for (int c = 0; c < M.column; c++) {
-	        for (int r = 0; r < M.row; r++) {
-	            retM.setAt(r, c, Complex.multiply(M.at(r, c), s));
-	        }
-	    }
-	    return retM;
+	    return multiply(s, M);
 	}
 	
 	/**
@@ -144,7 +153,7 @@ public class MyMath {
 	    Matrix retM = new Matrix(M.column, M.row);
 	    for (int c = 0; c < M.column; c++) {
 	        for (int r = 0; r < M.row; r++) {
-	            retM.setAt(c, r, M.at(r, c));
+	            retM.setAt(c, r, M.getRe(r, c), M.getIm(r, c));
 	        }
 	    }
 	    return retM;
@@ -161,10 +170,8 @@ public class MyMath {
 	 */
 	public static Matrix add(Matrix A, Matrix B) {
 	    Matrix retM = new Matrix(A.row, A.column);
-	    for (int c = 0; c < A.column; c++) {
-	        for (int r = 0; r < A.row; r++) {
-	            retM.setAt(r, c, Complex.add(A.at(r, c), B.at(r, c)));
-	        }
+	    for (int i = 0; i < retM.n.length; i++) {
+	        retM.n[i] = A.n[i] + B.n[i];
 	    }
 	    return retM;
 	}
@@ -178,10 +185,8 @@ public class MyMath {
 	 */
 	public static Matrix subtract(Matrix A, Matrix B) {
 	    Matrix retM = new Matrix(A.row, A.column);
-	    for (int c = 0; c < A.column; c++) {
-	        for (int r = 0; r < A.row; r++) {
-	            retM.setAt(r, c, Complex.subtract(A.at(r, c), B.at(r, c)));
-	        }
+	    for (int i = 0; i < retM.n.length; i++) {
+	        retM.n[i] = A.n[i] - B.n[i];
 	    }
 	    return retM;
 	}
@@ -194,9 +199,8 @@ public class MyMath {
 	 */
 	public static Matrix identity(int size) {
 	    Matrix retM = new Matrix(size, size);
-	    retM.fill(new Complex(0, 0));
 	    for (int i = 0; i < size; i++) {
-	        retM.setAt(i, i, new Complex(1, 0));
+	        retM.setAt(i, i, 1, 0);
 	    }
 	    return retM;
 	}
@@ -211,9 +215,8 @@ public class MyMath {
 	 */
 	public static Matrix diagonal(Vector v) {
 	    Matrix retM = new Matrix(v.dimension, v.dimension);
-	    retM.fill(new Complex(0, 0));
 	    for (int i = 0; i < v.dimension; i++) {
-	        retM.setAt(i, i, v.at(i));
+	        retM.setAt(i, i, v.getRe(i), v.getIm(i));
 	    }
 	    return retM;
 	}
@@ -236,9 +239,7 @@ public class MyMath {
 	        	indexOfcurrentRemov++;
 	        }
 	        else {
-	            for (int r = 0; r < M.row; r++) {
-	                tempM.setAt(r, ct, M.at(r, c));
-	            }
+	            System.arraycopy(M.n, 2 * c * M.row, tempM.n, 2 * ct * M.row, 2 * M.row);
 	            ct++;
 	        }
 	    }
@@ -265,7 +266,7 @@ public class MyMath {
 	        }
 	        else {
 	            for (int i = 0; i < M.column; i++) {
-	                tempM.setAt(rt, i, M.at(r, i));
+	                tempM.setAt(rt, i, M.getRe(r, i), M.getIm(r, i));
 	            }
 	            rt++;
 	        }
@@ -282,10 +283,11 @@ public class MyMath {
 	 * @return matrix with multiplied row
 	 */
 	public static Matrix multiplyRow(Matrix M, int row, Complex val) {
-	    Matrix retM = new Matrix(M.row, M.column);
-	    retM.copy(M);
+	    Matrix retM = new Matrix(M);
 	    for (int c = 0; c < M.column; c++) {
-	        retM.setAt(row, c, Complex.multiply(M.at(row, c), val));
+	        double re = M.getRe(row, c);
+	        double im = M.getIm(row, c);
+	        retM.setAt(row, c, re * val.getRe() - im * val.getIm(), re * val.getIm() + im * val.getRe());
 	    }
 	    return retM;
 	}
@@ -299,10 +301,11 @@ public class MyMath {
 	 * @return matrix with multiplied column
 	 */	
 	public static Matrix multiplyColumn(Matrix M, int column, Complex val) {
-	    Matrix retM = new Matrix(M.row, M.column);
-	    retM.copy(M);
+	    Matrix retM = new Matrix(M);
 	    for (int r = 0; r < M.row; r++) {
-	        retM.setAt(r, column, Complex.multiply(M.at(r, column), val));
+	        double re = M.getRe(r, column);
+	        double im = M.getIm(r, column);
+	        retM.setAt(r, column, re * val.getRe() - im * val.getIm(), re * val.getIm() + im * val.getRe());
 	    }
 	    return retM;
 	}
@@ -320,11 +323,7 @@ public class MyMath {
 	 * @return solution
 	 */
 	public static Vector multiply(Vector v, Complex s) {
-	    Vector retV = new Vector(v.dimension);
-	    for (int i = 0; i < v.dimension; i++) {
-	        retV.setAt(i, Complex.multiply(v.at(i), s));
-	    }
-	    return retV;
+	    return Vector.multiply(v, s);
 	}
 
 	//A								  A
@@ -338,11 +337,7 @@ public class MyMath {
 	 * @return solution
 	 */
 	public static Vector multiply(Complex s, Vector v) {
-	    Vector retV = new Vector(v.dimension);
-	    for (int i = 0; i < v.dimension; i++) {
-	        retV.setAt(i, Complex.multiply(v.at(i), s));
-	    }
-	    return retV;
+	    return Vector.multiply(v, s);
 	}
 
 	/**
@@ -354,8 +349,11 @@ public class MyMath {
 	 */
 	public static double dot (Vector a, Vector b) {
 	    double sum = 0;
-	    for (int i = 0; i < a.dimension; i++) {
-	        sum += Complex.multiply(a.at(i).conjugate(), b.at(i)).getRe();
+	    if (a.n == null || b.n == null) {
+	        return sum;
+	    }
+	    for (int i = 0; i < 2 * a.dimension; i++) {	// Re(conj(a) * b) = a.re * b.re + a.im * b.im
+	        sum += a.n[i] * b.n[i];
 	    }
 	    return sum;
 	}
@@ -368,11 +366,7 @@ public class MyMath {
 	 * @return {@link Vector} 
 	 */
 	public static Vector divide(Vector v, Complex s) {
-	    Vector retV = new Vector(v.dimension);
-	    for (int i = 0; i < v.dimension; i++) {
-	        retV.setAt(i, Complex.divide(v.at(i), s));
-	    }
-	    return retV;
+	    return Vector.divide(v, s);
 	}
 
 	/**
@@ -385,7 +379,10 @@ public class MyMath {
 	public static Vector divide(Vector a, Vector b) {
 	    Vector retV = new Vector(a.dimension);
 	    for (int i = 0; i < a.dimension; i++) {
-	        retV.setAt(i, Complex.divide(a.at(i), b.at(i)));
+	        double div = b.getRe(i) * b.getRe(i) + b.getIm(i) * b.getIm(i);
+	        double re = (a.getRe(i) * b.getRe(i) + a.getIm(i) * b.getIm(i)) / div;
+	        double im = (a.getIm(i) * b.getRe(i) - a.getRe(i) * b.getIm(i)) / div;
+	        retV.setAt(i, re, im);
 	    }
 	    return retV;
 	}
@@ -398,8 +395,8 @@ public class MyMath {
 	 */
 	public static Vector negate(Vector v) {
 	    Vector retV = new Vector(v.dimension);
-	    for (int i = 0; i < v.dimension; i++) {
-	        retV.setAt(i, new Complex(-v.at(i).getRe(), -v.at(i).getIm()));
+	    for (int i = 0; i < 2 * v.dimension; i++) {
+	        retV.n[i] = -v.n[i];
 	    }
 	    return retV;
 	}
@@ -412,8 +409,8 @@ public class MyMath {
 	 */
 	public static double magnitude(Vector v) {
 	    double sum = 0;
-	    for (int i = 0; i < v.dimension; i++) {
-	        sum += Complex.multiply(v.at(i).conjugate(), v.at(i)).getRe();
+	    for (int i = 0; i < 2 * v.dimension; i++) {
+	        sum += v.n[i] * v.n[i];
 	    }
 	    return Math.sqrt(sum);
 	}
@@ -442,11 +439,7 @@ public class MyMath {
 	 * @return sum {@link Vector}
 	 */
 	public static Vector add(Vector a, Vector b) {
-	    Vector retV = new Vector(a.dimension);
-	    for (int i = 0; i < a.dimension; i++) {
-	        retV.setAt(i, Complex.add(a.at(i), b.at(i)));
-	    }
-	    return retV;
+	    return Vector.add(a, b);
 	}
 
 	/**
@@ -457,11 +450,7 @@ public class MyMath {
 	 * @return difference {@link Vector}
 	 */
 	public static Vector subtract(Vector a, Vector b) {
-	    Vector retV = new Vector(a.dimension);
-	    for (int i = 0; i < a.dimension; i++) {
-	        retV.setAt(i, Complex.subtract(a.at(i), b.at(i)));
-	    }
-	    return retV;
+	    return Vector.subtract(a, b);
 	}
 
 	/**
@@ -480,10 +469,10 @@ public class MyMath {
 		for (int c = 0; c < retM.column; c++) {
 			for (int r = 0; r < retM.row; r++) {
 				if (c < A.column) {
-					retM.setAt(r, c, A.at(r, c));
+					retM.setAt(r, c, A.getRe(r, c), A.getIm(r, c));
 				}
 				else {
-					retM.setAt(r, c, B.at(r, c - A.column));					
+					retM.setAt(r, c, B.getRe(r, c - A.column), B.getIm(r, c - A.column));					
 				}
 			}
 		}
@@ -507,10 +496,10 @@ public class MyMath {
 		for (int c = 0; c < retM.column; c++) {
 			for (int r = 0; r < retM.row; r++) {
 				if (c < A.column) {
-					retM.setAt(r, c, A.at(r, c));
+					retM.setAt(r, c, A.getRe(r, c), A.getIm(r, c));
 				}
 				else {
-					retM.setAt(r, c, v.at(r));					
+					retM.setAt(r, c, v.getRe(r), v.getIm(r));					
 				}
 			}
 		}
@@ -534,10 +523,10 @@ public class MyMath {
 		for (int r = 0; r < retM.column; r++) {
 			for (int c = 0; c < retM.row; c++) {
 				if (r < A.row) {
-					retM.setAt(r, c, A.at(r, c));
+					retM.setAt(r, c, A.getRe(r, c), A.getIm(r, c));
 				}
 				else {
-					retM.setAt(r, c, B.at(r - A.row, c));					
+					retM.setAt(r, c, B.getRe(r - A.row, c), B.getIm(r - A.row, c));					
 				}
 			}
 		}
@@ -561,10 +550,10 @@ public class MyMath {
 		for (int r = 0; r < retM.column; r++) {
 			for (int c = 0; c < retM.row; c++) {
 				if (r < A.row) {
-					retM.setAt(r, c, A.at(r, c));
+					retM.setAt(r, c, A.getRe(r, c), A.getIm(r, c));
 				}
 				else {
-					retM.setAt(r, c, v.at(c));					
+					retM.setAt(r, c, v.getRe(c), v.getIm(c));					
 				}
 			}
 		}
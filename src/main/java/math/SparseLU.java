@@ -0,0 +1,840 @@
+package math;
+
+import java.util.Arrays;
+
+
+/**
+ * Sparse LU factorization of complex matrices in {@link SparseMatrix} format.
+ * The columns are reordered by an approximate minimum degree ordering of the column intersection graph (the pattern of A^T*A),
+ * postordered by the column elimination tree. The rows are chosen by threshold partial pivoting during a left-looking factorization.
+ * Matrices with the same pattern, but different values can be refactorized with the pivot sequence and the pattern of the factors
+ * of an earlier factorization, that needs no graph traversal, pivot search or allocation.
+ * The matrix may have more rows than columns. Rows, that are not chosen as pivot are treated as redundant equations:
+ * the solution exists only if they are satisfied by the solution of the others.
+ * HUN: Ritka komplex mátrixok LU felbontása.
+ * Az oszlopokat az oszlopmetszet-gráf (A^T*A mintázata) közelítő minimális fokszám szerinti rendezése alapján rendezi át,
+ * a sorokat küszöbös részleges főelemkiválasztással választja ki balról haladó felbontás közben.
+ * Az azonos mintázatú, de eltérő értékű mátrixok egy korábbi felbontás főelem sorrendjével és mintázatával újra felbonthatók.
+ * A mátrixnak több sora is lehet, mint oszlopa. A főelemként nem választott sorok redundáns egyenletek:
+ * megoldás csak akkor létezik, ha ezeket a többi egyenlet megoldása is kielégíti.
+ * @author Simon Zoltán
+ *
+ */
+public class SparseLU {
+
+	/**
+	 * A candidate pivot is accepted, if its magnitude is at least this times the largest magnitude in the column.
+	 * Among the accepted candidates the row with the fewest entries is chosen to reduce fill-in.
+	 * HUN: Egy jelölt főelem elfogadható, ha nagysága legalább ennyiszerese az oszlop legnagyobb elemének.
+	 */
+	private final double pivotThreshold;
+
+	/**
+	 * A column is considered dependent, if its remaining entries are below this times the largest entry of the original column
+	 * and also below this times the largest entry of their original rows. So a column with entries of very different magnitudes,
+	 * like the current of a capacitor at zero frequency, is not mistaken for a dependent one.
+	 * HUN: Egy oszlop lineárisan összefüggőnek tekinthető, ha maradék elemei ennyiszer kisebbek az eredeti oszlop legnagyobb eleménél,
+	 * és a saját eredeti soruk legnagyobb eleménél is. Így a nagyon különböző nagyságú elemeket tartalmazó oszlop,
+	 * mint a kondenzátor árama nulla frekvencián, nem tűnik összefüggőnek.
+	 */
+	private final double singularityTolerance = 1e-12;
+
+	/**
+	 * Redundant equations are considered contradicting, if their residual exceeds this times the largest right side value.
+	 * HUN: A redundáns egyenletek ellentmondóak, ha maradékuk meghaladja a legnagyobb jobb oldali érték ennyiszeresét.
+	 */
+	private final double consistencyTolerance = 1e-9;
+
+	public final int row;
+	public final int column;
+
+	/**
+	 * Column of the original matrix eliminated in each step.
+	 * HUN: Az egyes lépésekben eliminált eredeti oszlop.
+	 */
+	final int columnOrder[];
+
+	/**
+	 * Number of entries in each row of the analysed matrix.
+	 */
+	private final int rowCount[];
+
+	//Factors:
+	/**
+	 * Pivot step of each original row. Redundant rows get the steps after the last column.
+	 * HUN: Az eredeti sorok főelem lépése.
+	 */
+	int pivotOfRow[];
+	int lowerPointers[];
+	int lowerIndices[];
+	double lowerValues[];
+	int upperPointers[];
+	int upperIndices[];
+	double upperValues[];
+	private boolean factorized = false;
+
+	//Workspace:
+	private final double x[];
+	private final int reach[];
+	private final int stack[];
+	private final int stackPosition[];
+	private final int mark[];
+	private int markStamp = 0;
+	private final double work[];
+	private final double rowMagnitude[];
+
+	//Constructors:---------------------------------------------------
+
+	/**
+	 * Symbolic analysis. Computes the column ordering for the pattern of the given matrix.
+	 * The result is valid for every matrix with the same pattern.
+	 * HUN: Szimbolikus analízis. Kiszámolja a mátrix mintázatához tartozó oszlopsorrendet.
+	 * Az eredmény minden azonos mintázatú mátrixra érvényes.
+	 * @param A	compressed matrix with at least as many rows as columns.
+	 * @param pivotThreshold	relative threshold of partial pivoting in (0, 1]. 1 means strict partial pivoting.
+	 */
+	public SparseLU(SparseMatrix A, double pivotThreshold) {
+		if (!A.isCompressed()) {
+			throw new RuntimeException("The matrix must be compressed before the analysis.");
+		}
+		if (A.row < A.column) {
+			throw new RuntimeException("The matrix has less rows than columns.");
+		}
+		if (pivotThreshold <= 0 || pivotThreshold > 1) {
+			throw new RuntimeException("Pivot threshold must be in (0, 1].");
+		}
+		this.pivotThreshold = pivotThreshold;
+		row = A.row;
+		column = A.column;
+
+		rowCount = new int[row];
+		for (int p = 0; p < A.nonZeros(); p++) {
+			rowCount[A.rowIndices[p]]++;
+		}
+		int order[] = minimumDegreeOrdering(A);
+		int postorder[] = postorder(eliminationTree(A, order));
+		columnOrder = new int[column];
+		for (int k = 0; k < column; k++) {
+			columnOrder[k] = order[postorder[k]];
+		}
+
+		pivotOfRow = new int[row];
+		x = new double[2 * row];
+		reach = new int[row];
+		stack = new int[row];
+		stackPosition = new int[row];
+		mark = new int[row];
+		work = new double[2 * row];
+		rowMagnitude = new double[row];
+	}
+
+	public SparseLU(SparseMatrix A) {
+		this(A, 0.1);
+	}
+
+	/**
+	 * Creates a factorization, that shares the symbolic analysis of the other one, but has its own factors and working buffers.
+	 * So matrices with the same pattern can be factorized concurrently.
+	 * HUN: Olyan felbontást hoz létre, ami a másik szimbolikus analízisét használja, de saját tényezői és munkaterülete van.
+	 * @param analysis	The factorization, whose symbolic analysis is shared.
+	 */
+	public SparseLU(SparseLU analysis) {
+		pivotThreshold = analysis.pivotThreshold;
+		row = analysis.row;
+		column = analysis.column;
+		rowCount = analysis.rowCount;
+		columnOrder = analysis.columnOrder;
+
+		pivotOfRow = new int[row];
+		x = new double[2 * row];
+		reach = new int[row];
+		stack = new int[row];
+		stackPosition = new int[row];
+		mark = new int[row];
+		work = new double[2 * row];
+		rowMagnitude = new double[row];
+	}
+
+	//Symbolic analysis:----------------------------------------------
+
+	/**
+	 * Approximate minimum degree ordering on the column intersection graph. Two columns are adjacent, if they have an entry in the same row.
+	 * The graph is not formed: each row is kept as an element, a clique of its columns, and eliminating a column merges the elements
+	 * containing it into a new element of its remaining neighbours (quotient graph), so the memory stays proportional to the matrix and the factors.
+	 * The degrees are the upper bounds of the AMD algorithm, updated only for the neighbours of the eliminated column,
+	 * and the columns are kept in lists by degree, so each step takes time proportional to the elements it touches.
+	 * HUN: Közelítő minimális fokszám szerinti rendezés az oszlopmetszet-gráfon. Két oszlop szomszédos, ha ugyanabban a sorban van elemük.
+	 * A gráfot nem állítja elő: minden sor egy elem, az oszlopainak klikkje, és egy oszlop eliminálása az őt tartalmazó elemeket
+	 * a megmaradt szomszédainak új elemévé vonja össze (hányadosgráf), így a memória a mátrixszal és a tényezőkkel arányos marad.
+	 * A fokszámok az AMD algoritmus felső becslései, amelyek csak az eliminált oszlop szomszédainál frissülnek,
+	 * és az oszlopok fokszám szerinti listákban vannak, így minden lépés az általa érintett elemekkel arányos idejű.
+	 * @param A	compressed matrix
+	 * @return	order of columns
+	 */
+	static int[] minimumDegreeOrdering(SparseMatrix A) {
+		int n = A.column;
+		int m = A.row;
+		//Elements: the rows first, then one for each eliminated column.
+		int elementVariables[][] = new int[m + n][];
+		int elementSize[] = new int[m + n];
+		boolean absorbed[] = new boolean[m + n];
+		for (int p = 0; p < A.nonZeros(); p++) {
+			elementSize[A.rowIndices[p]]++;
+		}
+		for (int r = 0; r < m; r++) {
+			elementVariables[r] = new int[elementSize[r]];
+			elementSize[r] = 0;
+		}
+		//Elements of each variable:
+		int variableElements[][] = new int[n][];
+		int variableElementCount[] = new int[n];
+		for (int c = 0; c < n; c++) {
+			variableElements[c] = new int[A.columnPointers[c + 1] - A.columnPointers[c]];
+			for (int p = A.columnPointers[c]; p < A.columnPointers[c + 1]; p++) {
+				int r = A.rowIndices[p];
+				elementVariables[r][elementSize[r]++] = c;
+				variableElements[c][variableElementCount[c]++] = r;
+			}
+		}
+
+		//Initial degrees and the lists by degree:
+		int mark[] = new int[n];
+		int stamp = 0;
+		int head[] = new int[n];
+		int next[] = new int[n];
+		int previous[] = new int[n];
+		int degree[] = new int[n];
+		Arrays.fill(head, -1);
+		for (int c = 0; c < n; c++) {
+			stamp++;
+			mark[c] = stamp;
+			for (int t = 0; t < variableElementCount[c]; t++) {
+				int e = variableElements[c][t];
+				for (int i = 0; i < elementSize[e]; i++) {
+					int v = elementVariables[e][i];
+					if (mark[v] != stamp) {
+						mark[v] = stamp;
+						degree[c]++;
+					}
+				}
+			}
+			link(c, degree[c], head, next, previous);
+		}
+
+		int order[] = new int[n];
+		boolean eliminated[] = new boolean[n];
+		int pivotElement[] = new int[n];
+		int external[] = new int[m + n];		//Size of an element outside the new element
+		int elementMark[] = new int[m + n];
+		int elementStamp = 0;
+		int minimumDegree = 0;
+		for (int k = 0; k < n; k++) {
+			while (head[minimumDegree] == -1) {
+				minimumDegree++;
+			}
+			int pivot = head[minimumDegree];
+			unlink(pivot, degree[pivot], head, next, previous);
+			order[k] = pivot;
+			eliminated[pivot] = true;
+
+			//The new element is the union of the elements of the pivot, which are absorbed by it:
+			stamp++;
+			mark[pivot] = stamp;
+			int size = 0;
+			for (int t = 0; t < variableElementCount[pivot]; t++) {
+				int e = variableElements[pivot][t];
+				if (absorbed[e]) {
+					continue;
+				}
+				for (int i = 0; i < elementSize[e]; i++) {
+					int v = elementVariables[e][i];
+					if (mark[v] != stamp && !eliminated[v]) {
+						mark[v] = stamp;
+						pivotElement[size++] = v;
+					}
+				}
+				absorbed[e] = true;
+				elementVariables[e] = null;
+			}
+			variableElements[pivot] = null;
+			int newElement = m + k;
+			elementVariables[newElement] = Arrays.copyOf(pivotElement, size);
+			elementSize[newElement] = size;
+
+			//Sizes of the other elements outside the new one:
+			elementStamp++;
+			for (int j = 0; j < size; j++) {
+				int v = pivotElement[j];
+				unlink(v, degree[v], head, next, previous);
+				int count = 0;
+				for (int t = 0; t < variableElementCount[v]; t++) {
+					int e = variableElements[v][t];
+					if (absorbed[e]) {
+						continue;
+					}
+					variableElements[v][count++] = e;
+					if (elementMark[e] != elementStamp) {
+						elementMark[e] = elementStamp;
+						external[e] = elementSize[e];
+					}
+					external[e]--;
+				}
+				variableElementCount[v] = count;
+			}
+
+			//Approximate degrees of the neighbours. Elements inside the new one are absorbed too:
+			for (int j = 0; j < size; j++) {
+				int v = pivotElement[j];
+				int bound = size - 1;
+				int count = 0;
+				for (int t = 0; t < variableElementCount[v]; t++) {
+					int e = variableElements[v][t];
+					if (absorbed[e]) {
+						continue;
+					}
+					if (external[e] == 0) {
+						absorbed[e] = true;
+						elementVariables[e] = null;
+						continue;
+					}
+					variableElements[v][count++] = e;
+					bound += external[e];
+				}
+				if (count == variableElements[v].length) {
+					variableElements[v] = Arrays.copyOf(variableElements[v], 2 * count + 1);
+				}
+				variableElements[v][count++] = newElement;
+				variableElementCount[v] = count;
+				degree[v] = Math.max(0, Math.min(Math.min(bound, degree[v] + size - 1), n - k - 2));
+				link(v, degree[v], head, next, previous);
+				minimumDegree = Math.min(minimumDegree, degree[v]);
+			}
+		}
+		return order;
+	}
+
+	//Lists of the columns by degree:
+	private static void link(int v, int degree, int head[], int next[], int previous[]) {
+		next[v] = head[degree];
+		previous[v] = -1;
+		if (head[degree] != -1) {
+			previous[head[degree]] = v;
+		}
+		head[degree] = v;
+	}
+
+	private static void unlink(int v, int degree, int head[], int next[], int previous[]) {
+		if (previous[v] != -1) {
+			next[previous[v]] = next[v];
+		}
+		else {
+			head[degree] = next[v];
+		}
+		if (next[v] != -1) {
+			previous[next[v]] = previous[v];
+		}
+	}
+
+	/**
+	 * Column elimination tree: the elimination tree of A^T*A with the given column order, computed without forming A^T*A.
+	 * HUN: Oszlop eliminációs fa: az A^T*A eliminációs fája a megadott oszlopsorrenddel, A^T*A előállítása nélkül.
+	 * @param A	compressed matrix
+	 * @param order	order of columns
+	 * @return	parent of each step in the tree or -1 for roots
+	 */
+	static int[] eliminationTree(SparseMatrix A, int order[]) {
+		int n = order.length;
+		int parent[] = new int[n];
+		int ancestor[] = new int[n];
+		int previousStep[] = new int[A.row];
+		Arrays.fill(previousStep, -1);
+		for (int k = 0; k < n; k++) {
+			parent[k] = -1;
+			ancestor[k] = -1;
+			int col = order[k];
+			for (int p = A.columnPointers[col]; p < A.columnPointers[col + 1]; p++) {
+				int r = A.rowIndices[p];
+				int next;
+				for (int i = previousStep[r]; i != -1 && i < k; i = next) {
+					next = ancestor[i];		//Path compression
+					ancestor[i] = k;
+					if (next == -1) {
+						parent[i] = k;
+					}
+				}
+				previousStep[r] = k;
+			}
+		}
+		return parent;
+	}
+
+	/**
+	 * Postorder of a forest. The children are visited in increasing order.
+	 * HUN: Erdő posztorder bejárása.
+	 * @param parent	parent of each node or -1 for roots
+	 * @return	nodes in postorder
+	 */
+	static int[] postorder(int parent[]) {
+		int n = parent.length;
+		int firstChild[] = new int[n];
+		int nextSibling[] = new int[n];
+		Arrays.fill(firstChild, -1);
+		for (int j = n - 1; j >= 0; j--) {
+			if (parent[j] != -1) {
+				nextSibling[j] = firstChild[parent[j]];
+				firstChild[parent[j]] = j;
+			}
+		}
+		int post[] = new int[n];
+		int stack[] = new int[n];
+		int k = 0;
+		for (int root = 0; root < n; root++) {
+			if (parent[root] != -1) {
+				continue;
+			}
+			int head = 0;
+			stack[0] = root;
+			while (head >= 0) {
+				int node = stack[head];
+				int child = firstChild[node];
+				if (child == -1) {
+					post[k++] = node;
+					head--;
+				}
+				else {
+					firstChild[node] = nextSibling[child];
+					stack[++head] = child;
+				}
+			}
+		}
+		return post;
+	}
+
+	//Numeric factorization:------------------------------------------
+
+	/**
+	 * Numeric factorization with threshold partial pivoting. The pattern of the matrix must be the same as the analysed one.
+	 * HUN: Numerikus felbontás küszöbös részleges főelemkiválasztással. A mátrix mintázata meg kell egyezzen az analizálttal.
+	 * @param A	compressed matrix
+	 * @throws GaussException - {@link InfiniteSolutions}, if the columns are linearly dependent.
+	 */
+	public void factor(SparseMatrix A) throws GaussException {
+		if (A.row != row || A.column != column) {
+			throw new RuntimeException("The matrix differs from the analysed one.");
+		}
+		factorized = false;
+		int lowerCapacity = 4 * A.nonZeros() + column;
+		int upperCapacity = 4 * A.nonZeros() + column;
+		lowerPointers = new int[column + 1];
+		lowerIndices = new int[lowerCapacity];
+		lowerValues = new double[2 * lowerCapacity];
+		upperPointers = new int[column + 1];
+		upperIndices = new int[upperCapacity];
+		upperValues = new double[2 * upperCapacity];
+		Arrays.fill(pivotOfRow, -1);
+		updateRowMagnitudes(A, false);
+
+		int lnz = 0;
+		int unz = 0;
+		for (int k = 0; k < column; k++) {
+			lowerPointers[k] = lnz;
+			upperPointers[k] = unz;
+			if (lnz + row > lowerIndices.length) {
+				lowerIndices = Arrays.copyOf(lowerIndices, 2 * lowerIndices.length + row);
+				lowerValues = Arrays.copyOf(lowerValues, 2 * lowerIndices.length);
+			}
+			if (unz + row > upperIndices.length) {
+				upperIndices = Arrays.copyOf(upperIndices, 2 * upperIndices.length + row);
+				upperValues = Arrays.copyOf(upperValues, 2 * upperIndices.length);
+			}
+
+			int col = columnOrder[k];
+			int top = solveLower(A, col);
+
+			//Split the result to U part and pivot candidates:
+			double largest = 0;
+			double largestInRow = 0;		//Largest candidate relative to its row
+			for (int p = top; p < row; p++) {
+				int i = reach[p];
+				if (pivotOfRow[i] < 0) {
+					double magnitude = magnitude(x[2 * i], x[2 * i + 1]);
+					largest = Math.max(largest, magnitude);
+					if (rowMagnitude[i] > 0) {
+						largestInRow = Math.max(largestInRow, magnitude / rowMagnitude[i]);
+					}
+				}
+				else {
+					upperIndices[unz] = pivotOfRow[i];
+					upperValues[2 * unz] = x[2 * i];
+					upperValues[2 * unz + 1] = x[2 * i + 1];
+					unz++;
+				}
+			}
+			if (largest <= singularityTolerance * columnMagnitude(A, col) && largestInRow <= singularityTolerance) {
+				clearWorkspace(top);
+				throw new InfiniteSolutions();
+			}
+
+			//Threshold pivoting, preferring sparse rows:
+			int pivot = -1;
+			double pivotMagnitude = 0;
+			for (int p = top; p < row; p++) {
+				int i = reach[p];
+				if (pivotOfRow[i] < 0) {
+					double magnitude = magnitude(x[2 * i], x[2 * i + 1]);
+					if (magnitude >= pivotThreshold * largest
+							&& (pivot < 0 || rowCount[i] < rowCount[pivot]
+									|| (rowCount[i] == rowCount[pivot] && magnitude > pivotMagnitude))) {
+						pivot = i;
+						pivotMagnitude = magnitude;
+					}
+				}
+			}
+			double pivotRe = x[2 * pivot];
+			double pivotIm = x[2 * pivot + 1];
+			upperIndices[unz] = k;
+			upperValues[2 * unz] = pivotRe;
+			upperValues[2 * unz + 1] = pivotIm;
+			unz++;
+
+			pivotOfRow[pivot] = k;
+			lowerIndices[lnz] = pivot;
+			lowerValues[2 * lnz] = 1;
+			lowerValues[2 * lnz + 1] = 0;
+			lnz++;
+			double denominator = pivotRe * pivotRe + pivotIm * pivotIm;
+			for (int p = top; p < row; p++) {
+				int i = reach[p];
+				if (pivotOfRow[i] < 0) {
+					lowerIndices[lnz] = i;
+					lowerValues[2 * lnz] = (x[2 * i] * pivotRe + x[2 * i + 1] * pivotIm) / denominator;
+					lowerValues[2 * lnz + 1] = (x[2 * i + 1] * pivotRe - x[2 * i] * pivotIm) / denominator;
+					lnz++;
+				}
+			}
+			clearWorkspace(top);
+		}
+		lowerPointers[column] = lnz;
+		upperPointers[column] = unz;
+
+		//Redundant rows get the last steps:
+		int redundant = column;
+		for (int i = 0; i < row; i++) {
+			if (pivotOfRow[i] < 0) {
+				pivotOfRow[i] = redundant++;
+			}
+		}
+		for (int p = 0; p < lnz; p++) {
+			lowerIndices[p] = pivotOfRow[lowerIndices[p]];
+		}
+		factorized = true;
+	}
+
+	/**
+	 * Copies the factors of another factorization with the same symbolic analysis. The own storage is reused, when it is large enough.
+	 * HUN: Átmásolja egy azonos szimbolikus analízisű másik felbontás tényezőit. A saját tárolót használja, ha elég nagy.
+	 * @param other	factorization with the same column order
+	 */
+	public void copyFactors(SparseLU other) {
+		if (other.row != row || other.column != column || !Arrays.equals(other.columnOrder, columnOrder)) {
+			throw new RuntimeException("The factorizations have different symbolic analysis.");
+		}
+		factorized = false;
+		if (!other.factorized) {
+			return;
+		}
+		int lnz = other.lowerPointers[column];
+		int unz = other.upperPointers[column];
+		System.arraycopy(other.pivotOfRow, 0, pivotOfRow, 0, row);
+		lowerPointers = copyOf(other.lowerPointers, column + 1, lowerPointers);
+		lowerIndices = copyOf(other.lowerIndices, lnz, lowerIndices);
+		lowerValues = copyOf(other.lowerValues, 2 * lnz, lowerValues);
+		upperPointers = copyOf(other.upperPointers, column + 1, upperPointers);
+		upperIndices = copyOf(other.upperIndices, unz, upperIndices);
+		upperValues = copyOf(other.upperValues, 2 * unz, upperValues);
+		factorized = true;
+	}
+
+	private static int[] copyOf(int source[], int length, int target[]) {
+		if (target == null || target.length < length) {
+			return Arrays.copyOf(source, length);
+		}
+		System.arraycopy(source, 0, target, 0, length);
+		return target;
+	}
+
+	private static double[] copyOf(double source[], int length, double target[]) {
+		if (target == null || target.length < length) {
+			return Arrays.copyOf(source, length);
+		}
+		System.arraycopy(source, 0, target, 0, length);
+		return target;
+	}
+
+	/**
+	 * Numeric refactorization, that reuses the pivot sequence and the pattern of the factors of the last {@link #factor(SparseMatrix)}.
+	 * Fails, if there is no earlier factorization or a reused pivot became too small compared to the rest of its column.
+	 * In that case the factors are invalid and {@link #factor(SparseMatrix)} has to be called.
+	 * HUN: Numerikus újrafelbontás, ami a legutóbbi {@link #factor(SparseMatrix)} főelem sorrendjét és a tényezők mintázatát használja.
+	 * Sikertelen, ha nincs korábbi felbontás, vagy egy főelem túl kicsi lett az oszlopa többi eleméhez képest.
+	 * @param A	compressed matrix with the same pattern as the last factorized one
+	 * @return	true, if the refactorization succeeded.
+	 */
+	public boolean refactor(SparseMatrix A) {
+		if (A.row != row || A.column != column) {
+			throw new RuntimeException("The matrix differs from the analysed one.");
+		}
+		if (!factorized) {
+			return false;
+		}
+		factorized = false;
+		updateRowMagnitudes(A, true);
+		for (int k = 0; k < column; k++) {
+			//Scatter the column to pivot order:
+			int col = columnOrder[k];
+			for (int p = A.columnPointers[col]; p < A.columnPointers[col + 1]; p++) {
+				int i = pivotOfRow[A.rowIndices[p]];
+				x[2 * i] = A.values[2 * p];
+				x[2 * i + 1] = A.values[2 * p + 1];
+			}
+
+			//The entries of U are stored in topological order:
+			int diagonal = upperPointers[k + 1] - 1;
+			for (int p = upperPointers[k]; p < diagonal; p++) {
+				int j = upperIndices[p];
+				double re = x[2 * j];
+				double im = x[2 * j + 1];
+				x[2 * j] = 0;
+				x[2 * j + 1] = 0;
+				upperValues[2 * p] = re;
+				upperValues[2 * p + 1] = im;
+				for (int q = lowerPointers[j] + 1; q < lowerPointers[j + 1]; q++) {
+					int i = lowerIndices[q];
+					double lRe = lowerValues[2 * q];
+					double lIm = lowerValues[2 * q + 1];
+					x[2 * i] -= lRe * re - lIm * im;
+					x[2 * i + 1] -= lRe * im + lIm * re;
+				}
+			}
+
+			double pivotRe = x[2 * k];
+			double pivotIm = x[2 * k + 1];
+			double pivotMagnitude = magnitude(pivotRe, pivotIm);
+			double largest = pivotMagnitude;
+			double largestInRow = (rowMagnitude[k] > 0) ? pivotMagnitude / rowMagnitude[k] : 0;
+			for (int q = lowerPointers[k] + 1; q < lowerPointers[k + 1]; q++) {
+				int i = lowerIndices[q];
+				double magnitude = magnitude(x[2 * i], x[2 * i + 1]);
+				largest = Math.max(largest, magnitude);
+				if (rowMagnitude[i] > 0) {
+					largestInRow = Math.max(largestInRow, magnitude / rowMagnitude[i]);
+				}
+			}
+			if (pivotMagnitude == 0 || pivotMagnitude < pivotThreshold * largest
+					|| (largest <= singularityTolerance * columnMagnitude(A, col) && largestInRow <= singularityTolerance)) {
+				//The pivot sequence is not acceptable for these values:
+				x[2 * k] = 0;
+				x[2 * k + 1] = 0;
+				for (int q = lowerPointers[k] + 1; q < lowerPointers[k + 1]; q++) {
+					x[2 * lowerIndices[q]] = 0;
+					x[2 * lowerIndices[q] + 1] = 0;
+				}
+				return false;
+			}
+			upperValues[2 * diagonal] = pivotRe;
+			upperValues[2 * diagonal + 1] = pivotIm;
+			x[2 * k] = 0;
+			x[2 * k + 1] = 0;
+			double denominator = pivotRe * pivotRe + pivotIm * pivotIm;
+			for (int q = lowerPointers[k] + 1; q < lowerPointers[k + 1]; q++) {
+				int i = lowerIndices[q];
+				lowerValues[2 * q] = (x[2 * i] * pivotRe + x[2 * i + 1] * pivotIm) / denominator;
+				lowerValues[2 * q + 1] = (x[2 * i + 1] * pivotRe - x[2 * i] * pivotIm) / denominator;
+				x[2 * i] = 0;
+				x[2 * i + 1] = 0;
+			}
+		}
+		factorized = true;
+		return true;
+	}
+
+	/**
+	 * Sparse triangular solve with the already computed columns of L for column col of A.
+	 * The result is in x, its pattern is in reach[top .. row - 1] in topological order.
+	 * @return top
+	 */
+	private int solveLower(SparseMatrix A, int col) {
+		int top = row;
+		markStamp++;
+		for (int p = A.columnPointers[col]; p < A.columnPointers[col + 1]; p++) {
+			if (mark[A.rowIndices[p]] != markStamp) {
+				top = depthFirstSearch(A.rowIndices[p], top);
+			}
+		}
+		for (int p = A.columnPointers[col]; p < A.columnPointers[col + 1]; p++) {
+			int i = A.rowIndices[p];
+			x[2 * i] = A.values[2 * p];
+			x[2 * i + 1] = A.values[2 * p + 1];
+		}
+		for (int px = top; px < row; px++) {
+			int j = reach[px];
+			int J = pivotOfRow[j];
+			if (J < 0) {
+				continue;
+			}
+			double re = x[2 * j];
+			double im = x[2 * j + 1];
+			for (int p = lowerPointers[J] + 1; p < lowerPointers[J + 1]; p++) {
+				int i = lowerIndices[p];
+				double lRe = lowerValues[2 * p];
+				double lIm = lowerValues[2 * p + 1];
+				x[2 * i] -= lRe * re - lIm * im;
+				x[2 * i + 1] -= lRe * im + lIm * re;
+			}
+		}
+		return top;
+	}
+
+	/**
+	 * Non-recursive depth first search in the graph of L from row j. Finished rows are pushed to reach in reverse topological order.
+	 */
+	private int depthFirstSearch(int j, int top) {
+		int head = 0;
+		stack[0] = j;
+		while (head >= 0) {
+			j = stack[head];
+			int J = pivotOfRow[j];
+			if (mark[j] != markStamp) {
+				mark[j] = markStamp;
+				stackPosition[head] = (J < 0)? 0 : lowerPointers[J] + 1;
+			}
+			boolean done = true;
+			int end = (J < 0)? 0 : lowerPointers[J + 1];
+			for (int p = stackPosition[head]; p < end; p++) {
+				int i = lowerIndices[p];
+				if (mark[i] != markStamp) {
+					stackPosition[head] = p + 1;
+					stack[++head] = i;
+					done = false;
+					break;
+				}
+			}
+			if (done) {
+				head--;
+				reach[--top] = j;
+			}
+		}
+		return top;
+	}
+
+	private void clearWorkspace(int top) {
+		for (int p = top; p < row; p++) {
+			x[2 * reach[p]] = 0;
+			x[2 * reach[p] + 1] = 0;
+		}
+	}
+
+	/**
+	 * Magnitude of a complex value. Math.hypot is avoided, because it is several times slower, and the values of a network
+	 * are far from overflow.
+	 * HUN: Komplex érték nagysága. A Math.hypot többszörösen lassabb, a hálózat értékei pedig messze vannak a túlcsordulástól.
+	 */
+	private static double magnitude(double re, double im) {
+		return Math.sqrt(re * re + im * im);
+	}
+
+	/**
+	 * Largest magnitude in each row of the matrix, indexed by the original row or by the pivot step of the row.
+	 * HUN: A mátrix soronkénti legnagyobb eleme, az eredeti sor vagy a sor főelem lépése szerint indexelve.
+	 */
+	private void updateRowMagnitudes(SparseMatrix A, boolean byPivotStep) {
+		Arrays.fill(rowMagnitude, 0);
+		for (int p = 0; p < A.nonZeros(); p++) {
+			int i = byPivotStep ? pivotOfRow[A.rowIndices[p]] : A.rowIndices[p];
+			rowMagnitude[i] = Math.max(rowMagnitude[i], magnitude(A.values[2 * p], A.values[2 * p + 1]));
+		}
+	}
+
+	private static double columnMagnitude(SparseMatrix A, int col) {
+		double magnitude = 0;
+		for (int p = A.columnPointers[col]; p < A.columnPointers[col + 1]; p++) {
+			magnitude = Math.max(magnitude, magnitude(A.values[2 * p], A.values[2 * p + 1]));
+		}
+		return magnitude;
+	}
+
+	//Solve:----------------------------------------------------------
+
+	/**
+	 * Solves A * x = b with the last factorization.
+	 * HUN: Megoldja az A * x = b egyenletet a legutóbbi felbontással.
+	 * @param b	interleaved right side with 2 * row elements. Not modified.
+	 * @param solution	interleaved solution with 2 * column elements. Overwritten.
+	 * @throws GaussException - {@link NoSolution}, if the redundant equations contradict the others.
+	 */
+	public void solve(double b[], double solution[]) throws GaussException {
+		if (!factorized) {
+			throw new RuntimeException("The matrix is not factorized.");
+		}
+		double y[] = work;
+		double scale = 0;
+		for (int i = 0; i < row; i++) {
+			y[2 * pivotOfRow[i]] = b[2 * i];
+			y[2 * pivotOfRow[i] + 1] = b[2 * i + 1];
+			scale = Math.max(scale, magnitude(b[2 * i], b[2 * i + 1]));
+		}
+
+		//Forward substitution, also applied to the redundant rows:
+		for (int j = 0; j < column; j++) {
+			double re = y[2 * j];
+			double im = y[2 * j + 1];
+			if (re == 0 && im == 0) {
+				continue;
+			}
+			for (int p = lowerPointers[j] + 1; p < lowerPointers[j + 1]; p++) {
+				int i = lowerIndices[p];
+				double lRe = lowerValues[2 * p];
+				double lIm = lowerValues[2 * p + 1];
+				y[2 * i] -= lRe * re - lIm * im;
+				y[2 * i + 1] -= lRe * im + lIm * re;
+			}
+		}
+		for (int i = column; i < row; i++) {
+			if (magnitude(y[2 * i], y[2 * i + 1]) > consistencyTolerance * scale) {
+				throw new NoSolution();
+			}
+		}
+
+		//Backward substitution. The diagonal is the last entry of each column of U:
+		for (int j = column - 1; j >= 0; j--) {
+			int diagonal = upperPointers[j + 1] - 1;
+			double dRe = upperValues[2 * diagonal];
+			double dIm = upperValues[2 * diagonal + 1];
+			double denominator = dRe * dRe + dIm * dIm;
+			double re = (y[2 * j] * dRe + y[2 * j + 1] * dIm) / denominator;
+			double im = (y[2 * j + 1] * dRe - y[2 * j] * dIm) / denominator;
+			y[2 * j] = re;
+			y[2 * j + 1] = im;
+			for (int p = upperPointers[j]; p < diagonal; p++) {
+				int i = upperIndices[p];
+				double uRe = upperValues[2 * p];
+				double uIm = upperValues[2 * p + 1];
+				y[2 * i] -= uRe * re - uIm * im;
+				y[2 * i + 1] -= uRe * im + uIm * re;
+			}
+		}
+		for (int k = 0; k < column; k++) {
+			solution[2 * columnOrder[k]] = y[2 * k];
+			solution[2 * columnOrder[k] + 1] = y[2 * k + 1];
+		}
+	}
+
+	/**
+	 * Number of stored entries in the L and U factors.
+	 * HUN: Az L és U tényezőkben tárolt elemek száma.
+	 * @return number of entries
+	 */
+	public int factorNonZeros() {
+		return factorized? lowerPointers[column] + upperPointers[column] : 0;
+	}
+}
@@ -0,0 +1,309 @@
+package math;
+
+import java.util.Arrays;
+
+
+/**
+ * Sparse matrix of complex values in compressed sparse column (CSC) format.
+ * The matrix is first assembled from (row, column, value) triplets, then compressed.
+ * After compression the structure is fixed, but the values can be overwritten in place through their positions.
+ * HUN: Ritka komplex mátrix oszlopfolytonos tömörített (CSC) formátumban.
+ * A mátrixot először (sor, oszlop, érték) hármasokból kell összeállítani, majd tömöríteni.
+ * Tömörítés után a szerkezet rögzített, de az értékek a pozíciójukon keresztül helyben felülírhatók.
+ * @author Simon Zoltán
+ *
+ */
+public class SparseMatrix {
+	public int row;
+	public int column;
+
+	/**
+	 * Start of each column in rowIndices. Has column + 1 elements, the last one is the number of stored entries.
+	 * HUN: Az oszlopok kezdete a rowIndices tömbben.
+	 */
+	int columnPointers[];
+
+	/**
+	 * Row index of each stored entry. Sorted within each column.
+	 * HUN: A tárolt elemek sorindexei, oszlopon belül rendezve.
+	 */
+	int rowIndices[];
+
+	/**
+	 * Interleaved real and imaginary parts of the stored entries.
+	 * HUN: A tárolt elemek felváltva tárolt valós és képzetes részei.
+	 */
+	double values[];
+
+	//Assembly state:
+	private int tripletRows[];
+	private int tripletColumns[];
+	private double tripletValues[];
+	private int tripletCount;
+	private boolean compressed;
+
+	//Constructors:---------------------------------------------------
+
+	/**
+	 * Creates an empty matrix in assembly state.
+	 * @param r number of rows
+	 * @param c number of columns
+	 */
+	public SparseMatrix(int r, int c) {
+		clear(r, c);
+	}
+
+	/**
+	 * Copy constructor. Compresses the other matrix, if it is still in assembly state.
+	 * HUN: Másoló konstruktor. A másik mátrixot tömöríti, ha még összeállítás alatt van.
+	 * @param other	The matrix to copy.
+	 */
+	public SparseMatrix(SparseMatrix other) {
+		other.compress();
+		row = other.row;
+		column = other.column;
+		columnPointers = other.columnPointers.clone();
+		rowIndices = other.rowIndices.clone();
+		values = other.values.clone();
+		compressed = true;
+	}
+
+	//Assembly:-------------------------------------------------------
+
+	/**
+	 * Discards all content and puts the matrix back to assembly state with the given size.
+	 * HUN: Eldobja a tartalmat, és a megadott méretű üres mátrixot készít elő összeállításra.
+	 * @param r number of rows
+	 * @param c number of columns
+	 */
+	public void reset(int r, int c) {
+		clear(r, c);
+	}
+
+	//Shared by the constructor, that must not call an overridable method:
+	private void clear(int r, int c) {
+		row = r;
+		column = c;
+		tripletRows = new int[16];
+		tripletColumns = new int[16];
+		tripletValues = new double[32];
+		tripletCount = 0;
+		columnPointers = new int[column + 1];
+		rowIndices = new int[0];
+		values = new double[0];
+		compressed = false;
+	}
+
+	/**
+	 * Adds a value to position (r, c). Values added to the same position are summed up on compression.
+	 * HUN: Értéket ad az (r, c) pozícióhoz. Az azonos pozícióra adott értékek tömörítéskor összeadódnak.
+	 * @param r row index
+	 * @param c column index
+	 * @param re real part
+	 * @param im imaginary part
+	 */
+	public void add(int r, int c, double re, double im) {
+		if (compressed) {
+			throw new RuntimeException("Structure of a compressed sparse matrix can not be modified.");
+		}
+		if (r < 0 || r >= row || c < 0 || c >= column) {
+			throw new IndexOutOfBoundsException("Position (" + r + ", " + c + ") is out of the matrix.");
+		}
+		if (tripletCount == tripletRows.length) {
+			tripletRows = Arrays.copyOf(tripletRows, 2 * tripletCount);
+			tripletColumns = Arrays.copyOf(tripletColumns, 2 * tripletCount);
+			tripletValues = Arrays.copyOf(tripletValues, 4 * tripletCount);
+		}
+		tripletRows[tripletCount] = r;
+		tripletColumns[tripletCount] = c;
+		tripletValues[2 * tripletCount] = re;
+		tripletValues[2 * tripletCount + 1] = im;
+		tripletCount++;
+	}
+
+	/**
+	 * Converts the assembled triplets to compressed column format.
+	 * HUN: A hármasokat tömörített oszlopos formátumba alakítja.
+	 * @return this
+	 */
+	public SparseMatrix compress() {
+		if (compressed) {
+			return this;
+		}
+		//Bucket the triplets by column, then by row within the column (counting sort twice):
+		int rowCount[] = new int[row + 1];
+		for (int t = 0; t < tripletCount; t++) {
+			rowCount[tripletRows[t] + 1]++;
+		}
+		for (int r = 0; r < row; r++) {
+			rowCount[r + 1] += rowCount[r];
+		}
+		int byRow[] = new int[tripletCount];
+		for (int t = 0; t < tripletCount; t++) {
+			byRow[rowCount[tripletRows[t]]++] = t;
+		}
+		int columnCount[] = new int[column + 1];
+		for (int t = 0; t < tripletCount; t++) {
+			columnCount[tripletColumns[t] + 1]++;
+		}
+		for (int c = 0; c < column; c++) {
+			columnCount[c + 1] += columnCount[c];
+		}
+		int sorted[] = new int[tripletCount];
+		int next[] = Arrays.copyOf(columnCount, column);
+		for (int t : byRow) {
+			sorted[next[tripletColumns[t]]++] = t;
+		}
+
+		//Merge duplicates:
+		columnPointers = new int[column + 1];
+		rowIndices = new int[tripletCount];
+		values = new double[2 * tripletCount];
+		int nz = 0;
+		for (int c = 0; c < column; c++) {
+			columnPointers[c] = nz;
+			for (int p = columnCount[c]; p < columnCount[c + 1]; p++) {
+				int t = sorted[p];
+				if (nz > columnPointers[c] && rowIndices[nz - 1] == tripletRows[t]) {
+					values[2 * (nz - 1)] += tripletValues[2 * t];
+					values[2 * (nz - 1) + 1] += tripletValues[2 * t + 1];
+				}
+				else {
+					rowIndices[nz] = tripletRows[t];
+					values[2 * nz] = tripletValues[2 * t];
+					values[2 * nz + 1] = tripletValues[2 * t + 1];
+					nz++;
+				}
+			}
+		}
+		columnPointers[column] = nz;
+		rowIndices = Arrays.copyOf(rowIndices, nz);
+		values = Arrays.copyOf(values, 2 * nz);
+
+		tripletRows = null;
+		tripletColumns = null;
+		tripletValues = null;
+		tripletCount = 0;
+		compressed = true;
+		return this;
+	}
+
+	public boolean isCompressed() {
+		return compressed;
+	}
+
+	//Indexing:-------------------------------------------------------
+
+	/**
+	 * Number of stored entries.
+	 * HUN: A tárolt elemek száma.
+	 * @return number of stored entries
+	 */
+	public int nonZeros() {
+		return columnPointers[column];
+	}
+
+	/**
+	 * Position of the stored entry at (r, c) in the value storage.
+	 * HUN: Az (r, c) helyen tárolt elem pozíciója.
+	 * @param r row index
+	 * @param c column index
+	 * @return position or -1, if there is no stored entry at (r, c).
+	 */
+	public int positionOf(int r, int c) {
+		int p = Arrays.binarySearch(rowIndices, columnPointers[c], columnPointers[c + 1], r);
+		return (p >= 0)? p : -1;
+	}
+
+	/**
+	 * Row index of the stored entry at the given position.
+	 * @param position position of a stored entry
+	 * @return row index
+	 */
+	public int rowOf(int position) {
+		return rowIndices[position];
+	}
+
+	/**
+	 * First position of the given column. The entries of column c are at positions columnStart(c) .. columnStart(c + 1) - 1.
+	 * @param c column index, can be equal to the number of columns.
+	 * @return position
+	 */
+	public int columnStart(int c) {
+		return columnPointers[c];
+	}
+
+	public double getRe(int position) {
+		return values[2 * position];
+	}
+
+	public double getIm(int position) {
+		return values[2 * position + 1];
+	}
+
+	/**
+	 * Overwrites the stored entry at the given position without allocation.
+	 * HUN: Felülírja az adott pozíción tárolt elemet.
+	 * @param position position of a stored entry
+	 * @param re real part
+	 * @param im imaginary part
+	 */
+	public void setAt(int position, double re, double im) {
+		values[2 * position] = re;
+		values[2 * position + 1] = im;
+	}
+
+	/**
+	 * Adds to the stored entry at the given position without allocation.
+	 * HUN: Hozzáad az adott pozíción tárolt elemhez.
+	 * @param position position of a stored entry
+	 * @param re real part
+	 * @param im imaginary part
+	 */
+	public void addAt(int position, double re, double im) {
+		values[2 * position] += re;
+		values[2 * position + 1] += im;
+	}
+
+	/**
+	 * Sets all stored entries to zero. The structure remains.
+	 * HUN: Minden tárolt elemet nullára állít. A szerkezet megmarad.
+	 */
+	public void clearValues() {
+		Arrays.fill(values, 0);
+	}
+
+	/**
+	 * Value at (r, c). Zero, if there is no stored entry at the position.
+	 * @param r row index
+	 * @param c column index
+	 * @return value
+	 */
+	public Complex at(int r, int c) {
+		int p = positionOf(r, c);
+		return (p < 0)? new Complex(0, 0) : new Complex(values[2 * p], values[2 * p + 1]);
+	}
+
+	//Conversion:-----------------------------------------------------
+
+	/**
+	 * Dense copy of this matrix.
+	 * HUN: A mátrix sűrű másolata.
+	 * @return {@link Matrix}
+	 */
+	public Matrix toDense() {
+		compress();
+		Matrix M = new Matrix(row, column);
+		for (int c = 0; c < column; c++) {
+			for (int p = columnPointers[c]; p < columnPointers[c + 1]; p++) {
+				M.setAt(rowIndices[p], c, values[2 * p], values[2 * p + 1]);
+			}
+		}
+		return M;
+	}
+
+	@Override
+	public String toString() {
+		return toDense().toString();
+	}
+}
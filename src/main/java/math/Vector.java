@@ -1,38 +1,50 @@
 package math;
 
+import java.util.Arrays;
+import java.util.Objects;
+
 
 /**
- * Vector of double values.
- * HUN: Vektor lebegőpontos értékek tárolására.
+ * Vector of complex values.
+ * The values are stored in a single primitive array, with the real and imaginary parts interleaved,
+ * so reading and writing elements does not allocate.
+ * The array is only created at the first nonzero write, until then all the elements are implicitly zero,
+ * so the many parameter vectors, that a component never writes, cost no memory.
+ * HUN: Vektor komplex értékek tárolására.
+ * Az értékek egyetlen primitív tömbben vannak, a valós és képzetes részek felváltva követik egymást.
+ * A tömb csak az első nem nulla íráskor jön létre, addig minden elem hallgatólagosan nulla,
+ * így a komponensek által soha nem írt paraméter vektorok nem foglalnak memóriát.
  * @author Simon Zoltán
  *
  */
 public class Vector implements Cloneable {
-	private Complex n[];
+	/**
+	 * Interleaved storage: the real part of element i is at index 2 * i, the imaginary part at 2 * i + 1.
+	 * null, while all the elements are zero.
+	 * HUN: Váltott tárolás: az i. elem valós része a 2 * i, képzetes része a 2 * i + 1 indexen van.
+	 * null, amíg minden elem nulla.
+	 */
+	double n[];
     public int dimension;
 
 
 	//Constructors:-------------------------------------------------
 	
+    /**
+     * Constructor. All elements are initialised to zero.
+     * @param d dimension
+     */
     public Vector(int d) {
     	dimension = d;
-        n = new Complex[dimension];
     }
 
     public static Vector Zeros(int d) {
-        Vector v = new Vector(d);
-        for (int i = 0; i < d; i++) {
-            v.setAt(i, new Complex(0, 0));
-        }
-        return v;
+        return new Vector(d);
     }
 
     public Vector(Vector v) {
     	dimension = v.dimension; 
-        n = new Complex[dimension];
-        for (int i = 0; i < dimension; i++) {
-            n[i] = v.at(i).copy();
-        }
+        n = (v.n == null) ? null : v.n.clone();
     }
 
     //Override of default hashCode and equals:---------------------------------------
@@ -56,24 +68,90 @@ public class Vector implements Cloneable {
 		Vector other = (Vector) obj;
 		if (dimension != other.dimension)
 			return false;
-		for (int i = 0; i < n.length; i++) {
-			if (n[i] != other.at(i)) {
-				return false;
-			}			
+		if (n == null || other.n == null)
+			return isZero() && other.isZero();
+		return Arrays.equals(n, other.n);
+	}
+
+	//Storage:--------------------------------------------------------------
+
+	/**
+	 * Whether all the elements are zero.
+	 * HUN: Minden elem nulla-e.
+	 */
+	public boolean isZero() {
+		if (n != null) {
+			for (double value : n) {
+				if (value != 0) {
+					return false;
+				}
+			}
 		}
 		return true;
 	}
 
+	/**
+	 * Changes the dimension in place, for example when the set of simulated frequencies changes, and sets all the elements to zero.
+	 * The references to the vector remain valid.
+	 * HUN: Helyben változtatja meg a dimenziót, például ha a szimulált frekvenciák halmaza változik, és minden elemet nullára állít.
+	 * A vektorra mutató hivatkozások érvényesek maradnak.
+	 * @param d new dimension
+	 */
+	public void resize(int d) {
+		dimension = d;
+		n = null;
+	}
+
+	/**
+	 * Interleaved storage, created if not yet materialized.
+	 * HUN: A váltott tárolás, létrehozva, ha még nem létezik.
+	 */
+	double[] values() {
+		if (n == null) {
+			n = new double[2 * dimension];
+		}
+		return n;
+	}
+
+	/**
+	 * Creates the storage, if not yet materialized. After this setAt() never replaces the array,
+	 * so different threads may write different elements concurrently.
+	 * HUN: Létrehozza a tárolót, ha még nem létezik. Ezután a setAt() nem cseréli le a tömböt,
+	 * így különböző szálak egyidejűleg írhatnak különböző elemeket.
+	 */
+	public void materialize() {
+		values();
+	}
+
 	//Indexing-methods:-----------------------------------------------------
 	
 	/**
-     * Indexing. Returns the value stored at position i. 
+     * Indexing. Returns a copy of the value stored at position i.
+     * Use {@link #getRe(int)} and {@link #getIm(int)} in performance critical code, those do not allocate.
 	 * @param i index
 	 * @return value
 	 */
 	public Complex at(int i) {
-        return n[i];
+        return new Complex(getRe(i), getIm(i));
     }
+
+	/**
+	 * Real part of the value stored at position i.
+	 * @param i index
+	 * @return real part
+	 */
+	public double getRe(int i) {
+		return (n == null) ? 0 : n[2 * i];
+	}
+
+	/**
+	 * Imaginary part of the value stored at position i.
+	 * @param i index
+	 * @return imaginary part
+	 */
+	public double getIm(int i) {
+		return (n == null) ? 0 : n[2 * i + 1];
+	}
     
 	/**
      * Writing. Sets the value at position i to the given value. 
@@ -81,7 +159,25 @@ public class Vector implements Cloneable {
 	 * @param val new value
 	 */
 	public void setAt(int i, Complex val) {
-		n[i] = val.copy();
+		setAt(i, val.getRe(), val.getIm());
+	}
+
+	/**
+     * Writing. Sets the value at position i to the given value without allocation.
+	 * @param i index
+	 * @param re real part of the new value
+	 * @param im imaginary part of the new value
+	 */
+	public void setAt(int i, double re, double im) {
+		if (n == null) {
+			Objects.checkIndex(i, dimension);
+			if (re == 0 && im == 0) {
+				return;		//Already zero
+			}
+			n = new double[2 * dimension];
+		}
+		n[2 * i] = re;
+		n[2 * i + 1] = im;
 	}
 	
 	/**
@@ -90,8 +186,16 @@ public class Vector implements Cloneable {
 	 * @param val value
 	 */
     public void fill (Complex val) {
-        for (int i = 0; i < dimension; i++) {
-            n[i] = val.copy();
+    	double re = val.getRe();
+    	double im = val.getIm();
+    	if (re == 0 && im == 0) {
+    		n = null;
+    		return;
+    	}
+    	values();
+        for (int i = 0; i < n.length; i += 2) {
+            n[i] = re;
+            n[i + 1] = im;
         }
     }
 
@@ -102,8 +206,16 @@ public class Vector implements Cloneable {
      * @param s complex value to multiply with.
      */
     public void multiply(Complex s) {
-        for (int i = 0; i < dimension; i++) {
-            n[i].multiply(s);
+    	if (n == null) {
+    		return;
+    	}
+    	double sRe = s.getRe();
+    	double sIm = s.getIm();
+        for (int i = 0; i < n.length; i += 2) {
+        	double re = n[i];
+        	double im = n[i + 1];
+            n[i] = re * sRe - im * sIm;
+            n[i + 1] = re * sIm + im * sRe;
         }
     }
 
@@ -112,8 +224,18 @@ public class Vector implements Cloneable {
      * @param v vector value to multiply with.
      */
     public void multiply(Vector v) {
-        for (int i = 0; i < dimension; i++) {
-            n[i].multiply(v.at(i));
+    	if (n == null) {
+    		return;
+    	}
+    	if (v.n == null) {
+    		n = null;
+    		return;
+    	}
+        for (int i = 0; i < n.length; i += 2) {
+        	double re = n[i];
+        	double im = n[i + 1];
+            n[i] = re * v.n[i] - im * v.n[i + 1];
+            n[i + 1] = re * v.n[i + 1] + im * v.n[i];
         }
     }
 
@@ -122,8 +244,17 @@ public class Vector implements Cloneable {
      * @param s scalar double value to divide by.
      */
     public void divide(Complex s) {
-        for (int i = 0; i < dimension; i++) {
-            n[i].divide(s);
+    	if (n == null) {
+    		return;
+    	}
+    	double div = s.getRe() * s.getRe() + s.getIm() * s.getIm();
+    	double invRe = s.getRe() / div;
+    	double invIm = -s.getIm() / div;
+        for (int i = 0; i < n.length; i += 2) {
+        	double re = n[i];
+        	double im = n[i + 1];
+            n[i] = re * invRe - im * invIm;
+            n[i + 1] = re * invIm + im * invRe;
         }
     }
 
@@ -132,8 +263,12 @@ public class Vector implements Cloneable {
      * @param v vector to add.
      */
     public void add(Vector v) {
-        for (int i = 0; i < dimension; i++) {
-            n[i].add(v.at(i));
+    	if (v.n == null) {
+    		return;
+    	}
+    	values();
+        for (int i = 0; i < n.length; i++) {
+            n[i] += v.n[i];
         }
     }
     
@@ -142,8 +277,12 @@ public class Vector implements Cloneable {
      * @param v vector to subtract.
      */
     public void subtract(Vector v) {
-        for (int i = 0; i < dimension; i++) {
-            n[i].subtract(v.at(i));
+    	if (v.n == null) {
+    		return;
+    	}
+    	values();
+        for (int i = 0; i < n.length; i++) {
+            n[i] -= v.n[i];
         }
     }
     
@@ -153,13 +292,16 @@ public class Vector implements Cloneable {
      * @return a copy of this vector
      */
     public Vector copy(Vector v) {
-        if (!this.equals(v)) {
-            if (this.dimension != v.dimension) {
-                dimension = v.dimension;
-                n = new Complex [dimension];
+        if (this != v) {
+            dimension = v.dimension;
+            if (v.n == null) {
+                n = null;
             }
-            for (int i = 0; i < dimension; i++) {
-                n[i] = v.at(i);
+            else {
+                if (n == null || n.length != v.n.length) {
+                    n = new double[2 * dimension];
+                }
+                System.arraycopy(v.n, 0, n, 0, n.length);
             }
         }
         return this;    	
@@ -174,9 +316,7 @@ public class Vector implements Cloneable {
      */
     public static Vector multiply(Vector v, Complex s) {
         Vector retVal = new Vector(v);
-        for (int i = 0; i < retVal.dimension; i++) {
-            retVal.at(i).multiply(s);
-        }
+        retVal.multiply(s);
         return retVal;
     }
 
@@ -187,9 +327,7 @@ public class Vector implements Cloneable {
      */
     public static Vector multiply(Vector v, Vector u) {
         Vector retVal = new Vector(v);
-        for (int i = 0; i < retVal.dimension; i++) {
-            retVal.at(i).multiply(u.at(i));
-        }
+        retVal.multiply(u);
         return retVal;
     }
 
@@ -200,9 +338,7 @@ public class Vector implements Cloneable {
      */
     public static Vector divide(Vector v, Complex s) {
         Vector retVal = new Vector(v);
-        for (int i = 0; i < retVal.dimension; i++) {
-            retVal.at(i).divide(s);
-        }
+        retVal.divide(s);
         return retVal;
     }
 
@@ -213,9 +349,7 @@ public class Vector implements Cloneable {
      */
     public static Vector add(Vector u, Vector v) {
         Vector retVal = new Vector(u);
-        for (int i = 0; i < retVal.dimension; i++) {
-            retVal.at(i).add(v.at(i));
-        }
+        retVal.add(v);
         return retVal;
     }
 
@@ -226,9 +360,7 @@ public class Vector implements Cloneable {
      */
     public static Vector subtract(Vector u, Vector v) {
         Vector retVal = new Vector(u);
-        for (int i = 0; i < retVal.dimension; i++) {
-            retVal.at(i).subtract(v.at(i));
-        }
+        retVal.subtract(v);
         return retVal;
     }
 
@@ -237,7 +369,7 @@ public class Vector implements Cloneable {
         try {
             Vector clone = (Vector) super.clone();
             clone.dimension = this.dimension;
-            clone.n = this.n.clone();
+            clone.n = (this.n == null) ? null : this.n.clone();
             return clone;
         } catch (CloneNotSupportedException e) {
             throw new AssertionError();
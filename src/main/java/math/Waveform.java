@@ -0,0 +1,283 @@
+package math;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders time domain waveforms from phasors: x(t) = Re(sum of X[k] * e^(i * omega[k] * t)) at equally spaced points of time.
+ * When the angular frequencies lie on a common fundamental grid, as the harmonics of periodic sources do, a whole window is computed
+ * by a chirp-z transform built of FFTs, for any sample step. Otherwise every frequency is rotated through the window by recurrence.
+ * The analysis of the frequencies is done once, and the waveforms of any number of phasor vectors can be rendered with it.
+ * HUN: Időtartománybeli hullámformák fázorokból: x(t) = Re(X[k] * e^(i * omega[k] * t) összege) egyenlő időközű pontokban.
+ * Ha a körfrekvenciák egy közös alapfrekvencia rácsán vannak, ahogy a periodikus források felharmonikusai, egy egész ablakot
+ * FFT-kből felépített chirp-z transzformáció számol, tetszőleges mintavételi lépésre. Egyébként minden frekvencia rekurzióval forog végig az ablakon.
+ * A frekvenciák elemzése egyszer történik meg, és bármennyi fázor vektor hullámformája előállítható vele.
+ * The buffers are reused between the calls, so a waveform is used by one thread at a time.
+ * HUN: A pufferek a hívások között újrahasznosulnak, így egy hullámformát egyszerre egy szál használ.
+ * @author Simon Zoltán
+ *
+ */
+public class Waveform {
+
+	/**
+	 * Largest harmonic number on the grid, that is transformed. Sparser grids are rendered by the recurrence.
+	 * HUN: A legnagyobb transzformált felharmonikus sorszám a rácson. A ritkább rácsok rekurzióval készülnek.
+	 */
+	private static final int maxHarmonic = 1 << 15;
+
+	/**
+	 * Allowed phase error over the window, when the frequencies are only near to the grid.
+	 * HUN: Megengedett fázishiba az ablakon, ha a frekvenciák csak közel vannak a rácshoz.
+	 */
+	private static final double phaseTolerance = 1e-6;
+
+	private final double omega[];
+	private final double stepSec;
+	private final int samples;
+
+	/**
+	 * Harmonic number of each frequency on the grid, null, if the frequencies are not on a grid.
+	 * HUN: A frekvenciák felharmonikus sorszáma a rácson, null, ha a frekvenciák nincsenek rácson.
+	 */
+	private int harmonic[] = null;
+	private int highestHarmonic;
+
+	/**
+	 * Chirp e^(i * theta * j * j / 2) of the grid step theta for j up to the longer of the harmonics and the samples,
+	 * and the transform of the conjugate chirp, that the coefficients are convolved with.
+	 * HUN: A theta rácslépés e^(i * theta * j * j / 2) csipje j-re a felharmonikusok és minták közül a hosszabbikig,
+	 * és a konjugált csip transzformáltja, amivel az együtthatók konvolválódnak.
+	 */
+	private double chirp[];
+	private double kernel[];
+	private int transformSize;
+
+	/**
+	 * Workspace of the transform, and samples of the window for the caller, allocated at the first use.
+	 * HUN: A transzformáció munkaterülete, és az ablak mintái a hívó számára, az első használatkor lefoglalva.
+	 */
+	private double data[] = null;
+	private double scratch[] = null;
+
+	/**
+	 * @param omega	Angular frequencies of the phasors.
+	 * @param stepSec	Time between the samples.
+	 * @param samples	Number of samples in the window.
+	 */
+	public Waveform(double omega[], double stepSec, int samples) {
+		this.omega = omega;
+		this.stepSec = stepSec;
+		this.samples = samples;
+		findGrid();
+		if (harmonic != null) {
+			prepareTransform();
+		}
+	}
+
+	public Waveform(List<Double> omega, double stepSec, int samples) {
+		this(toArray(omega), stepSec, samples);
+	}
+
+	private static double[] toArray(List<Double> list) {
+		double array[] = new double[list.size()];
+		for (int k = 0; k < array.length; k++) {
+			array[k] = list.get(k);
+		}
+		return array;
+	}
+
+	/**
+	 * Time between the samples.
+	 * HUN: A minták közötti idő.
+	 */
+	public double getStepSec() {
+		return stepSec;
+	}
+
+	/**
+	 * Number of samples in the window.
+	 * HUN: A minták száma az ablakban.
+	 */
+	public int getSamples() {
+		return samples;
+	}
+
+	/**
+	 * Whether the window is rendered by transform.
+	 * HUN: Az ablak transzformációval készül-e.
+	 */
+	public boolean isOnGrid() {
+		return harmonic != null;
+	}
+
+	/**
+	 * Approximate greatest common divisor of the frequencies, and the harmonic number of each on it.
+	 * The grid is accepted, if every frequency is close enough to its harmonic to keep the phase error small over the window.
+	 * HUN: A frekvenciák közelítő legnagyobb közös osztója, és rajta mindegyik felharmonikus sorszáma.
+	 * A rács akkor elfogadott, ha minden frekvencia elég közel van a felharmonikusához, hogy a fázishiba kicsi maradjon az ablakon.
+	 */
+	private void findGrid() {
+		double highest = 0;
+		for (double w : omega) {
+			if (w < 0 || Double.isNaN(w) || Double.isInfinite(w)) {
+				return;
+			}
+			highest = Math.max(highest, w);
+		}
+		double tolerance = 1e-9 * highest;
+		double fundamental = 0;
+		for (double w : omega) {
+			if (w > tolerance) {
+				fundamental = (fundamental == 0) ? w : approximateGcd(fundamental, w, tolerance);
+			}
+		}
+		if (fundamental == 0) {
+			fundamental = 1;		//Only DC
+		}
+		int numbers[] = new int[omega.length];
+		double window = stepSec * samples;
+		highestHarmonic = 0;
+		for (int k = 0; k < omega.length; k++) {
+			double m = Math.rint(omega[k] / fundamental);
+			if (m > maxHarmonic || Math.abs(omega[k] - m * fundamental) * window > phaseTolerance) {
+				return;
+			}
+			numbers[k] = (int)m;
+			highestHarmonic = Math.max(highestHarmonic, numbers[k]);
+		}
+		harmonic = numbers;
+		chirp = new double[2 * Math.max(highestHarmonic + 1, samples)];
+		double theta = fundamental * stepSec;
+		for (int j = 0; j < chirp.length / 2; j++) {
+			double phase = theta * ((double)j * j / 2);
+			chirp[2 * j] = Math.cos(phase);
+			chirp[2 * j + 1] = Math.sin(phase);
+		}
+	}
+
+	private static double approximateGcd(double a, double b, double tolerance) {
+		if (a < b) {
+			double swap = a;
+			a = b;
+			b = swap;
+		}
+		while (b > tolerance) {
+			double r = a - b * Math.floor(a / b);
+			if (b - r <= tolerance) {
+				r = 0;
+			}
+			a = b;
+			b = r;
+		}
+		return a;
+	}
+
+	/**
+	 * Bluestein: y[i] = sum of c[m] * W^(m * i) = w(i) * sum of (c[m] * w(m)) * conj(w(i - m)), where w(j) = W^(j * j / 2).
+	 * The convolution is done by FFT, the transform of the conjugate chirp is computed here once.
+	 * HUN: Bluestein: y[i] = c[m] * W^(m * i) összege = w(i) * (c[m] * w(m)) * konj(w(i - m)) összege, ahol w(j) = W^(j * j / 2).
+	 * A konvolúció FFT-vel történik, a konjugált csip transzformáltja itt egyszer számolódik.
+	 */
+	private void prepareTransform() {
+		transformSize = FFT.size(highestHarmonic + samples);
+		kernel = new double[2 * transformSize];
+		for (int j = 0; j < samples; j++) {
+			kernel[2 * j] = chirp[2 * j];
+			kernel[2 * j + 1] = -chirp[2 * j + 1];
+		}
+		for (int j = 1; j <= highestHarmonic; j++) {
+			int wrapped = transformSize - j;
+			kernel[2 * wrapped] = chirp[2 * j];
+			kernel[2 * wrapped + 1] = -chirp[2 * j + 1];
+		}
+		FFT.transform(kernel, transformSize, false);
+	}
+
+	/**
+	 * Buffer of the length of the window for the intermediate samples of the caller. The same buffer is returned on every call.
+	 * HUN: Az ablak hosszú puffer a hívó köztes mintái számára. Minden hívás ugyanazt a puffert adja vissza.
+	 */
+	public double[] scratch() {
+		if (scratch == null) {
+			scratch = new double[samples];
+		}
+		return scratch;
+	}
+
+	/**
+	 * Renders the waveform of the phasors over the window.
+	 * HUN: Előállítja a fázorok hullámformáját az ablakon.
+	 * @param phasors	Phasor of each frequency.
+	 * @param startSec	Time of the first sample.
+	 * @param out	Receives the samples, at least as long as the window.
+	 */
+	public void sample(Vector phasors, double startSec, double out[]) {
+		if (phasors.isZero()) {
+			for (int i = 0; i < samples; i++) {
+				out[i] = 0;
+			}
+			return;
+		}
+		if (harmonic != null) {
+			sampleByTransform(phasors, startSec, out);
+		}
+		else {
+			sampleByRecurrence(phasors, startSec, out);
+		}
+	}
+
+	private void sampleByTransform(Vector phasors, double startSec, double out[]) {
+		if (data == null) {
+			data = new double[2 * transformSize];
+		}
+		else {
+			Arrays.fill(data, 0);
+		}
+		for (int k = 0; k < omega.length; k++) {
+			double phase = omega[k] * startSec;
+			double cos = Math.cos(phase);
+			double sin = Math.sin(phase);
+			double re = phasors.getRe(k) * cos - phasors.getIm(k) * sin;
+			double im = phasors.getRe(k) * sin + phasors.getIm(k) * cos;
+			int m = harmonic[k];
+			data[2 * m] += re * chirp[2 * m] - im * chirp[2 * m + 1];
+			data[2 * m + 1] += re * chirp[2 * m + 1] + im * chirp[2 * m];
+		}
+		FFT.transform(data, transformSize, false);
+		for (int j = 0; j < transformSize; j++) {
+			double re = data[2 * j] * kernel[2 * j] - data[2 * j + 1] * kernel[2 * j + 1];
+			double im = data[2 * j] * kernel[2 * j + 1] + data[2 * j + 1] * kernel[2 * j];
+			data[2 * j] = re;
+			data[2 * j + 1] = im;
+		}
+		FFT.transform(data, transformSize, true);
+		for (int i = 0; i < samples; i++) {
+			//Real part of w(i) * convolution[i] / transformSize:
+			out[i] = (data[2 * i] * chirp[2 * i] - data[2 * i + 1] * chirp[2 * i + 1]) / transformSize;
+		}
+	}
+
+	private void sampleByRecurrence(Vector phasors, double startSec, double out[]) {
+		for (int i = 0; i < samples; i++) {
+			out[i] = 0;
+		}
+		for (int k = 0; k < omega.length; k++) {
+			double phase = omega[k] * startSec;
+			double cos = Math.cos(phase);
+			double sin = Math.sin(phase);
+			double re = phasors.getRe(k) * cos - phasors.getIm(k) * sin;
+			double im = phasors.getRe(k) * sin + phasors.getIm(k) * cos;
+			if (re == 0 && im == 0) {
+				continue;
+			}
+			double stepCos = Math.cos(omega[k] * stepSec);
+			double stepSin = Math.sin(omega[k] * stepSec);
+			for (int i = 0; i < samples; i++) {
+				out[i] += re;
+				double next = re * stepCos - im * stepSin;
+				im = re * stepSin + im * stepCos;
+				re = next;
+			}
+		}
+	}
+}
@@ -60,6 +60,9 @@ public class AnalogVoltmeter extends Component {
 		return e.getVoltageDrop();
 	}
 
+	@Override
+	Edge getSampledEdge() { return e; }
+
 	@Override
 	public void updateFrequencyDependentParameters(ArrayList<Double> simulatedAngularFrequencies) {
 		Vector current = new Vector(simulatedAngularFrequencies.size());
@@ -168,7 +171,7 @@ public class AnalogVoltmeter extends Component {
 
 	@Override
 	public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas) {
-		e.updateTimeDomainParameters(omegas, totalTimeSec);
+		e.updateTimeDomainParameters(omegas, getParent().getFrequencySetVersion(), totalTimeSec);
 	}
 
 	@Override
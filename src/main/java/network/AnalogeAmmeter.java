@@ -70,6 +70,9 @@ public class AnalogeAmmeter extends Component {
 		return e.getVoltageDrop();
 	}
 
+	@Override
+	Edge getSampledEdge() { return e; }
+
 	@Override
 	public double getTimeDomainResistance() {
 		return resistance;
@@ -169,7 +172,7 @@ public class AnalogeAmmeter extends Component {
 
 	@Override
 	public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas) {
-		e.updateTimeDomainParameters(omegas, totalTimeSec);
+		e.updateTimeDomainParameters(omegas, getParent().getFrequencySetVersion(), totalTimeSec);
 	}
 
 	@Override
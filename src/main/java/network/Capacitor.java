@@ -68,6 +68,9 @@ public class Capacitor extends Component {
 		return e.getVoltageDrop();
 	}
 
+	@Override
+	Edge getSampledEdge() { return e; }
+
 	@Override
 	public void updateFrequencyDependentParameters(ArrayList<Double> simulatedAngularFrequencies) {
 		math.Vector impedance = new math.Vector(simulatedAngularFrequencies.size());
@@ -174,7 +177,7 @@ public class Capacitor extends Component {
 
 	@Override
 	public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas) {
-		e.updateTimeDomainParameters(omegas, totalTimeSec);
+		e.updateTimeDomainParameters(omegas, getParent().getFrequencySetVersion(), totalTimeSec);
 	}
 
 	@Override
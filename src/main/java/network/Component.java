@@ -1,6 +1,7 @@
 package network;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Supplier;
@@ -108,6 +109,9 @@ public abstract class Component implements Cloneable {
 
 	public void setInput(ComponentNode input) {
 		this.input = input;
+		if (parent != null) {
+			parent.componentMoved(this);
+		}
 	}
 
 	public ComponentNode getOutput() {
@@ -116,6 +120,9 @@ public abstract class Component implements Cloneable {
 
 	public void setOutput(ComponentNode output) {
 		this.output = output;
+		if (parent != null) {
+			parent.componentMoved(this);
+		}
 	}
 	
 	public Map<String, ComponentProperty> getProperties() {
@@ -144,8 +151,8 @@ public abstract class Component implements Cloneable {
 		getInput().addOutgoing(this);
 		getOutput().addIncoming(this);
 		
-		parent.getComponentNodes().add(this.getInput());
-		parent.getComponentNodes().add(this.getOutput());
+		parent.addComponentNode(this.getInput());
+		parent.addComponentNode(this.getOutput());
 	}
 	
 	/**
@@ -156,13 +163,13 @@ public abstract class Component implements Cloneable {
 		ComponentNode input = getInput();
 		ComponentNode output = getOutput();
 		if (input.getNoOfIncoming() == 0 && input.getNoOfOutgoing() == 1) {
-			parent.getComponentNodes().remove(input);
+			parent.removeComponentNode(input);
 		}
 		else {
 			input.getOutgoing().remove(this);
 		}
 		if (output.getNoOfIncoming() == 1 && output.getNoOfOutgoing() == 0) {
-			parent.getComponentNodes().remove(output);
+			parent.removeComponentNode(output);
 		}
 		else {
 			output.getIncoming().remove(this);			
@@ -232,6 +239,13 @@ public abstract class Component implements Cloneable {
 	 */
 	abstract public void updateFrequencyDependentParameters(ArrayList<Double> simulatedAngularFrequencies);
 
+	/**
+	 * Called after the truncation of the Fourier series changed. Periodic sources register again the harmonics they need.
+	 * HUN: A Fourier sorok csonkolásának változása után hívódik. A periodikus források újra regisztrálják a szükséges felharmonikusaikat.
+	 */
+	void updateHarmonicTruncation() {
+	}
+
 	/**
 	 * Build the inner structure of the component, including elements of the graph representation. Must generate end nodes.
 	 * HUN: A komponens belső struktúráját hozza létre: gráf reprezentáció. A végpontok generálását is el kell végeznie. 
@@ -264,6 +278,7 @@ public abstract class Component implements Cloneable {
 	/**
 	 * Calculate current and voltage values for the given time step
 	 * @param totalTimeSec The total elapsed time since the beginning of the simulation
+	 * @param omegas	The simulated angular frequencies of the network: {@link Network#getSimulatedAngularFrequencies()}.
 	 */
 	abstract public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas);
 
@@ -273,6 +288,70 @@ public abstract class Component implements Cloneable {
 	 */
 	abstract public void updateTimeDomainParametersUsingSpecificFrequencies(double totalTimeSec, ArrayList<Double> omegas, ArrayList<Integer> frequencyIndices);
 
+	/**
+	 * Voltage of the sampled edge, that sampleTimeDomain renders as the voltage drop of the component.
+	 * HUN: A mintavételezett él feszültsége, amit a sampleTimeDomain a komponens feszültségeséseként állít elő.
+	 */
+	enum SampledVoltage {
+		/** Voltage drop of the edge, overridden by its source voltage. HUN: Az él feszültségesése, amit a forrásfeszültsége felülír. */
+		DROP,
+		/** Source voltage of the edge. HUN: Az él forrásfeszültsége. */
+		SOURCE,
+		/** No voltage drop. HUN: Nincs feszültségesés. */
+		ZERO
+	}
+
+	/**
+	 * Edge, whose current and voltage sampleTimeDomain renders. null for components without such an edge.
+	 * HUN: Az él, aminek áramát és feszültségét a sampleTimeDomain előállítja. null az ilyen éllel nem rendelkező komponensekre.
+	 */
+	Edge getSampledEdge() { return null; }
+
+	/**
+	 * Voltage of the sampled edge, that is rendered as the voltage drop of the component.
+	 * HUN: A mintavételezett él feszültsége, ami a komponens feszültségeséseként áll elő.
+	 */
+	SampledVoltage getSampledVoltage() { return SampledVoltage.DROP; }
+
+	/**
+	 * Calculate current and voltage values for a window of equally spaced time steps at once.
+	 * Components with a sampled edge render the whole window by the waveform, the others evaluate the time steps one by one.
+	 * HUN: Egyszerre számolja az áram- és feszültségértékeket egyenlő időközű időpontok egy ablakára.
+	 * A mintavételezett éllel rendelkező komponensek a hullámformával állítják elő az egész ablakot, a többiek egyenként értékelik ki az időpontokat.
+	 * @param waveform	Prepared for the simulated angular frequencies of the network and the window. Can be reused, until they change.
+	 * @param startSec	Time of the first sample.
+	 * @param current	Receives the current samples, at least as long as the window.
+	 * @param voltageDrop	Receives the voltage drop samples, at least as long as the window.
+	 */
+	public void sampleTimeDomain(Waveform waveform, double startSec, double current[], double voltageDrop[]) {
+		Edge edge = getSampledEdge();
+		if (edge == null) {
+			ArrayList<Double> omegas = getParent().getSimulatedAngularFrequencies();
+			for (int i = 0; i < waveform.getSamples(); i++) {
+				updateTimeDomainParameters(startSec + i * waveform.getStepSec(), omegas);
+				current[i] = getTimeDomainCurrent();
+				voltageDrop[i] = getTimeDomainVoltageDrop();
+			}
+			return;
+		}
+		edge.sampleCurrent(waveform, startSec, current);
+		switch (getSampledVoltage()) {
+			case SOURCE -> edge.sampleSourceVoltage(waveform, startSec, voltageDrop);
+			case ZERO -> Arrays.fill(voltageDrop, 0, waveform.getSamples(), 0);
+			default -> edge.sampleVoltageDrop(waveform, startSec, voltageDrop);
+		}
+	}
+
+	/**
+	 * Phasors, whose real part at the simulated angular frequencies is the time domain voltage drop of getTimeDomainVoltageDrop.
+	 * Differs from the frequency domain voltage drop for the voltage sources, that show their source voltage.
+	 * HUN: Fázorok, amelyek valós része a szimulált körfrekvenciákon a getTimeDomainVoltageDrop időtartománybeli feszültségesése.
+	 * A feszültségforrásoknál eltér a frekvenciatartománybeli feszültségeséstől, mert azok a forrásfeszültségüket mutatják.
+	 */
+	public Vector getTimeDomainVoltageDropPhasors() {
+		return getFrequencyDomainVoltageDrop();
+	}
+
 	/**
 	 * Returns electric current value in ampere.
 	 * HUN: Visszaadja az áramszintet amperben.
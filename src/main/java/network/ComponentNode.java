@@ -91,6 +91,9 @@ public class ComponentNode {
 
 	public void setPos(Coordinate pos) {
 		this.pos = pos;
+		if (parent != null) {
+			parent.componentNodeMoved(this);
+		}
 	}
 	
 	public boolean isGrabbed() {
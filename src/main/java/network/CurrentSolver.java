@@ -0,0 +1,69 @@
+package network;
+
+import java.util.concurrent.ForkJoinPool;
+
+import math.GaussException;
+import math.Vector;
+
+/**
+ * Strategy, that calculates the current of every edge of the network's graph representation for one angular frequency at a time.
+ * The frequency independent part of the system is built in {@link #prepare(GraphSnapshot)}, which is called only when the structure of the graph changes.
+ * HUN: Stratégia, ami egyszerre egy körfrekvencián kiszámolja a hálózat gráf-reprezentációjának minden élén folyó áramot.
+ * A rendszer frekvenciafüggetlen része a {@link #prepare(GraphSnapshot)} metódusban épül fel, amit csak a gráf szerkezetének változásakor kell meghívni.
+ * @author Simon Zoltán
+ *
+ */
+public abstract class CurrentSolver {
+
+	/**
+	 * Parameters of one angular frequency. {@link Network} fills them before each {@link #solve(Vector, Vector, Vector)},
+	 * and reuses them for every frequency solved by this solver.
+	 * HUN: Egy körfrekvencia paraméterei. A {@link Network} tölti fel őket minden {@link #solve(Vector, Vector, Vector)} előtt,
+	 * és újrahasznosítja őket az áramszámító által megoldott minden frekvencián.
+	 */
+	Vector impedance = new Vector(0);
+	Vector sourceVoltage = new Vector(0);
+	Vector inputCurrent = new Vector(0);
+
+	/**
+	 * Index of the angular frequency of the parameters.
+	 * HUN: A paraméterek körfrekvenciájának indexe.
+	 */
+	int frequencyIndex = 0;
+
+	/**
+	 * Thread pool of the evaluation of the network, that the solver may use for its own parallel work. null means sequential evaluation.
+	 * HUN: A hálózat kiértékelésének szálkészlete, amit az áramszámító a saját párhuzamos munkájára használhat. null esetén soros a kiértékelés.
+	 */
+	ForkJoinPool evaluationPool = null;
+
+	/**
+	 * Builds the frequency independent part of the system for the current structure of the graph.
+	 * The first vertex is the ground, that gets back all the inputed currents.
+	 * HUN: Felépíti a rendszer frekvenciafüggetlen részét a gráf aktuális szerkezetéhez.
+	 * Az első csúcs a föld, ami az összes befolyó áramot visszakapja.
+	 * @param graph	Structure of the graph representation.
+	 */
+	abstract void prepare(GraphSnapshot graph);
+
+	/**
+	 * Calculates the currents for one angular frequency.
+	 * HUN: Kiszámolja az áramokat egy körfrekvencián.
+	 * @param impedance	Impedance of the edges.
+	 * @param sourceVoltage	Source voltage of the edges.
+	 * @param inputCurrent	Currents inputed to the vertices.
+	 * @return Vector of currents. The order of elements is the same as the order of the edges in the network.
+	 * The vector is owned by the solver and is overwritten by the next call.
+	 * @throws GaussException - if the system has no solution or has infinite solutions.
+	 */
+	abstract Vector solve(Vector impedance, Vector sourceVoltage, Vector inputCurrent) throws GaussException;
+
+	/**
+	 * Creates a solver, that shares the prepared frequency independent data with this one, but has its own working buffers.
+	 * The workers of a solver can solve different frequencies concurrently. Must be called after {@link #prepare(GraphSnapshot)}.
+	 * HUN: Létrehoz egy áramszámítót, ami ezzel közösen használja az előkészített frekvenciafüggetlen adatokat, de saját munkaterülete van.
+	 * Egy áramszámító munkásai párhuzamosan számolhatnak különböző frekvenciákon.
+	 * @return worker solver
+	 */
+	abstract CurrentSolver createWorker();
+}
@@ -84,6 +84,17 @@ public class CurrentSource extends Component {
 		return e.getVoltageDrop();
 	}
 
+	@Override
+	public Vector getTimeDomainVoltageDropPhasors() {
+		return Vector.Zeros(e.getCurrent().dimension);
+	}
+
+	@Override
+	Edge getSampledEdge() { return e; }
+
+	@Override
+	SampledVoltage getSampledVoltage() { return SampledVoltage.ZERO; }
+
 	//Build/Destroy:------------------------------------------------------------------------------------
 	
 	@Override
@@ -149,7 +160,7 @@ public class CurrentSource extends Component {
 
 	@Override
 	public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas) {
-		e.updateTimeDomainParameters(omegas, totalTimeSec);
+		e.updateTimeDomainParameters(omegas, getParent().getFrequencySetVersion(), totalTimeSec);
 	}
 
 	@Override
@@ -76,6 +76,17 @@ public class DCVoltageSource extends network.Component {
 		return e.getVoltageDrop();
 	}
 
+	@Override
+	public Vector getTimeDomainVoltageDropPhasors() {
+		return e.getSourceVoltage();
+	}
+
+	@Override
+	Edge getSampledEdge() { return e; }
+
+	@Override
+	SampledVoltage getSampledVoltage() { return SampledVoltage.SOURCE; }
+
 	//Build/Destroy:------------------------------------------------------------------------------------
 	
 	@Override
@@ -158,7 +169,7 @@ public class DCVoltageSource extends network.Component {
 
 	@Override
 	public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas) {
-		e.updateTimeDomainParameters(omegas, totalTimeSec);
+		e.updateTimeDomainParameters(omegas, getParent().getFrequencySetVersion(), totalTimeSec);
 	}
 
 	@Override
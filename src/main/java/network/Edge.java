@@ -16,6 +16,12 @@ public class Edge implements Cloneable {
 
 	static int gen = 0;
 	private int id;
+
+	/**
+	 * Position of the edge in the edge list of the network. Maintained by {@link Network}, -1 if the edge is not in a network.
+	 * HUN: Az él helye a hálózat éllistájában. A {@link Network} tartja karban, -1, ha az él nincs hálózatban.
+	 */
+	private int index = -1;
 	
 	private Vertex input;
 	private Vertex output;
@@ -24,6 +30,12 @@ public class Edge implements Cloneable {
 	Vector current = Vector.Zeros(defaultPhasorSpaceResolution);
 	Vector sourceVoltage = Vector.Zeros(defaultPhasorSpaceResolution);
 
+	/**
+	 * Phasors of the voltage drop (current times impedance), computed once after each solution for the time domain synthesis. null, when outdated.
+	 * HUN: A feszültségesés fázorai (áram szorozva impedanciával), minden megoldás után egyszer számolva az időtartománybeli szintézishez. null, ha elavult.
+	 */
+	private Vector voltageDrop = null;
+
 	double timeDomainCurrent = 0.0;
 	double timeDomainSourceVoltage = 0.0;
 	double timeDomainVoltageDrop = 0.0;
@@ -59,6 +71,14 @@ public class Edge implements Cloneable {
 		return id;
 	}
 
+	public int getIndex() {
+		return index;
+	}
+
+	void setIndex(int index) {
+		this.index = index;
+	}
+
 	public Vector getSourceVoltage() {
 		return sourceVoltage;
 	}
@@ -93,6 +113,7 @@ public class Edge implements Cloneable {
 
 	public void setImpedance(Vector impedance) {
 		this.impedance = impedance;
+		voltageDrop = null;
 	}
 
 	public Vector getCurrent() {
@@ -101,6 +122,23 @@ public class Edge implements Cloneable {
 
 	public void setCurrent(Vector current) {
 		this.current = current;
+		voltageDrop = null;
+	}
+
+	/**
+	 * Computes the phasors of the voltage drop from the current and the impedance. Called by the network after the currents are solved.
+	 * HUN: Kiszámolja a feszültségesés fázorait az áramból és az impedanciából. A hálózat hívja az áramok kiszámolása után.
+	 */
+	void updateVoltageDrop() {
+		voltageDrop = (voltageDrop == null) ? new Vector(current) : voltageDrop.copy(current);
+		voltageDrop.multiply(impedance);
+	}
+
+	private Vector getVoltageDropPhasors() {
+		if (voltageDrop == null) {
+			updateVoltageDrop();
+		}
+		return voltageDrop;
 	}
 
 	//HashCode/Equals:---------------------------------------------------
@@ -128,17 +166,23 @@ public class Edge implements Cloneable {
 		return true;
 	}
 
-	public void updateTimeDomainParameters(ArrayList<Double> omega, double totalTimeSec)
+	public void updateTimeDomainParameters(ArrayList<Double> omega, int frequencySetVersion, double totalTimeSec)
 	{
-		timeDomainCurrent = 0;
-		timeDomainSourceVoltage = 0;
-		timeDomainVoltageDrop = 0;
-		for (int k = 0; k < omega.size(); k++) {
-			Complex e = Complex.euler(1, omega.get(k) * totalTimeSec);
-			timeDomainCurrent += Complex.multiply(current.at(k), e).getRe();
-			timeDomainSourceVoltage += Complex.multiply(sourceVoltage.at(k), e).getRe();
-			timeDomainVoltageDrop += Complex.multiply(Complex.multiply(current.at(k), impedance.at(k)), e).getRe();
+		PhasorRotation rotation = PhasorRotation.at(omega, frequencySetVersion, totalTimeSec);
+		double cos[] = rotation.cos;
+		double sin[] = rotation.sin;
+		Vector drop = getVoltageDropPhasors();
+		double i = 0;
+		double u = 0;
+		double d = 0;
+		for (int k = 0; k < rotation.size; k++) {
+			i += current.getRe(k) * cos[k] - current.getIm(k) * sin[k];
+			u += sourceVoltage.getRe(k) * cos[k] - sourceVoltage.getIm(k) * sin[k];
+			d += drop.getRe(k) * cos[k] - drop.getIm(k) * sin[k];
 		}
+		timeDomainCurrent = i;
+		timeDomainSourceVoltage = u;
+		timeDomainVoltageDrop = d;
 	}
 
 	public void updateTimeDomainParametersUsingSpecificFrequencies(ArrayList<Double> omega, ArrayList<Integer> frequencyIndices, double totalTimeSec)
@@ -147,13 +191,23 @@ public class Edge implements Cloneable {
 		timeDomainSourceVoltage = 0;
 		timeDomainVoltageDrop = 0;
 		for (int k : frequencyIndices) {
-			Complex e = Complex.euler(1, omega.get(k) * totalTimeSec);
-			timeDomainCurrent += Complex.multiply(current.at(k), e).getRe();
-			timeDomainSourceVoltage += Complex.multiply(sourceVoltage.at(k), e).getRe();
-			timeDomainVoltageDrop += Complex.multiply(Complex.multiply(current.at(k), impedance.at(k)), e).getRe();
+			accumulateTimeDomainParameters(k, omega.get(k) * totalTimeSec);
 		}
 	}
 
+	/**
+	 * Adds the real part of the k. phasors rotated by the given phase to the time domain values.
+	 * HUN: Az időtartománybeli értékekhez adja a k. fázorok adott fázissal elforgatott valós részét.
+	 */
+	private void accumulateTimeDomainParameters(int k, double phase) {
+		double cos = Math.cos(phase);
+		double sin = Math.sin(phase);
+		Vector drop = getVoltageDropPhasors();
+		timeDomainCurrent += current.getRe(k) * cos - current.getIm(k) * sin;
+		timeDomainSourceVoltage += sourceVoltage.getRe(k) * cos - sourceVoltage.getIm(k) * sin;
+		timeDomainVoltageDrop += drop.getRe(k) * cos - drop.getIm(k) * sin;
+	}
+
 	public final double getTimeDomainCurrent()
 	{
 		return timeDomainCurrent;
@@ -169,6 +223,42 @@ public class Edge implements Cloneable {
 		return (timeDomainSourceVoltage == 0.0f)? timeDomainVoltageDrop : -timeDomainSourceVoltage;
 	}
 
+	/**
+	 * Renders the current over a window of time at once.
+	 * HUN: Egyszerre állítja elő az áramot egy időablakon.
+	 * @param waveform	Prepared for the simulated angular frequencies and the window.
+	 * @param startSec	Time of the first sample.
+	 * @param out	Receives the samples.
+	 */
+	public void sampleCurrent(Waveform waveform, double startSec, double out[])
+	{
+		waveform.sample(current, startSec, out);
+	}
+
+	public void sampleSourceVoltage(Waveform waveform, double startSec, double out[])
+	{
+		waveform.sample(sourceVoltage, startSec, out);
+	}
+
+	/**
+	 * Renders the voltage drop over a window of time at once, where the source voltage overrides the drop as in getTimeDomainVoltageDrop.
+	 * HUN: Egyszerre állítja elő a feszültségesést egy időablakon, ahol a forrásfeszültség felülírja az esést, mint a getTimeDomainVoltageDrop-ban.
+	 */
+	public void sampleVoltageDrop(Waveform waveform, double startSec, double out[])
+	{
+		waveform.sample(getVoltageDropPhasors(), startSec, out);
+		if (sourceVoltage.isZero()) {
+			return;
+		}
+		double source[] = waveform.scratch();
+		waveform.sample(sourceVoltage, startSec, source);
+		for (int i = 0; i < source.length; i++) {
+			if (source[i] != 0) {
+				out[i] = -source[i];
+			}
+		}
+	}
+
     @Override
     public Edge clone() {
         try {
@@ -0,0 +1,259 @@
+package network;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of the simulated angular frequencies with a reference counter for each.
+ * Frequencies closer to each other than the comparison epsilon are treated as the same, lookups are binary searches.
+ * The requests and releases of many frequencies, for example of the harmonics of a periodic source, are merged in a single pass.
+ * HUN: A szimulált körfrekvenciák rendezett halmaza, mindegyikhez referenciaszámlálóval.
+ * Az epszilonnál közelebbi frekvenciák azonosnak számítanak, a keresések binárisak.
+ * Sok frekvencia, például egy periodikus forrás felharmonikusainak kérése és elengedése egyetlen menetben fésülődik össze.
+ * @author Simon Zoltán
+ *
+ */
+class FrequencyRegistry {
+
+	private final double epsilon;
+
+	private double frequencies[] = new double[16];
+	private int referenceCounter[] = new int[16];
+	private int size = 0;
+
+	/**
+	 * Incremented, whenever the set of frequencies changes. Changes of the reference counters only do not count.
+	 * HUN: Növekszik, ha a frekvenciák halmaza megváltozik. A csak a referenciaszámlálókat érintő változások nem számítanak.
+	 */
+	private int version = 0;
+
+	/**
+	 * @param epsilon	Frequencies with smaller difference are the same.
+	 */
+	FrequencyRegistry(double epsilon) {
+		this.epsilon = epsilon;
+	}
+
+	int size() {
+		return size;
+	}
+
+	double get(int i) {
+		return frequencies[i];
+	}
+
+	int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Position of the first frequency greater than the given value.
+	 * HUN: Az első, a megadott értéknél nagyobb frekvencia helye.
+	 */
+	private int firstAbove(double omega) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (frequencies[middle] > omega) {
+				high = middle;
+			}
+			else {
+				low = middle + 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return	The index of the frequency or -1, if it is not registered.
+	 */
+	int indexOf(double omega) {
+		int i = firstAbove(omega - epsilon);
+		if (i < size && frequencies[i] - omega < epsilon) {
+			return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return	The index of each frequency or -1, if it is not registered.
+	 */
+	int[] indicesOf(double omegas[]) {
+		int indices[] = new int[omegas.length];
+		for (int j = 0; j < omegas.length; j++) {
+			indices[j] = indexOf(omegas[j]);
+		}
+		return indices;
+	}
+
+	/**
+	 * Registers the frequency, or increments its reference counter, if already registered.
+	 * HUN: Regisztrálja a frekvenciát, vagy növeli a referenciaszámlálóját, ha már regisztrálva van.
+	 * @return	The index of the frequency.
+	 */
+	int request(double omega) {
+		int i = firstAbove(omega - epsilon);
+		if (i < size && frequencies[i] - omega < epsilon) {
+			referenceCounter[i]++;
+			return i;
+		}
+		ensureCapacity(size + 1);
+		System.arraycopy(frequencies, i, frequencies, i + 1, size - i);
+		System.arraycopy(referenceCounter, i, referenceCounter, i + 1, size - i);
+		frequencies[i] = omega;
+		referenceCounter[i] = 1;
+		size++;
+		version++;
+		return i;
+	}
+
+	/**
+	 * Decrements the reference counter of the frequency, and removes it, when no more references are left.
+	 * HUN: Csökkenti a frekvencia referenciaszámlálóját, és eltávolítja, ha nem maradt rá több hivatkozás.
+	 */
+	void release(double omega) {
+		int i = indexOf(omega);
+		if (i < 0) {
+			return;
+		}
+		if (referenceCounter[i] > 1) {
+			referenceCounter[i]--;
+			return;
+		}
+		System.arraycopy(frequencies, i + 1, frequencies, i, size - i - 1);
+		System.arraycopy(referenceCounter, i + 1, referenceCounter, i, size - i - 1);
+		size--;
+		version++;
+	}
+
+	/**
+	 * Requests all the given frequencies by merging them with the registered ones in a single pass.
+	 * HUN: Az összes megadott frekvenciát kéri, egyetlen menetben összefésülve őket a regisztráltakkal.
+	 * @param omegas	Requested frequencies in any order. Ascending ones, like harmonic series, are merged without sorting.
+	 * @return	The index of each requested frequency in the updated registry.
+	 */
+	int[] requestAll(double omegas[]) {
+		int byFrequency[] = isAscending(omegas)? null : sortedOrder(omegas);
+
+		double merged[] = new double[size + omegas.length];
+		int mergedCounter[] = new int[size + omegas.length];
+		int indices[] = new int[omegas.length];
+		int noOfMerged = 0;
+		int i = 0;
+		for (int position = 0; position < omegas.length; position++) {
+			int j = (byFrequency != null)? byFrequency[position] : position;
+			double omega = omegas[j];
+			while (i < size && frequencies[i] <= omega - epsilon) {		//Registered ones below
+				merged[noOfMerged] = frequencies[i];
+				mergedCounter[noOfMerged++] = referenceCounter[i++];
+			}
+			if (noOfMerged > 0 && Math.abs(merged[noOfMerged - 1] - omega) < epsilon) {
+				mergedCounter[noOfMerged - 1]++;
+			}
+			else if (i < size && frequencies[i] - omega < epsilon) {
+				merged[noOfMerged] = frequencies[i];
+				mergedCounter[noOfMerged++] = referenceCounter[i++] + 1;
+			}
+			else {
+				merged[noOfMerged] = omega;
+				mergedCounter[noOfMerged++] = 1;
+			}
+			indices[j] = noOfMerged - 1;
+		}
+		while (i < size) {
+			merged[noOfMerged] = frequencies[i];
+			mergedCounter[noOfMerged++] = referenceCounter[i++];
+		}
+
+		if (noOfMerged != size) {
+			version++;
+		}
+		frequencies = merged;
+		referenceCounter = mergedCounter;
+		size = noOfMerged;
+		return indices;
+	}
+
+	private static boolean isAscending(double values[]) {
+		for (int j = 1; j < values.length; j++) {
+			if (!(values[j - 1] <= values[j])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Indices of the values in ascending order of the values, by a merge sort of the indices.
+	 * HUN: Az értékek indexei az értékek növekvő sorrendjében, az indexek összefésülő rendezésével.
+	 */
+	private static int[] sortedOrder(double values[]) {
+		int order[] = new int[values.length];
+		int buffer[] = new int[values.length];
+		for (int j = 0; j < order.length; j++) {
+			order[j] = j;
+		}
+		for (int width = 1; width < order.length; width *= 2) {
+			for (int low = 0; low < order.length; low += 2 * width) {
+				int middle = Math.min(low + width, order.length);
+				int high = Math.min(low + 2 * width, order.length);
+				int a = low;
+				int b = middle;
+				for (int k = low; k < high; k++) {
+					if (a < middle && (b >= high || Double.compare(values[order[a]], values[order[b]]) <= 0)) {
+						buffer[k] = order[a++];
+					}
+					else {
+						buffer[k] = order[b++];
+					}
+				}
+			}
+			int swap[] = order;
+			order = buffer;
+			buffer = swap;
+		}
+		return order;
+	}
+
+	/**
+	 * Releases all the given frequencies, and removes the unreferenced ones in a single pass.
+	 * HUN: Elengedi az összes megadott frekvenciát, és egyetlen menetben eltávolítja a hivatkozás nélkülieket.
+	 * @param omegas	Released frequencies in any order.
+	 */
+	void releaseAll(double omegas[]) {
+		for (double omega : omegas) {
+			int i = indexOf(omega);
+			if (i >= 0 && referenceCounter[i] > 0) {
+				referenceCounter[i]--;
+			}
+		}
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if (referenceCounter[i] > 0) {
+				frequencies[kept] = frequencies[i];
+				referenceCounter[kept++] = referenceCounter[i];
+			}
+		}
+		if (kept != size) {
+			version++;
+		}
+		size = kept;
+	}
+
+	/**
+	 * Removes all the frequencies.
+	 * HUN: Eltávolítja az összes frekvenciát.
+	 */
+	void clear() {
+		size = 0;
+		version++;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > frequencies.length) {
+			int length = Math.max(capacity, 2 * frequencies.length);
+			frequencies = Arrays.copyOf(frequencies, length);
+			referenceCounter = Arrays.copyOf(referenceCounter, length);
+		}
+	}
+}
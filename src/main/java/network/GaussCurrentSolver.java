@@ -0,0 +1,59 @@
+package network;
+
+import math.Gauss;
+import math.GaussException;
+import math.GaussWorkspace;
+import math.SparseMatrix;
+import math.Vector;
+
+/**
+ * Solves the incidence and cycle equations of the network in dense {@link LinearSystemForCurrent} form
+ * with Gaussian elimination with partial pivoting.
+ * HUN: A hálózat illeszkedési és kör egyenleteit sűrű {@link LinearSystemForCurrent} formában,
+ * részleges főelemkiválasztásos Gauss-eliminációval oldja meg.
+ * @author Simon Zoltán
+ *
+ */
+public class GaussCurrentSolver extends CurrentSolver {
+
+	/**
+	 * Matrix representation of the network.
+	 * HUN: A hálózat mátrix reprezentációja.
+	 */
+	private LinearSystemForCurrent linSystem;
+
+	/**
+	 * Working buffers of the elimination and the solution, reused for every frequency.
+	 * HUN: Az elimináció munkaterülete és a megoldás, minden frekvencián újrahasznosítva.
+	 */
+	private GaussWorkspace workspace;
+	private Vector current;
+
+	@Override
+	void prepare(GraphSnapshot graph) {
+		SparseMatrix incidence = new SparseMatrix(0, 0);
+		SparseMatrix cycle = new SparseMatrix(0, 0);
+		Network.DFS(graph, incidence, cycle);
+		linSystem = new LinearSystemForCurrent(incidence.toDense(), cycle.toDense(), null, null, null);
+		workspace = new GaussWorkspace(linSystem.row, linSystem.column);
+		current = new Vector(linSystem.row - 1);
+	}
+
+	@Override
+	Vector solve(Vector impedance, Vector sourceVoltage, Vector inputCurrent) throws GaussException {
+		linSystem.updateImpedances(impedance);
+		linSystem.updateSourceVoltage(sourceVoltage);
+		linSystem.updateInputCurrents(inputCurrent);
+		Gauss.EliminateWithPivoting(linSystem, workspace, current, Gauss.defaultTolerance, 1);
+		return current;
+	}
+
+	@Override
+	CurrentSolver createWorker() {
+		GaussCurrentSolver worker = new GaussCurrentSolver();
+		worker.linSystem = new LinearSystemForCurrent(linSystem);
+		worker.workspace = new GaussWorkspace(linSystem.row, linSystem.column);
+		worker.current = new Vector(current.dimension);
+		return worker;
+	}
+}
@@ -0,0 +1,244 @@
+package network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable, compact copy of the structure of the graph representation for the analyses.
+ * Vertices and edges are identified by their position in the lists, that the snapshot was taken of.
+ * The neighbours of the vertices are stored in compressed rows of arrays: first the outputs of the outgoing edges, then the inputs of the incoming edges of each vertex,
+ * in the iteration order of the maps of the {@link Vertex}. The connected parts (islands) are numbered in the order of their first vertex.
+ * HUN: A gráf-reprezentáció szerkezetének megváltoztathatatlan, tömör másolata az elemzések számára.
+ * A csúcsokat és az éleket a pillanatkép alapjául szolgáló listákbeli helyük azonosítja.
+ * A csúcsok szomszédai tömbök tömörített soraiban vannak: minden csúcsnál először a kimenő élek kimenetei, majd a bejövő élek bemenetei,
+ * a {@link Vertex} map-jeinek bejárási sorrendjében. Az összefüggő részek (szigetek) az első csúcsuk sorrendjében számozódnak.
+ * @author Simon Zoltán
+ *
+ */
+public final class GraphSnapshot {
+
+	/**
+	 * Position of the input and the output vertex of each edge.
+	 * HUN: Az élek bemeneti és kimeneti csúcsának helye.
+	 */
+	final int edgeInput[];
+	final int edgeOutput[];
+
+	/**
+	 * The neighbours of vertex v are at positions adjacencyStart[v] .. adjacencyStart[v + 1] - 1 of {@link #neighbour} and {@link #neighbourEdge}.
+	 * HUN: A v csúcs szomszédai a {@link #neighbour} és {@link #neighbourEdge} adjacencyStart[v] .. adjacencyStart[v + 1] - 1 helyein vannak.
+	 */
+	final int adjacencyStart[];
+
+	/**
+	 * Position of the neighbour vertex and of the edge leading to it.
+	 * HUN: A szomszéd csúcs és a hozzá vezető él helye.
+	 */
+	final int neighbour[];
+	final int neighbourEdge[];
+
+	/**
+	 * Island of each vertex, and the first vertex of each island.
+	 * HUN: A csúcsok szigete, és a szigetek első csúcsa.
+	 */
+	final int island[];
+	final int firstOfIsland[];
+
+	/**
+	 * Takes a snapshot of the structure of the given vertices and edges.
+	 * HUN: Pillanatképet készít a megadott csúcsok és élek szerkezetéről.
+	 * @param vertices	Vertices of the graph. Neighbours not in the list are left out.
+	 * @param edges	Edges of the graph. Their endpoints must be in the vertices.
+	 */
+	public GraphSnapshot(ArrayList<Vertex> vertices, ArrayList<Edge> edges) {
+		int vertexPosition[] = Network.positionsOfVertices(vertices);
+		int edgePosition[] = Network.positionsOfEdges(edges);
+
+		edgeInput = new int[edges.size()];
+		edgeOutput = new int[edges.size()];
+		for (int e = 0; e < edges.size(); e++) {
+			edgeInput[e] = vertexPosition[edges.get(e).getInput().getIndex()];
+			edgeOutput[e] = vertexPosition[edges.get(e).getOutput().getIndex()];
+		}
+
+		int size = 0;
+		for (Vertex vertex : vertices) {
+			size += vertex.getOutgoing().size() + vertex.getIncoming().size();
+		}
+		adjacencyStart = new int[vertices.size() + 1];
+		int neighbour[] = new int[size];
+		int neighbourEdge[] = new int[size];
+		int next = 0;
+		for (int v = 0; v < vertices.size(); v++) {
+			next = addNeighbours(vertices.get(v).getOutgoing(), vertexPosition, edgePosition, neighbour, neighbourEdge, next);
+			next = addNeighbours(vertices.get(v).getIncoming(), vertexPosition, edgePosition, neighbour, neighbourEdge, next);
+			adjacencyStart[v + 1] = next;
+		}
+		this.neighbour = neighbour;
+		this.neighbourEdge = neighbourEdge;
+
+		island = new int[vertices.size()];
+		firstOfIsland = findIslands(island, edgeInput, edgeOutput);
+	}
+
+	/**
+	 * Snapshot of a part of an other snapshot. The neighbours keep their order.
+	 * HUN: Egy másik pillanatkép egy részének pillanatképe. A szomszédok sorrendje megmarad.
+	 */
+	private GraphSnapshot(GraphSnapshot whole, int vertexIds[], int edgeIds[]) {
+		int vertexPosition[] = new int[whole.getNoOfVertices()];
+		int edgePosition[] = new int[whole.getNoOfEdges()];
+		Arrays.fill(vertexPosition, -1);
+		Arrays.fill(edgePosition, -1);
+		for (int i = 0; i < vertexIds.length; i++) {
+			vertexPosition[vertexIds[i]] = i;
+		}
+		for (int i = 0; i < edgeIds.length; i++) {
+			edgePosition[edgeIds[i]] = i;
+		}
+
+		edgeInput = new int[edgeIds.length];
+		edgeOutput = new int[edgeIds.length];
+		for (int i = 0; i < edgeIds.length; i++) {
+			edgeInput[i] = vertexPosition[whole.edgeInput[edgeIds[i]]];
+			edgeOutput[i] = vertexPosition[whole.edgeOutput[edgeIds[i]]];
+		}
+
+		adjacencyStart = new int[vertexIds.length + 1];
+		int size = 0;
+		for (int v : vertexIds) {
+			size += whole.adjacencyStart[v + 1] - whole.adjacencyStart[v];
+		}
+		int neighbour[] = new int[size];
+		int neighbourEdge[] = new int[size];
+		int next = 0;
+		for (int i = 0; i < vertexIds.length; i++) {
+			int v = vertexIds[i];
+			for (int a = whole.adjacencyStart[v]; a < whole.adjacencyStart[v + 1]; a++) {
+				if (vertexPosition[whole.neighbour[a]] < 0) {
+					continue;
+				}
+				neighbour[next] = vertexPosition[whole.neighbour[a]];
+				neighbourEdge[next] = edgePosition[whole.neighbourEdge[a]];
+				next++;
+			}
+			adjacencyStart[i + 1] = next;
+		}
+		this.neighbour = neighbour;
+		this.neighbourEdge = neighbourEdge;
+
+		island = new int[vertexIds.length];
+		firstOfIsland = findIslands(island, edgeInput, edgeOutput);
+	}
+
+	/**
+	 * Snapshot of the given vertices and edges of this snapshot, for example of an island.
+	 * HUN: A pillanatkép megadott csúcsainak és éleinek pillanatképe, például egy szigeté.
+	 * @param vertexIds	Positions of the vertices in this snapshot, in their order in the part.
+	 * @param edgeIds	Positions of the edges in this snapshot, in their order in the part. Their endpoints must be in the vertices.
+	 * @return	Snapshot of the part.
+	 */
+	public GraphSnapshot part(int vertexIds[], int edgeIds[]) {
+		return new GraphSnapshot(this, vertexIds, edgeIds);
+	}
+
+	private static int addNeighbours(Map<Vertex, Edge> adjacent, int vertexPosition[], int edgePosition[], int neighbour[], int neighbourEdge[], int next) {
+		for (Map.Entry<Vertex, Edge> entry : adjacent.entrySet()) {
+			int index = entry.getKey().getIndex();
+			if (index < 0 || index >= vertexPosition.length || vertexPosition[index] < 0) {
+				continue;
+			}
+			neighbour[next] = vertexPosition[index];
+			neighbourEdge[next] = edgePosition[entry.getValue().getIndex()];
+			next++;
+		}
+		return next;
+	}
+
+	/**
+	 * Finds the connected parts with union-find. The root of a part is its smallest vertex.
+	 * HUN: Unió-holvan adatszerkezettel megkeresi az összefüggő részeket. Egy rész gyökere a legkisebb csúcsa.
+	 * @param island	Filled up with the island of each vertex.
+	 * @return	First vertex of each island.
+	 */
+	private static int[] findIslands(int island[], int edgeInput[], int edgeOutput[]) {
+		int noOfVertices = island.length;
+		int root[] = new int[noOfVertices];
+		for (int v = 0; v < noOfVertices; v++) {
+			root[v] = v;
+		}
+		for (int e = 0; e < edgeInput.length; e++) {
+			int a = find(root, edgeInput[e]);
+			int b = find(root, edgeOutput[e]);
+			if (a != b) {
+				root[Math.max(a, b)] = Math.min(a, b);		//The smallest index remains the root
+			}
+		}
+		int first[] = new int[noOfVertices];
+		int noOfIslands = 0;
+		for (int v = 0; v < noOfVertices; v++) {
+			int r = find(root, v);
+			if (r == v) {
+				first[noOfIslands] = v;
+				island[v] = noOfIslands++;
+			}
+			else {
+				island[v] = island[r];
+			}
+		}
+		return Arrays.copyOf(first, noOfIslands);
+	}
+
+	private static int find(int root[], int v) {
+		while (root[v] != v) {
+			root[v] = root[root[v]];
+			v = root[v];
+		}
+		return v;
+	}
+
+	public int getNoOfVertices() {
+		return island.length;
+	}
+
+	public int getNoOfEdges() {
+		return edgeInput.length;
+	}
+
+	public int getNoOfIslands() {
+		return firstOfIsland.length;
+	}
+
+	/**
+	 * @param e	Position of the edge.
+	 * @return	Position of the input vertex of the edge.
+	 */
+	public int getInput(int e) {
+		return edgeInput[e];
+	}
+
+	/**
+	 * @param e	Position of the edge.
+	 * @return	Position of the output vertex of the edge.
+	 */
+	public int getOutput(int e) {
+		return edgeOutput[e];
+	}
+
+	/**
+	 * @param v	Position of the vertex.
+	 * @return	Index of the island of the vertex.
+	 */
+	public int getIsland(int v) {
+		return island[v];
+	}
+
+	/**
+	 * @param i	Index of the island.
+	 * @return	Position of the first vertex of the island.
+	 */
+	public int getFirstOfIsland(int i) {
+		return firstOfIsland[i];
+	}
+}
@@ -65,6 +65,9 @@ public class Ground extends Component {
 		return e.getVoltageDrop();
 	}
 
+	@Override
+	Edge getSampledEdge() { return e; }
+
 	//Build/Destroy:------------------------------------------------------------------------------------
 	
 	@Override
@@ -127,7 +130,7 @@ public class Ground extends Component {
 
 	@Override
 	public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas) {
-		e.updateTimeDomainParameters(omegas, totalTimeSec);
+		e.updateTimeDomainParameters(omegas, getParent().getFrequencySetVersion(), totalTimeSec);
 	}
 
 	@Override
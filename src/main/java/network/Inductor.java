@@ -74,6 +74,9 @@ public class Inductor extends Component {
 		return e.getVoltageDrop();
 	}
 
+	@Override
+	Edge getSampledEdge() { return e; }
+
 	//Build/Destroy:------------------------------------------------------------------------------------
 	
 	@Override
@@ -155,7 +158,7 @@ public class Inductor extends Component {
 
 	@Override
 	public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas) {
-		e.updateTimeDomainParameters(omegas, totalTimeSec);
+		e.updateTimeDomainParameters(omegas, getParent().getFrequencySetVersion(), totalTimeSec);
 	}
 
 	@Override
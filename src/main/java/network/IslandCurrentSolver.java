@@ -0,0 +1,334 @@
+package network;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+import math.GaussException;
+import math.NoSolution;
+import math.Vector;
+
+/**
+ * Splits the graph into its connected parts (islands) and solves each of them with its own solver, concurrently if more of them need solving.
+ * The island of the ground vertex gets back its inputed currents at the ground. Every other island has its first vertex as reference,
+ * and the sum of the currents inputed to it must be zero, as in the undivided system.
+ * The currents of an island are cached for each frequency index, and are reused while the parameters of the island are unchanged.
+ * HUN: A gráfot összefüggő részekre (szigetekre) bontja, és mindegyiket saját áramszámítóval oldja meg, párhuzamosan, ha több is megoldandó.
+ * A föld csúcs szigete a földön kapja vissza a befolyó áramokat. A többi sziget referenciája az első csúcsa,
+ * és a szigetbe befolyó áramok összegének nullának kell lennie, ahogy a fel nem bontott rendszerben is.
+ * A szigetek áramai frekvencia indexenként tárolódnak, és újrahasznosulnak, amíg a sziget paraméterei nem változnak.
+ * @author Simon Zoltán
+ *
+ */
+public class IslandCurrentSolver extends CurrentSolver {
+
+	/**
+	 * Creates the solver of each island.
+	 * HUN: Létrehozza a szigetek áramszámítóját.
+	 */
+	private final Supplier<CurrentSolver> engine;
+
+	/**
+	 * Island sums of the inputed currents are considered nonzero, if they exceed this times the largest inputed current.
+	 * HUN: A befolyó áramok szigetenkénti összege nem nulla, ha meghaladja a legnagyobb befolyó áram ennyiszeresét.
+	 */
+	private final double balanceTolerance = 1e-9;
+
+	private Island islands[];
+	private int noOfEdges;
+	private Vector current;
+
+	/**
+	 * Islands to be solved in the current call.
+	 * HUN: Az aktuális hívásban megoldandó szigetek.
+	 */
+	private Island pending[];
+
+	/**
+	 * @param engine	Creates the solver of an island, for example GaussCurrentSolver::new.
+	 */
+	public IslandCurrentSolver(Supplier<CurrentSolver> engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * Connected part of the graph with its own solver.
+	 * HUN: A gráf összefüggő része saját áramszámítóval.
+	 */
+	@SuppressWarnings("serial")		//Never serialized, the task is only used to fork the solution of the island
+	private static class Island extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		//Shared by the workers:
+		int vertexIds[];
+		int edgeIds[];
+		boolean ground;
+		ResultCache cache;
+
+		//Own of each worker:
+		CurrentSolver solver;		//null, if the island has no edges.
+		Vector result;
+		GaussException failure;
+
+		@Override
+		protected void compute() {
+			try {
+				result = solver.solve(solver.impedance, solver.sourceVoltage, solver.inputCurrent);
+				failure = null;
+			}
+			catch (GaussException e) {
+				result = null;
+				failure = e;
+			}
+		}
+
+		Island copyForWorker() {
+			Island worker = new Island();
+			worker.vertexIds = vertexIds;
+			worker.edgeIds = edgeIds;
+			worker.ground = ground;
+			worker.cache = cache;
+			if (solver != null) {
+				worker.solver = solver.createWorker();
+				allocateParameters(worker.solver, edgeIds.length, vertexIds.length);
+			}
+			return worker;
+		}
+	}
+
+	/**
+	 * Parameters and currents of the last solution of an island at each frequency index.
+	 * An entry contains a validity flag, the impedances, source voltages, inputed currents and the currents, interleaved.
+	 * Shared by the workers, that always solve different frequency indices at the same time.
+	 * HUN: Egy sziget legutóbbi megoldásának paraméterei és áramai frekvencia indexenként. A munkások közösen használják.
+	 */
+	private static class ResultCache {
+		private double entries[][] = new double[0][];
+
+		synchronized double[] entry(int k, int length) {
+			if (k >= entries.length) {
+				entries = Arrays.copyOf(entries, Math.max(k + 1, 2 * entries.length));
+			}
+			if (entries[k] == null) {
+				entries[k] = new double[length];
+			}
+			return entries[k];
+		}
+	}
+
+	private static void allocateParameters(CurrentSolver solver, int noOfEdges, int noOfVertices) {
+		solver.impedance = new Vector(noOfEdges);
+		solver.sourceVoltage = new Vector(noOfEdges);
+		solver.inputCurrent = new Vector(noOfVertices);
+	}
+
+	@Override
+	void prepare(GraphSnapshot graph) {
+		int noOfVertices = graph.getNoOfVertices();
+		noOfEdges = graph.getNoOfEdges();
+		int noOfIslands = graph.getNoOfIslands();
+
+		//Islands in the order of their first vertex, so the ground is in the first one, vertices and edges in their original order:
+		int vertexCount[] = new int[noOfIslands];
+		int edgeCount[] = new int[noOfIslands];
+		for (int v = 0; v < noOfVertices; v++) {
+			vertexCount[graph.getIsland(v)]++;
+		}
+		for (int e = 0; e < noOfEdges; e++) {
+			edgeCount[graph.getIsland(graph.getInput(e))]++;
+		}
+		islands = new Island[noOfIslands];
+		for (int i = 0; i < noOfIslands; i++) {
+			islands[i] = new Island();
+			islands[i].vertexIds = new int[vertexCount[i]];
+			islands[i].edgeIds = new int[edgeCount[i]];
+			islands[i].cache = new ResultCache();
+			vertexCount[i] = 0;
+			edgeCount[i] = 0;
+		}
+		for (int v = 0; v < noOfVertices; v++) {
+			int i = graph.getIsland(v);
+			islands[i].vertexIds[vertexCount[i]++] = v;
+		}
+		for (int e = 0; e < noOfEdges; e++) {
+			int i = graph.getIsland(graph.getInput(e));
+			islands[i].edgeIds[edgeCount[i]++] = e;
+		}
+		islands[0].ground = true;
+
+		for (Island island : islands) {
+			if (island.edgeIds.length == 0) {
+				continue;		//Isolated vertex, no current to calculate.
+			}
+			island.solver = engine.get();
+			island.solver.prepare(graph.part(island.vertexIds, island.edgeIds));
+			allocateParameters(island.solver, island.edgeIds.length, island.vertexIds.length);
+		}
+		pending = new Island[noOfIslands];
+		current = new Vector(noOfEdges);
+	}
+
+	@Override
+	Vector solve(Vector impedance, Vector sourceVoltage, Vector inputCurrent) throws GaussException {
+		int noOfPending = 0;
+		for (Island island : islands) {
+			if (!island.ground) {
+				checkBalance(island, inputCurrent);
+			}
+			if (island.solver == null) {
+				continue;
+			}
+			gatherParameters(island, impedance, sourceVoltage, inputCurrent);
+			if (!loadCached(island)) {
+				pending[noOfPending++] = island;
+			}
+		}
+
+		//The first island is solved on the calling thread, the others on the evaluation pool of the network.
+		//Within the pool they are forked, outside of it they are submitted. Without a pool all are solved sequentially:
+		ForkJoinPool pool = evaluationPool;
+		boolean inPool = (pool != null && ForkJoinTask.getPool() == pool);
+		for (int i = 1; i < noOfPending && pool != null; i++) {
+			pending[i].reinitialize();
+			if (inPool) {
+				pending[i].fork();
+			}
+			else {
+				pool.execute(pending[i]);
+			}
+		}
+		if (noOfPending > 0) {
+			pending[0].compute();
+		}
+		for (int i = 1; i < noOfPending; i++) {
+			if (pool != null) {
+				pending[i].join();
+			}
+			else {
+				pending[i].compute();
+			}
+		}
+		for (int i = 0; i < noOfPending; i++) {
+			if (pending[i].failure != null) {
+				throw pending[i].failure;
+			}
+		}
+		for (int i = 0; i < noOfPending; i++) {
+			storeCached(pending[i]);
+		}
+
+		for (Island island : islands) {
+			if (island.solver == null) {
+				continue;
+			}
+			for (int j = 0; j < island.edgeIds.length; j++) {
+				current.setAt(island.edgeIds[j], island.result.getRe(j), island.result.getIm(j));
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * An island without ground has no place to put back the inputed currents, so their sum must be zero.
+	 * HUN: A föld nélküli szigetnek nincs hova visszaadnia a befolyó áramokat, így azok összegének nullának kell lennie.
+	 */
+	private void checkBalance(Island island, Vector inputCurrent) throws NoSolution {
+		double sumRe = 0;
+		double sumIm = 0;
+		double scale = 0;
+		for (int v : island.vertexIds) {
+			sumRe += inputCurrent.getRe(v);
+			sumIm += inputCurrent.getIm(v);
+			scale = Math.max(scale, Math.hypot(inputCurrent.getRe(v), inputCurrent.getIm(v)));
+		}
+		if (Math.hypot(sumRe, sumIm) > balanceTolerance * scale) {
+			throw new NoSolution();
+		}
+	}
+
+	private void gatherParameters(Island island, Vector impedance, Vector sourceVoltage, Vector inputCurrent) {
+		CurrentSolver solver = island.solver;
+		solver.frequencyIndex = frequencyIndex;
+		for (int j = 0; j < island.edgeIds.length; j++) {
+			int e = island.edgeIds[j];
+			solver.impedance.setAt(j, impedance.getRe(e), impedance.getIm(e));
+			solver.sourceVoltage.setAt(j, sourceVoltage.getRe(e), sourceVoltage.getIm(e));
+		}
+		for (int j = 0; j < island.vertexIds.length; j++) {
+			int v = island.vertexIds[j];
+			solver.inputCurrent.setAt(j, inputCurrent.getRe(v), inputCurrent.getIm(v));
+		}
+	}
+
+	private static int entryLength(Island island) {
+		return 1 + 6 * island.edgeIds.length + 2 * island.vertexIds.length;
+	}
+
+	/**
+	 * Compares the parameters of the island with the cached ones of the same frequency index, and takes the cached currents, if they are equal.
+	 * HUN: Összeveti a sziget paramétereit az azonos frekvencia indexen tároltakkal, és egyezés esetén a tárolt áramokat veszi.
+	 * @return	Whether the cached currents were taken.
+	 */
+	private boolean loadCached(Island island) {
+		CurrentSolver solver = island.solver;
+		double entry[] = island.cache.entry(solver.frequencyIndex, entryLength(island));
+		if (entry[0] == 0) {
+			return false;
+		}
+		int i = 1;
+		for (int j = 0; j < island.edgeIds.length; j++, i += 4) {
+			if (entry[i] != solver.impedance.getRe(j) || entry[i + 1] != solver.impedance.getIm(j)
+					|| entry[i + 2] != solver.sourceVoltage.getRe(j) || entry[i + 3] != solver.sourceVoltage.getIm(j)) {
+				return false;
+			}
+		}
+		for (int j = 0; j < island.vertexIds.length; j++, i += 2) {
+			if (entry[i] != solver.inputCurrent.getRe(j) || entry[i + 1] != solver.inputCurrent.getIm(j)) {
+				return false;
+			}
+		}
+		if (island.result == null || island.result.dimension != island.edgeIds.length) {
+			island.result = new Vector(island.edgeIds.length);
+		}
+		for (int j = 0; j < island.edgeIds.length; j++, i += 2) {
+			island.result.setAt(j, entry[i], entry[i + 1]);
+		}
+		return true;
+	}
+
+	private void storeCached(Island island) {
+		CurrentSolver solver = island.solver;
+		double entry[] = island.cache.entry(solver.frequencyIndex, entryLength(island));
+		int i = 1;
+		for (int j = 0; j < island.edgeIds.length; j++, i += 4) {
+			entry[i] = solver.impedance.getRe(j);
+			entry[i + 1] = solver.impedance.getIm(j);
+			entry[i + 2] = solver.sourceVoltage.getRe(j);
+			entry[i + 3] = solver.sourceVoltage.getIm(j);
+		}
+		for (int j = 0; j < island.vertexIds.length; j++, i += 2) {
+			entry[i] = solver.inputCurrent.getRe(j);
+			entry[i + 1] = solver.inputCurrent.getIm(j);
+		}
+		for (int j = 0; j < island.edgeIds.length; j++, i += 2) {
+			entry[i] = island.result.getRe(j);
+			entry[i + 1] = island.result.getIm(j);
+		}
+		entry[0] = 1;
+	}
+
+	@Override
+	CurrentSolver createWorker() {
+		IslandCurrentSolver worker = new IslandCurrentSolver(engine);
+		worker.noOfEdges = noOfEdges;
+		worker.islands = new Island[islands.length];
+		for (int i = 0; i < islands.length; i++) {
+			worker.islands[i] = islands[i].copyForWorker();
+		}
+		worker.pending = new Island[islands.length];
+		worker.current = new Vector(noOfEdges);
+		return worker;
+	}
+}
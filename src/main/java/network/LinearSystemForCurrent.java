@@ -1,6 +1,5 @@
 package network;
 
-import math.Complex;
 import math.Matrix;
 import math.Vector;
 
@@ -51,22 +50,14 @@ public class LinearSystemForCurrent extends Matrix {
 		cycleOffset = incidence.column;	//Number of vertices.
 		
 		for (int c = 0; c < incidence.column; c++) {
-			for (int r = 0; r < incidence.row + 1; r++) {
-				if (r < incidence.row) {
-					this.setAt(r, c, incidence.at(r, c));					
-				} else {
-					this.setAt(r, c, new Complex(0, 0));
-				}
+			for (int r = 0; r < incidence.row; r++) {
+				this.setAt(r, c, incidence.getRe(r, c), incidence.getIm(r, c));
 			}
 		}
 
 		for (int c = 0; c < this.cycle.column; c++) {
-			for (int r = 0; r < this.cycle.row + 1; r++) {
-				if (r < this.cycle.row) {
-					this.setAt(r, cycleOffset + c, this.cycle.at(r, c));					
-				} else {
-					this.setAt(r, c, new Complex(0, 0));
-				}
+			for (int r = 0; r < this.cycle.row; r++) {
+				this.setAt(r, cycleOffset + c, this.cycle.getRe(r, c), this.cycle.getIm(r, c));
 			}
 		}
 		
@@ -83,22 +74,40 @@ public class LinearSystemForCurrent extends Matrix {
 	
 	
 	/**
-	 * Updates only the "source voltage" part of the matrix.
-	 * HUN: Frissíti a mátrix feszültésforrásokat leíró részét.
+	 * Copy constructor. The base cycle matrix is shared, as it is never modified.
+	 * HUN: Másoló konstruktor. Az alapkör mátrix közös, mert sosem módosul.
+	 * @param other	The system to copy.
+	 */
+	public LinearSystemForCurrent(LinearSystemForCurrent other) {
+		super(other);
+		cycle = other.cycle;
+		noOfEdges = other.noOfEdges;
+		cycleOffset = other.cycleOffset;
+	}
+	
+	/**
+	 * Updates only the "source voltage" part of the matrix. A source voltage counts with the sign of its edge in the cycle,
+	 * as the impedances do, so the voltage of an edge is Z * I - U in its own direction.
+	 * HUN: Frissíti a mátrix feszültésforrásokat leíró részét. A forrásfeszültség az élének a körbeli előjelével számít,
+	 * ahogy az impedanciák is, így egy él feszültsége a saját irányában Z * I - U.
 	 * @param sourceVoltages	{@link Vector} of source voltages. 
 	 */
 	public void updateSourceVoltage(Vector sourceVoltages) {
 		for (int c = 0; c < this.cycle.column; c++) {
-			Complex sumOfVoltages = new Complex(0, 0);
+			double sumRe = 0;
+			double sumIm = 0;
 			for (int r = 0; r < sourceVoltages.dimension; r++) {
-				if (this.cycle.at(r, c).compareTo(new Complex(0, 0)) > 0) {
-					sumOfVoltages.add(sourceVoltages.at(r));
+				double sign = this.cycle.getRe(r, c);
+				if (sign > 0) {
+					sumRe += sourceVoltages.getRe(r);
+					sumIm += sourceVoltages.getIm(r);
 				}
-				else if (this.cycle.at(r, c).compareTo(new Complex(0, 0)) < 0) {
-					sumOfVoltages.subtract(sourceVoltages.at(r));
+				else if (sign < 0) {
+					sumRe -= sourceVoltages.getRe(r);
+					sumIm -= sourceVoltages.getIm(r);
 				}
 			}
-			this.setAt(this.row-1, cycleOffset + c, sumOfVoltages);
+			this.setAt(this.row-1, cycleOffset + c, sumRe, sumIm);
 		}
 	}
 	
@@ -111,14 +120,15 @@ public class LinearSystemForCurrent extends Matrix {
 	public void updateImpedances(Vector impedances) {
 		for (int c = 0; c < this.cycle.column; c++) {
 			for (int r = 0; r < impedances.dimension; r++) {
-				if (this.cycle.at(r, c).getRe() > 0) {
-					this.setAt(r, cycleOffset + c, impedances.at(r));
+				double sign = this.cycle.getRe(r, c);
+				if (sign > 0) {
+					this.setAt(r, cycleOffset + c, impedances.getRe(r), impedances.getIm(r));
 				}
-				else if (this.cycle.at(r, c).getRe() < 0) {
-					this.setAt(r, cycleOffset + c, impedances.at(r).negate());
+				else if (sign < 0) {
+					this.setAt(r, cycleOffset + c, -impedances.getRe(r), -impedances.getIm(r));
 				}
 				else {
-					this.setAt(r, cycleOffset + c, new Complex(0, 0));
+					this.setAt(r, cycleOffset + c, 0, 0);
 				}
 			}
 		}		
@@ -131,12 +141,14 @@ public class LinearSystemForCurrent extends Matrix {
 	 * @param inputCurrent
 	 */
 	public void updateInputCurrents(Vector inputCurrent) {
-		Complex sum = new Complex(0, 0);
+		double sumRe = 0;
+		double sumIm = 0;
 		for (int c = 1; c < cycleOffset; c++) {
-			this.setAt(this.row-1, c, inputCurrent.at(c));
-			sum.add(inputCurrent.at(c));
+			this.setAt(this.row-1, c, inputCurrent.getRe(c), inputCurrent.getIm(c));
+			sumRe += inputCurrent.getRe(c);
+			sumIm += inputCurrent.getIm(c);
 		}
-		this.setAt(this.row-1, 0, sum.negate());
+		this.setAt(this.row-1, 0, -sumRe, -sumIm);
 	}
 	
 }
@@ -5,9 +5,15 @@ import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntToDoubleFunction;
 import javafx.scene.canvas.GraphicsContext;
 import math.*;
 
@@ -43,12 +49,78 @@ public class Network {
 	 * HUN: A hálózat komponensei.
 	 */
 	private ArrayList<Component> components;
+
+	/**
+	 * Grid hashes of the nodes and the components on the board for hit-testing and merging, and the reused lists of their candidates.
+	 * HUN: A táblán lévő csomópontok és komponensek rács hash-ei a találatvizsgálathoz és az összeolvasztáshoz, és a jelöltjeik újrahasznosított listái.
+	 */
+	private SpatialGrid<ComponentNode> nodeGrid;
+	private SpatialGrid<Component> componentGrid;
+	private final ArrayList<ComponentNode> nodeCandidates = new ArrayList<ComponentNode>();
+	private final ArrayList<Component> componentCandidates = new ArrayList<Component>();
+
+	/**
+	 * Whether a batch construction is in progress, and the nodes released during it, in the order of their release.
+	 * HUN: Folyamatban van-e kötegelt létrehozás, és az alatta elengedett csomópontok, az elengedésük sorrendjében.
+	 */
+	private boolean batchConstruction = false;
+	private final ArrayList<ComponentNode> batchNodes = new ArrayList<ComponentNode>();
 	
 	/**
-	 * Matrix representation of the network.
-	 * A hálózat mátrix reprezentációja.
+	 * Calculates the currents of the edges. Its frequency independent part is rebuilt only when the structure of the graph changes.
+	 * HUN: Kiszámolja az élek áramát. A frekvenciafüggetlen része csak a gráf szerkezetének változásakor épül újra.
+	 */
+	private CurrentSolver currentSolver = new GaussCurrentSolver();
+
+	/**
+	 * Workers of the current solver for parallel evaluation. Recreated, when the solver is prepared again.
+	 * HUN: Az áramszámító munkásai a párhuzamos kiértékeléshez. Az áramszámító újbóli előkészítésekor újra létrejönnek.
+	 */
+	private final ArrayList<CurrentSolver> currentSolverWorkers = new ArrayList<CurrentSolver>();
+
+	/**
+	 * Number of threads solving the frequencies concurrently. 1 means sequential evaluation on the calling thread.
+	 * HUN: A frekvenciákat párhuzamosan számoló szálak száma. 1 esetén a kiértékelés a hívó szálon, sorosan történik.
+	 */
+	private int parallelism = 1;
+	private ForkJoinPool evaluationPool = null;
+
+	/**
+	 * Truncation of the Fourier series of the periodic sources: the allowed relative RMS error of the omitted harmonics,
+	 * and the highest angular frequency to simulate. 0 tolerance and infinite ceiling keep every harmonic, that the source offers.
+	 * HUN: A periodikus források Fourier sorainak csonkolása: az elhagyott felharmonikusok megengedett relatív effektív hibája,
+	 * és a legnagyobb szimulált körfrekvencia. 0 tűrés és végtelen plafon esetén a forrás minden felharmonikusa megmarad.
+	 */
+	private double harmonicTolerance = 0;
+	private double harmonicFrequencyCeiling = Double.POSITIVE_INFINITY;
+
+	/**
+	 * Incremented on every structural change of the graph representation (edges, vertices and their connections).
+	 * HUN: A gráf-reprezentáció minden szerkezeti változásakor növekszik.
+	 */
+	private int structureVersion = 0;
+
+	/**
+	 * The structure version, that the current solver was prepared for.
+	 * HUN: A szerkezet verziója, amelyhez az áramszámító elő lett készítve.
+	 */
+	private int topologyVersion = -1;
+
+	/**
+	 * Snapshot of the structure of the graph representation, and the structure version it was taken at.
+	 * HUN: A gráf-reprezentáció szerkezetének pillanatképe, és a szerkezet verziója, amikor készült.
+	 */
+	private GraphSnapshot graph = null;
+	private int graphVersion = -1;
+
+	/**
+	 * Spanning forest of the graph snapshot, along which the potentials are propagated, and the reused buffers of the propagation.
+	 * HUN: A gráf pillanatképének feszítő erdője, amely mentén a potenciálok terjednek, és a terjesztés újrahasznosított pufferei.
 	 */
-	private LinearSystemForCurrent linSystem;
+	private SpanningTree potentialTree = null;
+	private double potentials[] = new double[0];
+	private double islandMinimum[] = new double[0];
+	private double islandMaximum[] = new double[0];
 	
 	//Flags:
 	private Component selected = null;
@@ -66,19 +138,195 @@ public class Network {
 		return accessMutexObj;
 	}
 
+	public int getStructureVersion()
+	{
+		return structureVersion;
+	}
+
+	/**
+	 * Snapshot of the structure of the graph representation for the analyses. Taken again only if the structure changed since the last one.
+	 * HUN: A gráf-reprezentáció szerkezetének pillanatképe az elemzésekhez. Csak akkor készül újra, ha a szerkezet megváltozott a legutóbbi óta.
+	 * @return	Snapshot of the vertices and edges, in the order of their index.
+	 */
+	public GraphSnapshot getGraphSnapshot() {
+		synchronized (accessMutexObj)
+		{
+			if (graphVersion != structureVersion) {
+				graph = new GraphSnapshot(vertices, edges);
+				graphVersion = structureVersion;
+			}
+			return graph;
+		}
+	}
+
+	/**
+	 * Must be called after every change of the graph structure. Invalidates the cached topology.
+	 * HUN: A gráf szerkezetének minden változása után meg kell hívni. Érvényteleníti a tárolt topológiát.
+	 */
+	private void structureChanged() {
+		structureVersion++;
+		needRecalculation = true;
+	}
+
+	public CurrentSolver getCurrentSolver() {
+		synchronized (accessMutexObj)
+		{
+			return currentSolver;
+		}
+	}
+
+	/**
+	 * Selects the engine, that calculates the currents of the edges. The network is recalculated on the next evaluation.
+	 * HUN: Kiválasztja az élek áramát számoló motort. A hálózat a következő kiértékeléskor újraszámolódik.
+	 * @param currentSolver	{@link GaussCurrentSolver}, {@link SparseCurrentSolver} or {@link NodalCurrentSolver} for large networks,
+	 * optionally wrapped in an {@link IslandCurrentSolver} (default: {@link GaussCurrentSolver}).
+	 * The solver may use the evaluation pool of the network for its own parallel work.
+	 */
+	public void setCurrentSolver(CurrentSolver currentSolver) {
+		synchronized (accessMutexObj)
+		{
+			this.currentSolver = currentSolver;
+			topologyVersion = -1;
+			needRecalculation = true;
+		}
+	}
+
+	public int getParallelism() {
+		synchronized (accessMutexObj)
+		{
+			return parallelism;
+		}
+	}
+
+	/**
+	 * Sets the number of threads, that solve the frequencies of an evaluation concurrently.
+	 * HUN: Beállítja a kiértékelés frekvenciáit párhuzamosan számoló szálak számát.
+	 * @param parallelism	Number of threads. 1 means sequential evaluation on the calling thread.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new RuntimeException("Parallelism must be at least 1.");
+		}
+		synchronized (accessMutexObj)
+		{
+			if (this.parallelism == parallelism) {
+				return;
+			}
+			this.parallelism = parallelism;
+			if (evaluationPool != null) {
+				evaluationPool.shutdown();
+				evaluationPool = null;
+			}
+			if (parallelism > 1) {
+				evaluationPool = new ForkJoinPool(parallelism);
+			}
+		}
+	}
+
+	public double getHarmonicTolerance() {
+		synchronized (accessMutexObj)
+		{
+			return harmonicTolerance;
+		}
+	}
+
+	public double getHarmonicFrequencyCeiling() {
+		synchronized (accessMutexObj)
+		{
+			return harmonicFrequencyCeiling;
+		}
+	}
+
+	/**
+	 * Sets the truncation of the Fourier series of the periodic sources, and lets the sources register their harmonics again.
+	 * HUN: Beállítja a periodikus források Fourier sorainak csonkolását, és a forrásokkal újra regisztráltatja a felharmonikusaikat.
+	 * @param tolerance	Allowed RMS of the omitted harmonics relative to the RMS of the whole series. 0 keeps all.
+	 * @param frequencyCeiling	Harmonics above this angular frequency are omitted. Infinite keeps all.
+	 */
+	public void setHarmonicTruncation(double tolerance, double frequencyCeiling) {
+		if (tolerance < 0 || tolerance >= 1 || !(frequencyCeiling > 0)) {
+			throw new RuntimeException("Invalid harmonic truncation.");
+		}
+		synchronized (accessMutexObj)
+		{
+			if (tolerance == harmonicTolerance && frequencyCeiling == harmonicFrequencyCeiling) {
+				return;
+			}
+			harmonicTolerance = tolerance;
+			harmonicFrequencyCeiling = frequencyCeiling;
+			for (Component component : components) {
+				component.updateHarmonicTruncation();
+			}
+		}
+	}
+
+	/**
+	 * Number of harmonics of a series, that are kept by the truncation.
+	 * The series is cut, where the RMS of the rest falls under the tolerance, and at the frequency ceiling. The first harmonic is always kept.
+	 * HUN: Egy sorozat felharmonikusai közül a csonkolás után megmaradók száma.
+	 * A sorozat ott vágódik, ahol a maradék effektív értéke a tűrés alá esik, valamint a frekvencia plafonnál. Az első felharmonikus mindig megmarad.
+	 * @param magnitude	Magnitude of the Fourier coefficient of the nth harmonic.
+	 * @param maxCount	Number of harmonics without truncation.
+	 */
+	int truncatedHarmonicCount(double fundamental, int firstHarmonic, int step, int maxCount, IntToDoubleFunction magnitude) {
+		synchronized (accessMutexObj)
+		{
+			int count = maxCount;
+			if (fundamental > 0 && harmonicFrequencyCeiling < Double.POSITIVE_INFINITY) {
+				double highest = Math.floor((harmonicFrequencyCeiling / fundamental - firstHarmonic) / step) + 1;
+				count = (int)Math.max(1, Math.min(count, highest));
+			}
+			if (harmonicTolerance > 0) {
+				double total = 0;
+				for (int i = 0; i < maxCount; i++) {
+					double m = magnitude.applyAsDouble(firstHarmonic + i * step);
+					total += m * m;
+				}
+				//The tail is summed from the end, until it would exceed the allowed energy:
+				double allowed = harmonicTolerance * harmonicTolerance * total;
+				double tail = 0;
+				int needed = maxCount;
+				while (needed > 1) {
+					double m = magnitude.applyAsDouble(firstHarmonic + (needed - 1) * step);
+					if (tail + m * m > allowed) {
+						break;
+					}
+					tail += m * m;
+					needed--;
+				}
+				count = Math.min(count, needed);
+			}
+			return count;
+		}
+	}
+
 	/**
 	 * Distance of merging and grabbing.
 	 * HUN: Az összeolvasztás és megfogás távolsága.
 	 */
 	int closeProximity = (int)(gridSize * 0.4);
 
+	private final FrequencyRegistry frequencyRegistry = new FrequencyRegistry(angularFrequencyComparisonEpsilon);
+
+	/**
+	 * List of the simulated frequencies for the components, refreshed from the registry, when the set of frequencies changed.
+	 * HUN: A szimulált frekvenciák listája a komponensek számára, a regisztrációból frissítve, ha a frekvenciák halmaza megváltozott.
+	 */
 	private final ArrayList<Double> simulatedAngularFrequencies = new ArrayList<Double>();
-	private final ArrayList<Integer> angularFrequencyReferenceCounter = new ArrayList<Integer>();
+	private int simulatedAngularFrequenciesVersion = -1;
 
 	public ArrayList<Double> getSimulatedAngularFrequencies()
 	{
 		synchronized (accessMutexObj)
 		{
+			if (simulatedAngularFrequenciesVersion != frequencyRegistry.getVersion()) {
+				simulatedAngularFrequencies.clear();
+				simulatedAngularFrequencies.ensureCapacity(frequencyRegistry.size());
+				for (int i = 0; i < frequencyRegistry.size(); i++) {
+					simulatedAngularFrequencies.add(frequencyRegistry.get(i));
+				}
+				simulatedAngularFrequenciesVersion = frequencyRegistry.getVersion();
+			}
 			return simulatedAngularFrequencies;
 		}
 	}
@@ -91,14 +339,13 @@ public class Network {
 		
 		componentNodes = new ArrayList<ComponentNode>();
 		components = new ArrayList<Component>();
+		nodeGrid = new SpatialGrid<ComponentNode>(gridSize);
+		componentGrid = new SpatialGrid<Component>(gridSize);
 
-		linSystem = null;
-		
 		//Create ground-node (index 0):
-		vertices.add(new Vertex());
+		addToVertices(new Vertex());
 
-		simulatedAngularFrequencies.add(0.0);	// DC component is always simulated
-		angularFrequencyReferenceCounter.add(1);	// Reference to the DC component
+		frequencyRegistry.request(0.0);	// DC component is always simulated
 	}
 
 	/**
@@ -109,25 +356,27 @@ public class Network {
 	{
 		synchronized (accessMutexObj)
 		{
-			for (int i = 0; i < simulatedAngularFrequencies.size(); i++) {
-				if (Math.abs(simulatedAngularFrequencies.get(i) - omega) < angularFrequencyComparisonEpsilon) {	// Already among simulated frequencies
-					angularFrequencyReferenceCounter.set(i, angularFrequencyReferenceCounter.get(i) + 1);
-					return i;
-				}
-				else if (simulatedAngularFrequencies.get(i) > omega)
-				{
-					simulatedAngularFrequencies.add(i, omega);	// Insert before the first larger frequency
-					angularFrequencyReferenceCounter.add(i, 1);
-					changedSetOfAngularFrequencies = true;
-					needRecalculation = true;
-					return i;
-				}
-			}
-			simulatedAngularFrequencies.add(omega);		// Append to the end
-			angularFrequencyReferenceCounter.add(1);
-			changedSetOfAngularFrequencies = true;
-			needRecalculation = true;
-			return simulatedAngularFrequencies.size() - 1;
+			int version = frequencyRegistry.getVersion();
+			int index = frequencyRegistry.request(omega);
+			frequencySetMayHaveChanged(version);
+			return index;
+		}
+	}
+
+	/**
+	 * Adds all the requested frequencies to the simulated frequencies in one pass, for example the harmonics of a periodic source.
+	 * HUN: Egy menetben adja hozzá az összes kért frekvenciát a szimulált frekvenciákhoz, például egy periodikus forrás felharmonikusait.
+	 * @param omegas	Requested angular frequencies.
+	 * @return The index of each requested frequency in the updated set of simulated frequencies.
+	 */
+	public int[] requestAngularFrequencies(double omegas[])
+	{
+		synchronized (accessMutexObj)
+		{
+			int version = frequencyRegistry.getVersion();
+			int indices[] = frequencyRegistry.requestAll(omegas);
+			frequencySetMayHaveChanged(version);
+			return indices;
 		}
 	}
 
@@ -135,21 +384,87 @@ public class Network {
 	{
 		synchronized (accessMutexObj)
 		{
-			for (int i = 0; i < simulatedAngularFrequencies.size(); i++) {
-				if (Math.abs(simulatedAngularFrequencies.get(i) - omega) < angularFrequencyComparisonEpsilon) {	//  Among simulated frequencies
-					int refCount = angularFrequencyReferenceCounter.get(i);
-					if (refCount > 1) {		// Other components also require the same frequency
-						angularFrequencyReferenceCounter.set(i, refCount - 1);
-					}
-					else {					// No other components require this frequency
-						angularFrequencyReferenceCounter.remove(i);
-						simulatedAngularFrequencies.remove(i);
-						changedSetOfAngularFrequencies = true;
-						needRecalculation = true;
-					}
-					return;
-				}
-			}
+			int version = frequencyRegistry.getVersion();
+			frequencyRegistry.release(omega);
+			frequencySetMayHaveChanged(version);
+		}
+	}
+
+	/**
+	 * Releases all the given frequencies in one pass. Frequencies required by no other component are removed.
+	 * HUN: Egy menetben engedi el az összes megadott frekvenciát. A más komponens által nem igényelt frekvenciák törlődnek.
+	 * @param omegas	Released angular frequencies.
+	 */
+	public void releaseAngularFrequencies(double omegas[])
+	{
+		synchronized (accessMutexObj)
+		{
+			int version = frequencyRegistry.getVersion();
+			frequencyRegistry.releaseAll(omegas);
+			frequencySetMayHaveChanged(version);
+		}
+	}
+
+	/**
+	 * Adds a series of harmonics of the fundamental frequency to the simulated frequencies in one pass:
+	 * firstHarmonic, firstHarmonic + step, ... times the fundamental, count of them.
+	 * HUN: Egy menetben adja hozzá az alapfrekvencia felharmonikusainak sorozatát a szimulált frekvenciákhoz:
+	 * az alapfrekvencia firstHarmonic, firstHarmonic + step, ... szorosát, count darabot.
+	 * @return The index of each harmonic in the updated set of simulated frequencies. Valid until {@link #getFrequencySetVersion()} changes.
+	 */
+	public int[] requestHarmonicSeries(double fundamental, int firstHarmonic, int step, int count)
+	{
+		return requestAngularFrequencies(harmonicSeries(fundamental, firstHarmonic, step, count));
+	}
+
+	/**
+	 * Releases a series of harmonics requested by {@link #requestHarmonicSeries(double, int, int, int)} in one pass.
+	 * HUN: Egy menetben engedi el a {@link #requestHarmonicSeries(double, int, int, int)} által kért felharmonikus sorozatot.
+	 */
+	public void releaseHarmonicSeries(double fundamental, int firstHarmonic, int step, int count)
+	{
+		releaseAngularFrequencies(harmonicSeries(fundamental, firstHarmonic, step, count));
+	}
+
+	/**
+	 * Looks up the indices of a series of harmonics among the simulated frequencies.
+	 * HUN: Kikeresi egy felharmonikus sorozat indexeit a szimulált frekvenciák között.
+	 * @return The index of each harmonic, or -1, if not simulated. Valid until {@link #getFrequencySetVersion()} changes.
+	 */
+	public int[] getHarmonicSeriesIndices(double fundamental, int firstHarmonic, int step, int count)
+	{
+		synchronized (accessMutexObj)
+		{
+			return frequencyRegistry.indicesOf(harmonicSeries(fundamental, firstHarmonic, step, count));
+		}
+	}
+
+	/**
+	 * Changes, whenever the set of simulated frequencies changes, and so the indices of the frequencies shift.
+	 * HUN: Megváltozik, valahányszor a szimulált frekvenciák halmaza változik, és így a frekvenciák indexei elcsúsznak.
+	 */
+	public int getFrequencySetVersion()
+	{
+		synchronized (accessMutexObj)
+		{
+			return frequencyRegistry.getVersion();
+		}
+	}
+
+	private static double[] harmonicSeries(double fundamental, int firstHarmonic, int step, int count)
+	{
+		double omegas[] = new double[count];
+		for (int i = 0; i < count; i++) {
+			omegas[i] = fundamental * (firstHarmonic + i * step);
+		}
+		return omegas;
+	}
+
+	private void frequencySetMayHaveChanged(int previousVersion)
+	{
+		if (frequencyRegistry.getVersion() != previousVersion) {
+			changedSetOfAngularFrequencies = true;
+			needRecalculation = true;
 		}
 	}
 
@@ -159,58 +474,124 @@ public class Network {
 	 * Returns the impedance of all the edges.
 	 * HUN: Visszaad egy vektort amiben az összes gráf-élhez rendelt ellenállás értékei vannak felsorolva
 	 * az élek, "edges" listában szereplő sorrendje szerint. 
-	 * @return	Vector of resistances. The order of elements of the vector is the same as the order of the edges in private ArrayList&lt;Edge&gt; edges.
+	 * @param impedances	Vector of resistances, that is filled. The order of elements of the vector is the same as the order of the edges in private ArrayList&lt;Edge&gt; edges.
 	 */
-	private Vector gatherImpedance(int k) {
-    	Vector impedances = new Vector(edges.size());
+	private void gatherImpedance(int k, Vector impedances) {
     	for (int i = 0; i < edges.size(); i++) {
-			impedances.setAt(i, edges.get(i).getImpedance().at(k));
+			Vector impedance = edges.get(i).getImpedance();
+			impedances.setAt(i, impedance.getRe(k), impedance.getIm(k));
     	}		
-    	return impedances;
 	}
 	
 	/**
 	 * Returns the source voltages of all the edges.
 	 * HUN: Visszaad egy vektort amiben az összes gráf-élhez rendelt feszültségforrás értékei vannak felsorolva
 	 * az élek, "edges" listában szereplő sorrendje szerint. 
-	 * @return Vector of source voltages. The order of elements of the vector is the same as the order of the edges in private ArrayList&lt;Edge&gt; edges.
+	 * @param sourceVoltages	Vector of source voltages, that is filled. The order of elements of the vector is the same as the order of the edges in private ArrayList&lt;Edge&gt; edges.
 	 */
-	private Vector gatherSourceVoltages(int k) {
-    	Vector sourceVoltages = new Vector(edges.size());
+	private void gatherSourceVoltages(int k, Vector sourceVoltages) {
     	for (int i = 0; i < edges.size(); i++) {
-    		sourceVoltages.setAt(i, edges.get(i).getSourceVoltage().at(k));
+    		Vector sourceVoltage = edges.get(i).getSourceVoltage();
+    		sourceVoltages.setAt(i, sourceVoltage.getRe(k), sourceVoltage.getIm(k));
     	}
-    	return sourceVoltages;
 	}
 	
 	/**
 	 * 
-	 * @return	Vector of currents inputed to individual vertices.
+	 * @param inputCurrents	Vector of currents inputed to individual vertices, that is filled.
 	 */
-	private Vector gatherInputCurrent(int k) {
-    	Vector inputCurrents = new Vector(vertices.size());
+	private void gatherInputCurrent(int k, Vector inputCurrents) {
     	for (int i = 0; i < vertices.size(); i++) {
-    		inputCurrents.setAt(i, vertices.get(i).getInputCurrent().at(k));
+    		Vector inputCurrent = vertices.get(i).getInputCurrent();
+    		inputCurrents.setAt(i, inputCurrent.getRe(k), inputCurrent.getIm(k));
     	}
-    	return inputCurrents;
 	}
 
 	/**
-	 * Uses Gaussian elimination, to get the current in all edges.
-	 * HUN: Gauss-elimináció segítségével kiszámolja a gráf-élekhez tartozó áramot. 
+	 * Uses the selected current solver, to get the current in all edges.
+	 * HUN: A kiválasztott áramszámító segítségével kiszámolja a gráf-élekhez tartozó áramot. 
 	 * Visszaad egy vektort amiben az összes gráf-élhez rendelt áram értékei vannak felsorolva
 	 * az élek, "edges" listában szereplő sorrendje szerint. 
+	 * The parameters are gathered into the buffers of the solver, so no allocation is needed after the first frequency.
 	 * @return Vector of currents. The order of elements of the vector is the same as the order of the edges in private ArrayList&lt;Edge&gt; edges.
 	 */
-	private Vector CalculateCurrent() {
+	private Vector CalculateCurrent(CurrentSolver solver, int k) {
+		if (solver.impedance.dimension != edges.size()) {
+			solver.impedance = new Vector(edges.size());
+			solver.sourceVoltage = new Vector(edges.size());
+		}
+		if (solver.inputCurrent.dimension != vertices.size()) {
+			solver.inputCurrent = new Vector(vertices.size());
+		}
+		gatherImpedance(k, solver.impedance);
+		gatherSourceVoltages(k, solver.sourceVoltage);
+		gatherInputCurrent(k, solver.inputCurrent);
+		solver.frequencyIndex = k;
 		try {
-			return Gauss.Eliminate(linSystem);			
+			return solver.solve(solver.impedance, solver.sourceVoltage, solver.inputCurrent);
 		}
 		catch (GaussException e) {
 			return null;
 		}
 	}
 
+	/**
+	 * Stores the calculated currents in the edges at the given frequency index. Zero currents are stored, if there is no solution.
+	 * HUN: Eltárolja a kiszámolt áramokat az élekben az adott frekvencia indexen. Ha nincs megoldás, nulla áramot tárol.
+	 * @param k	Index of the angular frequency.
+	 * @param current	Calculated currents or null.
+	 * @return	Whether there was a solution.
+	 */
+	private boolean storeCurrent(int k, Vector current) {
+		if (current != null) {
+			for (int i = 0; i < edges.size(); i++) {
+				edges.get(i).getCurrent().setAt(k, current.getRe(i), current.getIm(i));
+			}
+			return true;
+		}
+		else {
+			for (int i = 0; i < edges.size(); i++) {
+				edges.get(i).getCurrent().setAt(k, 0, 0);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Solves the frequencies on the evaluation pool. Each worker takes the next unsolved frequency index, until all are solved.
+	 * The validity of the network is decided by the last frequency, as in the sequential evaluation.
+	 * The current vectors are materialized before the dispatch, because the workers write different elements of the same vectors
+	 * and a lazily created array would be lost, if two workers created it at the same time.
+	 * HUN: Az egyes frekvenciákat a kiértékelő szálkészleten oldja meg. Minden munkás a következő megoldatlan frekvencia indexet veszi.
+	 * Az áram vektorok tárolója a szétosztás előtt létrejön, mert a munkások ugyanazon vektorok különböző elemeit írják,
+	 * és a lustán létrehozott tömb elveszne, ha két munkás egyszerre hozná létre.
+	 * @param noOfFrequencies	Number of simulated angular frequencies.
+	 */
+	private void evaluateInParallel(int noOfFrequencies) {
+		while (currentSolverWorkers.size() < parallelism) {
+			currentSolverWorkers.add(currentSolver.createWorker());
+		}
+		for (Edge edge : edges) {
+			edge.getCurrent().materialize();
+		}
+		AtomicInteger nextIndex = new AtomicInteger(0);
+		boolean valid[] = new boolean[noOfFrequencies];
+		ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for (int w = 0; w < parallelism; w++) {
+			CurrentSolver worker = currentSolverWorkers.get(w);
+			worker.evaluationPool = evaluationPool;
+			tasks.add(evaluationPool.submit(() -> {
+				for (int k = nextIndex.getAndIncrement(); k < noOfFrequencies; k = nextIndex.getAndIncrement()) {
+					valid[k] = storeCurrent(k, CalculateCurrent(worker, k));
+				}
+			}));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+		validNetwork = valid[noOfFrequencies - 1];
+	}
+
 	/**
 	 *
 	 * @param omega the angular frequency to search for
@@ -218,12 +599,9 @@ public class Network {
 	 * is not among simulated frequencies
 	 */
 	public int getAngularFrequencyIndex(double omega) {
-		for (int i = 0; i < simulatedAngularFrequencies.size(); i++) {
-			if (Math.abs(simulatedAngularFrequencies.get(i) - omega) < angularFrequencyComparisonEpsilon) {
-				return i;
-			}
+		synchronized (accessMutexObj) {
+			return frequencyRegistry.indexOf(omega);
 		}
-		return -1;
 	}
 
 	/**
@@ -237,6 +615,7 @@ public class Network {
 			}
 			needRecalculation = false;
 			System.out.println("\nCalculating system");
+			ArrayList<Double> simulatedAngularFrequencies = getSimulatedAngularFrequencies();
 			if (changedSetOfAngularFrequencies || forceEval) {
 				changedSetOfAngularFrequencies = false;
 				// Make sure that the ground vertex is always updated:
@@ -245,360 +624,245 @@ public class Network {
 					c.updateFrequencyDependentParameters(simulatedAngularFrequencies);
 				}
 			}
-			for (int k = 0; k < simulatedAngularFrequencies.size(); k++) {	// Finer time resolution
-
-				if (!edges.isEmpty()) {
-					//Graph representations:
-					Matrix incidence = new Matrix(0,0);
-					Matrix cycle = new Matrix(0,0);
-					DFS(incidence, cycle);
-
-					//Parameters:
-					Vector impedance = gatherImpedance(k);
-					Vector sourceVoltage = gatherSourceVoltages(k);
-					Vector inputCurrent = gatherInputCurrent(k);
-
-					//Create system:
-					linSystem = new LinearSystemForCurrent(incidence, cycle, impedance, sourceVoltage, inputCurrent);
-
-					//Calculate-current:
-					Vector current = CalculateCurrent();
-					if (current != null) {
-						validNetwork = true;
-						for (int i = 0; i < edges.size(); i++) {
-							edges.get(i).getCurrent().setAt(k, current.at(i));
-						}
-					}
-					else {
-						validNetwork = false;
-						for (int i = 0; i < edges.size(); i++) {
-							edges.get(i).getCurrent().setAt(k, new Complex(0, 0));
-						}
-					}
-				}
-				else {		// If no edges in the system
-					validNetwork = false;
-				}
+			if (edges.isEmpty()) {		// If no edges in the system
+				validNetwork = false;
+				return;
 			}
+			solveFrequencies(simulatedAngularFrequencies.size());
 		}
 	}
+
+	/**
+	 * Evaluates the network after a parameter of a component was edited. The setters of the components already updated the impedances
+	 * and sources of their edges, so the parameters of the other components are not updated again, and a solver keeping its factorizations
+	 * ({@link NodalCurrentSolver}) only updates them. Falls back to the full evaluation, if the edit changed the simulated frequencies or the structure.
+	 * HUN: Kiértékeli a hálózatot egy komponens paraméterének szerkesztése után. A komponensek setterei már frissítették az éleik impedanciáit
+	 * és forrásait, így a többi komponens paraméterei nem frissülnek újra, és a felbontásait megtartó áramszámító ({@link NodalCurrentSolver})
+	 * csak módosítja azokat. Teljes kiértékelést végez, ha a szerkesztés megváltoztatta a szimulált frekvenciákat vagy a szerkezetet.
+	 * @param component	The edited component.
+	 */
+	public void evaluateParameterChange(Component component) {
+		synchronized (accessMutexObj) {
+			if (changedSetOfAngularFrequencies || topologyVersion != structureVersion || !components.contains(component)) {
+				evaluate(true);
+				return;
+			}
+			needRecalculation = false;
+			if (edges.isEmpty()) {
+				validNetwork = false;
+				return;
+			}
+			solveFrequencies(getSimulatedAngularFrequencies().size());
+		}
+	}
+
+	/**
+	 * Solves the currents at every simulated frequency with the current parameters of the edges.
+	 * HUN: Minden szimulált frekvencián kiszámolja az áramokat az élek pillanatnyi paramétereivel.
+	 */
+	private void solveFrequencies(int noOfFrequencies) {
+		updateTopology();
+		currentSolver.evaluationPool = evaluationPool;
+		if (parallelism > 1 && noOfFrequencies > 1) {
+			evaluateInParallel(noOfFrequencies);
+		}
+		else {
+			for (int k = 0; k < noOfFrequencies; k++) {	// Finer time resolution
+				//Calculate-current:
+				validNetwork = storeCurrent(k, CalculateCurrent(currentSolver, k));
+			}
+		}
+		for (Edge e : edges) {		// Phasors of the time domain synthesis
+			e.updateVoltageDrop();
+		}
+	}
+
+	/**
+	 * Prepares the current solver for the structure of the graph, when it changed since the last preparation.
+	 * HUN: Előkészíti az áramszámítót a gráf szerkezetére, ha az megváltozott a legutóbbi előkészítés óta.
+	 */
+	private void updateTopology() {
+		if (topologyVersion == structureVersion) {
+			return;
+		}
+		currentSolver.prepare(getGraphSnapshot());
+		currentSolverWorkers.clear();
+		topologyVersion = structureVersion;
+	}
 	
 	
 	/**
 	 * Depth First Search algorithm.
 	 * HUN: Mélységi keresés.
 	 * A kapott mátrixokat feltölti a gráf-reprezentáció illeszkedési és alapkör mátrixával.
+	 * @param graph	Structure of the graph.
 	 * @param incidence	Incidence matrix to fill up. Will be filled with incidence matrix of the network as a graph.
 	 * @param cycle	Cycle matrix to fill up. Will be filled with base cycle matrix  of the network as a graph.
+	 * @see SpanningTree
 	 */
-	private void DFS (Matrix incidence, Matrix cycle) {
-		if (vertices.isEmpty()) {
-			throw new RuntimeException("No nodes to work with.");
+	static void DFS (GraphSnapshot graph, SparseMatrix incidence, SparseMatrix cycle) {
+		SpanningTree tree = new SpanningTree(graph);
+		tree.fillIncidence(incidence);
+		tree.fillCycles(cycle);
+	}
+
+	/**
+	 * Position of each vertex of the list, looked up by {@link Vertex#getIndex()}. For the vertex list of the network it is the identity,
+	 * for a part of it (an island for example) it maps the network indices to positions in the part. -1 for vertices not in the list.
+	 * HUN: A lista csúcsainak helye a {@link Vertex#getIndex()} szerint. A hálózat csúcslistájára az identitás,
+	 * egy részére (például egy szigetre) a hálózatbeli indexeket a részbeli helyekre képezi. A listában nem szereplő csúcsokra -1.
+	 * @param vertices	Vertices of the network or a part of them.
+	 * @return	Array indexed by {@link Vertex#getIndex()}.
+	 */
+	static int[] positionsOfVertices(ArrayList<Vertex> vertices) {
+		int size = 0;
+		for (Vertex vertex : vertices) {
+			size = Math.max(size, vertex.getIndex() + 1);
 		}
-		
-	    Vertex s = vertices.iterator().next();  //Starting vertex
-
-	    Map<Vertex, Integer> depth = new HashMap<Vertex, Integer>();
-	    Map<Vertex, Integer> finish = new HashMap<Vertex, Integer>();
-	    Map<Vertex, Vertex> previous = new HashMap<Vertex, Vertex>();
-	    Vertex current;
-	    int GreatestDepth;
-	    int GreatestFinish;
-
-	    ///Initialization:
-	    depth.put(s, 1);
-        previous.put(s, null);
-        finish.put(s, -1);
-
-	    ///Using -1 as undefined value:
-	    previous.put(s, null);
-	    for (Vertex iter : vertices) {
-	        if (iter != s) {
-	            depth.put(iter, -1);
-		        previous.put(iter, null);
-		        finish.put(iter, -1);
-	        }
-	    }
-
-	    GreatestDepth = 1;
-	    GreatestFinish = 0;
-	    current = s;
-
-	    ///Cycle:
-	    boolean run = true;
-	    while (run) {
-	        ///Finding adjacent vertex with (*) depth:
-	        Vertex v = current;	 
-	        for (Vertex iter : current.getOutgoing().keySet()) {
-	            if (depth.get(iter) != null && -1 == depth.get(iter)) {
-	                v = iter;
-	        		break;
-	            }
-	        }
-			if (current == v) {
-				//Also search in reversed edges:
-		        for (Vertex iter : current.getIncoming().keySet()) {
-		            if (depth.get(iter) != null && -1 == depth.get(iter)) {
-		                v = iter;
-		        		break;
-		            }
-		        }
-			}
-	        if (current != v) {		//Found adjacent vertex with (*) depth
-	            GreatestDepth++;
-	            depth.put(v, GreatestDepth);
-	            previous.put(v, current);	            		            	
-	            current = v;
-	        } else {
-	            GreatestFinish++;
-	            finish.put(current, GreatestFinish);
-	            if (null != previous.get(current)) {	//Backtracking
-	                current = previous.get(current);
-	            } else {
-	                ///Finding vertex with (*) depth:
-	                v = current;
-	                for (Vertex iter : vertices) {
-	                    if (-1 == depth.get(iter)) {
-	                        v = iter;
-	                        break;
-	                    }
-	                }
-	                if (current != v) { //Found adjacent vertex with (*) depth
-                        GreatestDepth = 1;
-                        depth.put(v, GreatestDepth);
-	                    current = v;
-	                } else {
-	                    run = false;
-	                }
-	            }
-	        }
-	    }
-	    
-	    incidence.copyWithResize(new Matrix(edges.size(), vertices.size()));
-	    incidence.fill(new Complex(0, 0));
-	    int noOfCycles = 0;             //First count the cycles:
-	    for (int i = 0; i < edges.size(); i++) {
-	    	Edge edge = edges.get(i);
-            incidence.setAt(i, vertices.indexOf(edge.getInput()), new Complex(1, 0));
-            incidence.setAt(i, vertices.indexOf(edge.getOutput()), new Complex(-1, 0));
-	        if (edge.getOutput() != previous.get(edge.getInput()) &&
-	        		edge.getInput() != previous.get(edge.getOutput())) {
-            	noOfCycles++;       	
-	        }
-	    }
-	    
-	    
-	    cycle.copyWithResize(new Matrix(edges.size(), noOfCycles));
-	    cycle.fill(new Complex(0, 0));
-	    int currentCycle = 0;
-	    for (int i = 0; i < edges.size() && currentCycle < noOfCycles; i++) {
-
-	    	Edge edge = edges.get(i);
-	        if (edge.getOutput() != previous.get(edge.getInput()) &&
-	        		edge.getInput() != previous.get(edge.getOutput())) {
-            	Vertex in = edge.getInput();
-            	Vertex out = edge.getOutput();
-            	int dIn = depth.get(in);
-	        	int dOut = depth.get(out);
-	        	if (dIn > dOut) {
-	        		//Backward edge
-        			cycle.setAt(i, currentCycle, new Complex(1, 0));
-	        		Vertex step = in;
-	        		while (step != out) {
-	        			if (previous.get(step) == null) {
-	        				//System.out.println("Null.");
-	        			}
-	        			Edge e = step.getIncoming().get(previous.get(step));
-	        			if (e != null) {
-		        			cycle.setAt(edges.indexOf(e), currentCycle, new Complex(1, 0));
-	        			}
-	        			else {
-	        				e = step.getOutgoing().get(previous.get(step));
-		        			cycle.setAt(edges.indexOf(e), currentCycle, new Complex(-1, 0));
-	        			}
-	        				        			
-        				step = previous.get(step);
-	        		}
-	        	}
-	        	else if (dIn < dOut) {
-	        		//Forward edge
-        			cycle.setAt(i, currentCycle, new Complex(-1, 0));
-	        		Vertex step = out;
-	        		while (step != in) {
-	        			Edge e = step.getIncoming().get(previous.get(step));
-	        			if (e != null) {
-		        			cycle.setAt(edges.indexOf(e), currentCycle, new Complex(1, 0));
-	        			}
-	        			else {
-	        				e = step.getOutgoing().get(previous.get(step));
-		        			cycle.setAt(edges.indexOf(e), currentCycle, new Complex(-1, 0));
-	        			}
-
-	        			step = previous.get(step);
-	        		}
-	        	}
-	        	else {
-	        		//Cross edge
-	        		throw new RuntimeException("Cross found despite of DFS on undirected graph!");
-	        		
-	        		/*
-	        		cycle.setAt(i, currentCycle, 1);
-	        		Vertex step1 = in;
-	        		Vertex step2 = out;
-	        		while (step1 != step2) {
-	        			cycle.setAt(edges.indexOf(previous.get(step1)), currentCycle, 1);
-	        			cycle.setAt(edges.indexOf(previous.get(step2)), currentCycle, -1);
-        				step1 = previous.get(step1);
-        				step2 = previous.get(step2);
-	        		}
-	        		*/	        		
-	        	}
-	        	currentCycle++;
-	        }
-	    }     	    
-	}
-
-	private void offsetAndNormalizePotentialsToZeroMinimum(ArrayList<Double> potentials, List<List<Vertex>> islands) {
-		for (var island : islands) {
-			int i = vertices.indexOf(island.get(0));
-			double min = potentials.get(i);
-			double max = potentials.get(i);
-			for (var vertex : island) {
-				int j = vertices.indexOf(vertex);
-				if (min > potentials.get(j)) {
-					min = potentials.get(j);
-				}
-				if (max < potentials.get(j)) {
-					max = potentials.get(j);
-				}
+		int position[] = new int[size];
+		Arrays.fill(position, -1);
+		for (int i = 0; i < vertices.size(); i++) {
+			position[vertices.get(i).getIndex()] = i;
+		}
+		return position;
+	}
+
+	/**
+	 * Position of each edge of the list, looked up by {@link Edge#getIndex()}. See {@link #positionsOfVertices(ArrayList)}.
+	 * HUN: A lista éleinek helye az {@link Edge#getIndex()} szerint.
+	 * @param edges	Edges of the network or a part of them.
+	 * @return	Array indexed by {@link Edge#getIndex()}.
+	 */
+	static int[] positionsOfEdges(ArrayList<Edge> edges) {
+		int size = 0;
+		for (Edge edge : edges) {
+			size = Math.max(size, edge.getIndex() + 1);
+		}
+		int position[] = new int[size];
+		Arrays.fill(position, -1);
+		for (int i = 0; i < edges.size(); i++) {
+			position[edges.get(i).getIndex()] = i;
+		}
+		return position;
+	}
+
+	/**
+	 * Shifts and scales the potentials of each island into [0, 1].
+	 * HUN: Minden sziget potenciáljait a [0, 1] intervallumba tolja és skálázza.
+	 */
+	private void offsetAndNormalizePotentialsToZeroMinimum(GraphSnapshot graph) {
+		for (int i = 0; i < graph.getNoOfIslands(); i++) {
+			islandMinimum[i] = potentials[graph.getFirstOfIsland(i)];
+			islandMaximum[i] = islandMinimum[i];
+		}
+		for (int j = 0; j < potentials.length; j++) {
+			int i = graph.getIsland(j);
+			if (islandMinimum[i] > potentials[j]) {
+				islandMinimum[i] = potentials[j];
 			}
-			for (var vertex : island) {
-				int j = vertices.indexOf(vertex);
-				double pot = (potentials.get(j) - min) / (max - min);
-				potentials.set(j, pot);
+			if (islandMaximum[i] < potentials[j]) {
+				islandMaximum[i] = potentials[j];
 			}
 		}
+		for (int j = 0; j < potentials.length; j++) {
+			int i = graph.getIsland(j);
+			potentials[j] = (potentials[j] - islandMinimum[i]) / (islandMaximum[i] - islandMinimum[i]);
+		}
 	}
 		
-	/*
-	 * Return vector of potentials of vertices 
+	/**
+	 * Potentials of the vertices from the time domain voltage drops of the edges, normalized into [0, 1] in each island.
+	 * The potentials are propagated from the first vertex of each island along a spanning forest, that is built again only when the structure changes,
+	 * so a call takes linear time and does not allocate memory.
+	 * HUN: A csúcsok potenciálja az élek időtartománybeli feszültségeséséből, szigetenként a [0, 1] intervallumba normálva.
+	 * A potenciálok minden sziget első csúcsából egy feszítő erdő mentén terjednek, ami csak a szerkezet változásakor épül újra,
+	 * így egy hívás lineáris idejű és nem foglal memóriát.
+	 * @return	Potential of each vertex by index. The array is reused by the next call.
 	 */
-	private ArrayList<Double> discoverPotential_BFS() {
+	private double[] discoverPotentials() {
 		if (vertices.isEmpty()) {
 			throw new RuntimeException("No nodes to work with.");
 		}
-		ArrayList<Double> potentials = new ArrayList<>(vertices.size());
-		for (int i = 0; i < vertices.size(); i++)
-		{
-			potentials.add(0.5);
-		}
-
-	    Vertex s = vertices.iterator().next();  //Starting vertex
-
-	    Map<Vertex, Boolean> finished = new HashMap<Vertex, Boolean>();
-	    Map<Vertex, Vertex> previous = new HashMap<Vertex, Vertex>();
-	    List<Vertex> traversed = new ArrayList<Vertex>();
-	    Vertex current;
-
-	    List<List<Vertex>> islands = new ArrayList<>();
-	    islands.add(new ArrayList<Vertex>());
-	    
-	    ///Initialization:
-        previous.put(s, null);
-        finished.put(s, false);        
-        traversed.add(s);
-		islands.get(0).add(s);
-
-        for (Vertex iter : vertices) {
-	        if (iter != s) {
-		        previous.put(iter, null);
-		        finished.put(iter, false);
-	        }
-	    }
-
-	    current = s;
-
-	    ///Cycle:
-	    boolean run = true;
-	    while (run) {
-	    	//System.out.println("Begin BFS loop.");
-	        ///Finding undiscovered adjacent vertex:
-	    	boolean foundChild = false;
-	        for (Vertex child : current.getOutgoing().keySet()) {
-	            if (!traversed.contains(child)) {
-	    	    	//System.out.println("Found outgoing: " + vertices.indexOf(child));
-	    	    	traversed.add(child);
-	            	previous.put(child, current);
-	                current = child;
-	                foundChild = true;
-					break;
-	            }
-	        }
-			if (!foundChild) {
-				//Also search in reversed edges:
-		        for (Vertex child : current.getIncoming().keySet()) {
-		            if (!traversed.contains(child)) {
-		    	    	//System.out.println("Found incoming: " + vertices.indexOf(child));
-		            	traversed.add(child);
-		            	previous.put(child, current);
-		                current = child;
-		                foundChild = true;
-						break;
-		            }
-		        }
+		GraphSnapshot graph = getGraphSnapshot();
+		if (potentialTree == null || potentialTree.graph != graph) {
+			potentialTree = new SpanningTree(graph);
+			potentials = new double[graph.getNoOfVertices()];
+			islandMinimum = new double[graph.getNoOfIslands()];
+			islandMaximum = new double[graph.getNoOfIslands()];
+		}
+
+		int order[] = potentialTree.order;
+		int parent[] = potentialTree.parent;
+		int parentEdge[] = potentialTree.parentEdge;
+		for (int t = 0; t < order.length; t++) {
+			int v = order[t];
+			if (parent[v] < 0) {
+				potentials[v] = 0.5;		//First vertex of an island
+				continue;
 			}
-	        if (!foundChild) {
-				//System.out.println("Vertex finished: " + vertices.indexOf(current));
-    	    	finished.put(current, true);	// No untraversed children left.
-	            if (null != previous.get(current)) {	//Backtracking
-	    	    	//System.out.println("Backtracking from " + vertices.indexOf(current));
-	                current = previous.get(current);
-				} else {
-					//System.out.println("No edges from vertex: " + vertices.indexOf(current));
-	                ///Finding untraversed vertex:
-	                boolean foundUntraversed = false;
-	                for (Vertex iter : vertices) {
-	                    if (!traversed.contains(iter)) {
-	                    	foundUntraversed = true;
-			            	traversed.add(iter);
-	                        current = iter;
-							islands.add(new ArrayList<>());	// New island
-							islands.get(islands.size() - 1).add(current);
-							break;
-	                    }
-	                }
-	                if (!foundUntraversed) {
-	                    run = false;
-	                }
-	            }
-	        }
-	        else {
-				islands.get(islands.size() - 1).add(current);
-				double voltageDrop = 0;
-				if (current.getIncoming().containsKey(previous.get(current))) {
-					voltageDrop = current.getIncoming().get(previous.get(current)).getTimeDomainVoltageDrop();
-				}
-				else if (current.getOutgoing().containsKey(previous.get(current))) {
-					voltageDrop = -current.getOutgoing().get(previous.get(current)).getTimeDomainVoltageDrop();
-				}
-				else {
-					throw new RuntimeException("Wrong previous vertex!");
-				}
-				double potential = potentials.get(vertices.indexOf(previous.get(current))) - voltageDrop;
-				//System.out.println("Potential: " + potential);
-				potentials.set(vertices.indexOf(current), potential);
-	        }
-	    }
+			int e = parentEdge[v];
+			double voltageDrop = edges.get(e).getTimeDomainVoltageDrop();
+			if (graph.edgeOutput[e] != v) {
+				voltageDrop = -voltageDrop;		//Reversed edge
+			}
+			potentials[v] = potentials[parent[v]] - voltageDrop;
+		}
 		
-		offsetAndNormalizePotentialsToZeroMinimum(potentials, islands);
-
-
+		offsetAndNormalizePotentialsToZeroMinimum(graph);
 		return potentials;
 	}
 
 	
 	//Access edges and nodes:-----------------------------------------------------------------------------------
 	//No other method allowed to manipulate edges nor nodes from outside the network. 
+
+	/**
+	 * Appends a vertex to the vertex list and sets its index.
+	 * HUN: A csúcslista végére fűz egy csúcsot, és beállítja az indexét.
+	 */
+	private void addToVertices(Vertex vertex) {
+		vertex.setIndex(vertices.size());
+		vertices.add(vertex);
+	}
+
+	/**
+	 * Removes a vertex from the vertex list in constant time. The last vertex is moved to its place, so the indices stay dense.
+	 * The ground vertex is never removed, so it keeps index 0.
+	 * HUN: Konstans időben töröl egy csúcsot a csúcslistából. Az utolsó csúcs kerül a helyére, így az indexek folytonosak maradnak.
+	 * A föld csúcs sosem törlődik, így megtartja a 0 indexet.
+	 */
+	private void removeFromVertices(Vertex vertex) {
+		int i = vertex.getIndex();
+		Vertex last = vertices.remove(vertices.size() - 1);
+		if (last != vertex) {
+			vertices.set(i, last);
+			last.setIndex(i);
+		}
+		vertex.setIndex(-1);
+	}
+
+	/**
+	 * Appends an edge to the edge list and sets its index.
+	 * HUN: Az éllista végére fűz egy élet, és beállítja az indexét.
+	 */
+	private void addToEdges(Edge edge) {
+		edge.setIndex(edges.size());
+		edges.add(edge);
+	}
+
+	/**
+	 * Removes an edge from the edge list in constant time. The last edge is moved to its place, so the indices stay dense.
+	 * HUN: Konstans időben töröl egy élet az éllistából. Az utolsó él kerül a helyére, így az indexek folytonosak maradnak.
+	 */
+	private void removeFromEdges(Edge edge) {
+		int i = edge.getIndex();
+		Edge last = edges.remove(edges.size() - 1);
+		if (last != edge) {
+			edges.set(i, last);
+			last.setIndex(i);
+		}
+		edge.setIndex(-1);
+	}
 	
 	/**
 	 * Adds a new Edge to the network's graph representation. Generates two vertices to the new edge.
@@ -617,10 +881,10 @@ public class Network {
 			input.addOutgoing(output, edge);
 			output.addIncoming(input, edge);
 
-			edges.add(edge);
-			vertices.add(input);
-			vertices.add(output);
-			needRecalculation = true;
+			addToEdges(edge);
+			addToVertices(input);
+			addToVertices(output);
+			structureChanged();
 		}
 	}
 
@@ -635,9 +899,9 @@ public class Network {
 			input.addOutgoing(this.vertices.get(0), edge);
 			this.vertices.get(0).addIncoming(input, edge);
 
-			edges.add(edge);
-			vertices.add(input);
-			needRecalculation = true;
+			addToEdges(edge);
+			addToVertices(input);
+			structureChanged();
 		}
 	}
 	
@@ -649,21 +913,21 @@ public class Network {
 	public void removeEdge(Edge edge) {
 		synchronized (accessMutexObj)
 		{
-			if (edge.getInput().getNoOfIncoming() == 0 && edge.getInput().getNoOfOutgoing() == 1 && vertices.indexOf(edge.getInput()) != 0) {
-				vertices.remove(edge.getInput());
+			if (edge.getInput().getNoOfIncoming() == 0 && edge.getInput().getNoOfOutgoing() == 1 && edge.getInput().getIndex() != 0) {
+				removeFromVertices(edge.getInput());
 			}
 			else {
 				edge.getInput().removeOutgoing(edge.getOutput());
 			}
-			if (edge.getOutput().getNoOfIncoming() == 1 && edge.getOutput().getNoOfOutgoing() == 0 && vertices.indexOf(edge.getOutput()) != 0) {
-				vertices.remove(edge.getOutput());
+			if (edge.getOutput().getNoOfIncoming() == 1 && edge.getOutput().getNoOfOutgoing() == 0 && edge.getOutput().getIndex() != 0) {
+				removeFromVertices(edge.getOutput());
 			}
 			else {
 				edge.getOutput().removeIncoming(edge.getInput());
 			}
 
-			edges.remove(edge);
-			needRecalculation = true;
+			removeFromEdges(edge);
+			structureChanged();
 		}
 	}
 	
@@ -676,13 +940,13 @@ public class Network {
 	 */
 	protected void disconnectEndOfEdge(Edge edge, Vertex vertex) {
 		if (vertex.equals(edge.getInput())) {
-			if (vertices.indexOf(vertex) != 0 && (edge.getInput().getNoOfOutgoing() > 1 || edge.getInput().getNoOfIncoming() > 0)) {
+			if (vertex.getIndex() != 0 && (edge.getInput().getNoOfOutgoing() > 1 || edge.getInput().getNoOfIncoming() > 0)) {
 				//Clone input vertex:
 				Vertex prevIn = edge.getInput();
 				Vertex prevOut = edge.getOutput();
 				
 				Vertex newIn = new Vertex();
-				getVertices().add(newIn);
+				addToVertices(newIn);
 				
 				newIn.addOutgoing(prevOut, edge);
 				edge.setInput(newIn);
@@ -691,6 +955,7 @@ public class Network {
 				
 				prevIn.removeOutgoing(prevOut);
 				edge.setInput(newIn);
+				structureChanged();
 			}
 		}
 		
@@ -701,7 +966,7 @@ public class Network {
 				Vertex prevOut = edge.getOutput();
 				
 				Vertex newOut = new Vertex();
-				getVertices().add(newOut);
+				addToVertices(newOut);
 				
 				newOut.addIncoming(prevIn, edge);
 				edge.setOutput(newOut);
@@ -710,6 +975,7 @@ public class Network {
 				
 				prevOut.removeIncoming(prevIn);			
 				edge.setOutput(newOut);
+				structureChanged();
 			}
 		}
 		
@@ -738,7 +1004,8 @@ public class Network {
 				outgoing.getValue().setInput(persistent);
 				persistent.addOutgoing(outgoing.getKey(), outgoing.getValue());
 			}
-			vertices.remove(merge);
+			removeFromVertices(merge);
+			structureChanged();
 		}
 	}
 	
@@ -756,6 +1023,7 @@ public class Network {
 			component.setParent(this);
 			component.build();
 			components.add(component);
+			indexComponent(component);
 			needRecalculation = true;
 		}
 	}
@@ -770,6 +1038,7 @@ public class Network {
 		{
 			component.destroy();
 			components.remove(component);
+			componentGrid.remove(component);
 			needRecalculation = true;
 		}
 	}
@@ -901,7 +1170,18 @@ public class Network {
 	}
 
 	public void setGridSize(int gridSize) {
-		this.gridSize = gridSize;
+		synchronized (accessMutexObj)
+		{
+			this.gridSize = gridSize;
+			nodeGrid = new SpatialGrid<ComponentNode>(gridSize);
+			componentGrid = new SpatialGrid<Component>(gridSize);
+			for (ComponentNode componentNode : componentNodes) {
+				indexComponentNode(componentNode);
+			}
+			for (Component component : components) {
+				indexComponent(component);
+			}
+		}
 	}
 
 	/**
@@ -930,7 +1210,7 @@ public class Network {
 			//Clone input:
 			ComponentNode prevInput = component.getInput();
 			ComponentNode newInput = new ComponentNode(prevInput.getParent());
-			componentNodes.add(newInput);
+			addComponentNode(newInput);
 			
 			newInput.setPos(prevInput.getPos());
 			newInput.setMerge(true);
@@ -944,7 +1224,7 @@ public class Network {
 			//Clone output:
 			ComponentNode prevOutput = component.getOutput();
 			ComponentNode newOutput = new ComponentNode(prevOutput.getParent());
-			componentNodes.add(newOutput);
+			addComponentNode(newOutput);
 			
 			newOutput.setPos(prevOutput.getPos());
 			newOutput.setMerge(true);
@@ -957,9 +1237,9 @@ public class Network {
 	}
 	
 	/**
-	 * Tries to merge a given node to any of the other nodes.
+	 * Tries to merge a given node to the closest of the other nodes.
 	 * Conditions of a successful merge are, that the other node must be in the close proximity of this node and
-	 * they can not be neighbor of each other.
+	 * they can not be neighbor of each other. The candidates are looked up in the grid hash of the nodes.
 	 * HUN: Megpróbál találni egy adott csomóponthoz egy másik csomópontot, amellyel összeolvaszthatja az adott csomópontot.
 	 * Az összeolvasztás feltételei, hogy a másik csomópontnak "közel kell lennie" ( closeProximity )
 	 * és nem lehetnek szomszédosak.
@@ -968,38 +1248,179 @@ public class Network {
 	 * @return	True, when the merging attempt was successful.
 	 */
 	protected boolean tryToMergeComponentNode(ComponentNode componentNode) {
-		for (ComponentNode iter : componentNodes) {
-			if (iter != componentNode) {
-				if (closeProximity > MyMath.magnitude(MyMath.subtract(componentNode.getPos(), iter.getPos()))) {
-					if (!componentNode.isNeighbouring(iter)) {
-						//Merge needed:
-						for (Component incoming : componentNode.getIncoming()) {
-							incoming.setOutput(iter);
-							iter.addIncoming(incoming);
-						}
-						for (Component outgoing : componentNode.getOutgoing()) {
-							outgoing.setInput(iter);
-							iter.addOutgoing(outgoing);
-						}
-						
-						if (componentNode.getVertexBinding() != null && iter.getVertexBinding() != null) {
-							mergeVertices(iter.getVertexBinding(), componentNode.getVertexBinding());
-						}
-						else {
-							throw new RuntimeException("ComponentNode does not contain reference to actual node.");
-						}
-
-						componentNodes.remove(componentNode);
-
-						return true;						
-					}
-					else {
-						throw new RuntimeException("Neighbours!");
-					}
+		if (batchConstruction) {
+			batchNodes.add(componentNode);		//Merged at the end of the batch
+			return false;
+		}
+		ComponentNode iter = closestMergeCandidate(componentNode, null);
+		if (iter == null) {
+			return false;
+		}
+		mergeComponentNodes(iter, componentNode);
+		removeComponentNode(componentNode);
+		return true;
+	}
+
+	/**
+	 * The closest other node in close proximity of the given node, looked up in the grid hash of the nodes.
+	 * HUN: A megadott csomóponthoz "közeli" (closeProximity) legközelebbi másik csomópont, a csomópontok rács hash-éből.
+	 * @param componentNode	The node to be merged.
+	 * @param excluded	Nodes, that can not be candidates, or null.
+	 * @return	The closest candidate or null, if there is none.
+	 */
+	private ComponentNode closestMergeCandidate(ComponentNode componentNode, Set<ComponentNode> excluded) {
+		Coordinate pos = componentNode.getPos();
+		nodeGrid.collect(pos.x, pos.y, closeProximity, nodeCandidates);
+		ComponentNode closest = null;
+		double closestDistance = closeProximity;
+		for (ComponentNode candidate : nodeCandidates) {
+			if (candidate == componentNode || (excluded != null && excluded.contains(candidate))) {
+				continue;
+			}
+			double distance = distance(candidate.getPos(), pos.x, pos.y);
+			if (distance < closestDistance) {
+				closest = candidate;
+				closestDistance = distance;
+			}
+		}
+		return closest;
+	}
+
+	/**
+	 * Moves the components and the vertex of a node to an other node. The merged node is not removed from the nodes of the board.
+	 * HUN: Átköti egy csomópont komponenseit és csúcsát egy másik csomópontra. Az összeolvasztott csomópontot nem veszi ki a tábla csomópontjai közül.
+	 * @param persistent	The node, that remains.
+	 * @param componentNode	The node, that is merged into the other.
+	 */
+	private void mergeComponentNodes(ComponentNode persistent, ComponentNode componentNode) {
+		if (componentNode.isNeighbouring(persistent)) {
+			throw new RuntimeException("Neighbours!");
+		}
+		for (Component incoming : componentNode.getIncoming()) {
+			incoming.setOutput(persistent);
+			persistent.addIncoming(incoming);
+		}
+		for (Component outgoing : componentNode.getOutgoing()) {
+			outgoing.setInput(persistent);
+			persistent.addOutgoing(outgoing);
+		}
+		
+		if (componentNode.getVertexBinding() != null && persistent.getVertexBinding() != null) {
+			mergeVertices(persistent.getVertexBinding(), componentNode.getVertexBinding());
+		}
+		else {
+			throw new RuntimeException("ComponentNode does not contain reference to actual node.");
+		}
+	}
+
+	/**
+	 * Starts the construction of many components. Until {@link #endBatchConstruction()} the released nodes are only collected,
+	 * so the components can be added and placed without looking for merges and without evaluations in between.
+	 * HUN: Elkezdi sok komponens létrehozását. Az {@link #endBatchConstruction()} hívásáig az elengedett csomópontokat csak összegyűjti,
+	 * így a komponensek összeolvasztás keresése és közbenső kiértékelések nélkül adhatók hozzá és helyezhetők el.
+	 */
+	public void beginBatchConstruction() {
+		synchronized (accessMutexObj)
+		{
+			batchConstruction = true;
+		}
+	}
+
+	/**
+	 * Ends the construction started by {@link #beginBatchConstruction()}. The collected nodes are merged in one pass, in the order of their release,
+	 * each into the closest node in close proximity, that was on the board before or was released earlier. The merged nodes are removed from the board at once.
+	 * Then the set of frequencies is reconciled and the network is evaluated once.
+	 * HUN: Befejezi a {@link #beginBatchConstruction()} által kezdett létrehozást. Az összegyűjtött csomópontokat egy menetben, az elengedésük sorrendjében olvasztja össze,
+	 * mindegyiket a hozzá legközelebbi olyan "közeli" csomóponttal, ami korábban is a táblán volt, vagy korábban lett elengedve. Az összeolvasztott csomópontokat egyszerre veszi ki.
+	 * Ezután egyszer egyezteti a frekvenciák halmazát és értékeli ki a hálózatot.
+	 */
+	public void endBatchConstruction() {
+		synchronized (accessMutexObj)
+		{
+			batchConstruction = false;
+			Set<ComponentNode> pending = new HashSet<ComponentNode>(batchNodes);
+			Set<ComponentNode> merged = new HashSet<ComponentNode>();
+			for (ComponentNode componentNode : batchNodes) {
+				if (!pending.remove(componentNode) || !nodeGrid.contains(componentNode)) {
+					continue;		//Already merged or removed from the board
+				}
+				ComponentNode persistent = closestMergeCandidate(componentNode, pending);
+				if (persistent != null) {
+					mergeComponentNodes(persistent, componentNode);
+					nodeGrid.remove(componentNode);
+					merged.add(componentNode);
 				}
 			}
+			batchNodes.clear();
+			if (!merged.isEmpty()) {
+				componentNodes.removeAll(merged);
+			}
+			evaluate(true);
 		}
-		return false;
+	}
+
+	/**
+	 * Adds an end node to the nodes of the board.
+	 * HUN: Hozzáad egy végpontot a tábla csomópontjaihoz.
+	 */
+	void addComponentNode(ComponentNode componentNode) {
+		componentNodes.add(componentNode);
+		indexComponentNode(componentNode);
+	}
+
+	/**
+	 * Removes an end node from the nodes of the board.
+	 * HUN: Eltávolít egy végpontot a tábla csomópontjai közül.
+	 */
+	void removeComponentNode(ComponentNode componentNode) {
+		componentNodes.remove(componentNode);
+		nodeGrid.remove(componentNode);
+	}
+
+	/**
+	 * Must be called after a node of the board moved. Moves the node and its components in the grid hashes.
+	 * HUN: Egy csomópont mozgatása után kell meghívni. Áthelyezi a csomópontot és a komponenseit a rács hash-ekben.
+	 */
+	void componentNodeMoved(ComponentNode componentNode) {
+		if (nodeGrid.contains(componentNode)) {
+			indexComponentNode(componentNode);
+		}
+		for (Component incoming : componentNode.getIncoming()) {
+			componentMoved(incoming);
+		}
+		for (Component outgoing : componentNode.getOutgoing()) {
+			componentMoved(outgoing);
+		}
+	}
+
+	/**
+	 * Must be called after an end node of a component moved or was replaced. Moves the component in the grid hash.
+	 * HUN: Egy komponens végpontjának mozgatása vagy cseréje után kell meghívni. Áthelyezi a komponenst a rács hash-ben.
+	 */
+	void componentMoved(Component component) {
+		if (componentGrid.contains(component)) {
+			indexComponent(component);
+		}
+	}
+
+	private void indexComponentNode(ComponentNode componentNode) {
+		Coordinate pos = componentNode.getPos();
+		nodeGrid.put(componentNode, pos.x, pos.y, pos.x, pos.y);
+	}
+
+	private void indexComponent(Component component) {
+		if (component.getInput() == null || component.getOutput() == null) {
+			return;
+		}
+		Coordinate in = component.getInput().getPos();
+		Coordinate out = component.getOutput().getPos();
+		componentGrid.put(component, in.x, in.y, out.x, out.y);
+	}
+
+	private static double distance(Coordinate a, int x, int y) {
+		double dx = a.x - x;
+		double dy = a.y - y;
+		return Math.sqrt(dx * dx + dy * dy);
 	}
 
 	public ArrayList<Component> getComponents() {
@@ -1017,50 +1438,64 @@ public class Network {
 	}
 	
 	/**
-	 * Gives a ComponentNode, in close proximity to the given Coordinate.
-	 * HUN: Visszaad egy csomópontot, ami "közel van" (closeProximity) az adott pozícióhoz.
+	 * Gives a ComponentNode, in close proximity to the given Coordinate. If there are more, the closest one.
+	 * HUN: Visszaad egy csomópontot, ami "közel van" (closeProximity) az adott pozícióhoz. Ha több is van, a legközelebbit.
 	 * @param pos	The position.
 	 * @return	ComponentNode, in close proximity to the given Coordinate or null, if there is no ComponentNode in close proximity.
 	 */
 	public ComponentNode getNodeAtPos(Coordinate pos) {
 		synchronized (accessMutexObj)
 		{
-			for (ComponentNode iter : componentNodes) {
-				if (MyMath.magnitude(MyMath.subtract(iter.getPos(), pos)) < 10) {
-					return iter;
+			nodeGrid.collect(pos.x, pos.y, 10, nodeCandidates);
+			ComponentNode nearest = null;
+			double nearestDistance = 10;
+			for (ComponentNode iter : nodeCandidates) {
+				double distance = distance(iter.getPos(), pos.x, pos.y);
+				if (distance < nearestDistance) {
+					nearest = iter;
+					nearestDistance = distance;
 				}
 			}
-			return null;
+			return nearest;
 		}
 	}
 	
 	/**
-	 * Gives a Component, in close proximity to the given Coordinate.
-	 * HUN: Visszaad egy komponenst, ami "közel van" (closeProximity) az adott pozícióhoz.
+	 * Gives a Component, in close proximity to the given Coordinate. If there are more, the closest one.
+	 * HUN: Visszaad egy komponenst, ami "közel van" (closeProximity) az adott pozícióhoz. Ha több is van, a legközelebbit.
 	 * @param cursorPos The position.
 	 * @return ComponentNode, in close proximity to the given Coordinate or null, if there is no ComponentNode in close proximity.
 	 */
 	public Component getComponentAtPos(Coordinate cursorPos) {
 		synchronized (accessMutexObj)
 		{
-			for (Component component : components) {
-				Vector inPos = MyMath.coordToVector(component.getInput().getPos());
-				Vector outPos = MyMath.coordToVector(component.getOutput().getPos());
-				Vector cursor = MyMath.coordToVector(cursorPos);
-
-				Vector fromInToCursor = MyMath.subtract(cursor, inPos);
-				Vector fromOutToCursor = MyMath.subtract(cursor, outPos);
-
-				Vector fromInToOut = MyMath.subtract(outPos, inPos);
-
-				if (MyMath.dot(fromInToCursor, fromInToOut) > 0 && MyMath.dot(fromOutToCursor, fromInToOut) < 0) {
-					double distance = MyMath.magnitude(MyMath.reject(fromInToCursor, fromInToOut));
-					if (distance < closeProximity) {
-						return component;
+			componentGrid.collect(cursorPos.x, cursorPos.y, closeProximity, componentCandidates);
+			Component nearest = null;
+			double nearestDistance = closeProximity;
+			for (Component component : componentCandidates) {
+				Coordinate inPos = component.getInput().getPos();
+				Coordinate outPos = component.getOutput().getPos();
+
+				double fromInToCursorX = cursorPos.x - inPos.x;
+				double fromInToCursorY = cursorPos.y - inPos.y;
+				double fromOutToCursorX = cursorPos.x - outPos.x;
+				double fromOutToCursorY = cursorPos.y - outPos.y;
+
+				double fromInToOutX = outPos.x - inPos.x;
+				double fromInToOutY = outPos.y - inPos.y;
+
+				if (fromInToCursorX * fromInToOutX + fromInToCursorY * fromInToOutY > 0
+						&& fromOutToCursorX * fromInToOutX + fromOutToCursorY * fromInToOutY < 0) {
+					//Distance from the line of the component:
+					double distance = Math.abs(fromInToCursorX * fromInToOutY - fromInToCursorY * fromInToOutX)
+							/ Math.sqrt(fromInToOutX * fromInToOutX + fromInToOutY * fromInToOutY);
+					if (distance < nearestDistance) {
+						nearest = component;
+						nearestDistance = distance;
 					}
 				}
 			}
-			return null;
+			return nearest;
 		}
 	}
 	
@@ -1092,12 +1527,15 @@ public class Network {
 	
 	/**
 	 * Loads network layout from the given file. Discards previous layout.
+	 * The components are constructed in a batch: their nodes are merged in one pass and the network is evaluated once at the end.
 	 * HUN: Betölti a hálózatot.
+	 * A komponensek kötegelten jönnek létre: a csomópontjaik egy menetben olvadnak össze, és a hálózat a végén egyszer értékelődik ki.
 	 * @param fileName {@link String} The name of file, from which the persistent information gets loaded.
 	 */
 	public void load(String fileName) {
 		synchronized (accessMutexObj)
 		{
+			beginBatchConstruction();
 			try {
 				FileReader input = new FileReader(fileName);
 
@@ -1127,11 +1565,14 @@ public class Network {
 
 				}
 				reader.close();
+				endBatchConstruction();
 			} catch (Exception e) {
 					throw new RuntimeException("Load error!", e);
 			}
 			finally {
-				needRecalculation = true;
+				if (batchConstruction) {	//Failed before the end of the batch: the loaded part is merged and evaluated
+					endBatchConstruction();
+				}
 			}
 		}
 	}
@@ -1145,16 +1586,22 @@ public class Network {
 		{
 			components.clear();
 			componentNodes.clear();
+			nodeGrid.clear();
+			componentGrid.clear();
+			for (Edge edge : edges) {
+				edge.setIndex(-1);
+			}
+			for (Vertex vertex : vertices) {
+				vertex.setIndex(-1);
+			}
 			edges.clear();
 			vertices.clear();
-			vertices.add(new Vertex());
+			addToVertices(new Vertex());
 
-			simulatedAngularFrequencies.clear();
-			angularFrequencyReferenceCounter.clear();
-			simulatedAngularFrequencies.add(0.0);
-			angularFrequencyReferenceCounter.add(1);
+			frequencyRegistry.clear();
+			frequencyRegistry.request(0.0);
 			changedSetOfAngularFrequencies = true;
-			needRecalculation = true;
+			structureChanged();
 		}
 	}
 
@@ -1167,15 +1614,17 @@ public class Network {
 		synchronized (accessMutexObj)
 		{
 			if (isValid()) {
+				ArrayList<Double> simulatedAngularFrequencies = getSimulatedAngularFrequencies();
+				int frequencySetVersion = frequencyRegistry.getVersion();
 				for (Edge e : edges) {
-					e.updateTimeDomainParameters(simulatedAngularFrequencies, totalTimeSec);
+					e.updateTimeDomainParameters(simulatedAngularFrequencies, frequencySetVersion, totalTimeSec);
 				}
 				for (Vertex v : vertices) {
-					v.updateTimeDomainParameters(simulatedAngularFrequencies, totalTimeSec);
+					v.updateTimeDomainParameters(simulatedAngularFrequencies, frequencySetVersion, totalTimeSec);
 				}
-				ArrayList<Double> potentials = discoverPotential_BFS();
+				double vertexPotentials[] = discoverPotentials();
 				for (int i = 0; i < vertices.size(); i++) {
-					vertices.get(i).setTimeDomainPotential(potentials.get(i));
+					vertices.get(i).setTimeDomainPotential(vertexPotentials[i]);
 				}
 			}
 
@@ -1191,6 +1640,10 @@ public class Network {
 	public ArrayList<Vertex> getVertices() {
 		return vertices;
 	}
+
+	ArrayList<Edge> getEdges() {
+		return edges;
+	}
 	
 	/**
 	 * Resets all components to initial state.
@@ -0,0 +1,571 @@
+package network;
+
+import java.util.Arrays;
+
+import math.Gauss;
+import math.GaussException;
+import math.GaussWorkspace;
+import math.Matrix;
+import math.NoSolution;
+import math.SparseLU;
+import math.SparseMatrix;
+import math.Vector;
+
+/**
+ * Modified nodal analysis. The unknowns are the potentials of the vertices and the currents of the edges with zero impedance
+ * (voltage sources, wires), so no spanning tree or cycle basis is needed. Each connected part of the graph has a reference vertex
+ * with zero potential: the ground vertex for its own part, the first vertex for the others.
+ * The equations are the current law of the other vertices and the voltage of the zero impedance edges.
+ * The voltage of an edge is V(input) - V(output) = Z * I - U, where U is its source voltage.
+ * The source voltage of an edge always counts in its own direction.
+ * The factorization of each frequency is kept (up to a memory limit), and while only a few admittances differ from the factorized ones,
+ * the system is solved with a low-rank (Woodbury) update of it instead of a new factorization, and the system itself is not stamped again.
+ * So editing the value of a component through {@link Network#evaluateParameterChange(Component)} is cheap.
+ * The cycle based solvers use the same convention, so all the engines give the same currents.
+ * HUN: Módosított csomóponti potenciálok módszere. Az ismeretlenek a csúcsok potenciáljai és a nulla impedanciájú élek
+ * (feszültségforrások, vezetékek) áramai, így nincs szükség feszítőfára és alapkörökre. A gráf minden összefüggő részének
+ * van egy nulla potenciálú referencia csúcsa: a saját részében a föld csúcs, a többiben az első csúcs.
+ * Az egyenletek a többi csúcs áramtörvénye és a nulla impedanciájú élek feszültsége.
+ * Egy él feszültsége V(bemenet) - V(kimenet) = Z * I - U, ahol U a forrásfeszültsége.
+ * A körökön alapuló megoldók ugyanezt a konvenciót használják, így minden motor ugyanazokat az áramokat adja.
+ * Minden frekvencia felbontása megmarad (egy memóriakorlátig), és amíg csak néhány admittancia tér el a felbontottól,
+ * a rendszert a felbontás alacsony rangú (Woodbury) módosításával oldja meg új felbontás helyett, és magát a rendszert sem írja fel újra.
+ * Így egy komponens értékének szerkesztése a {@link Network#evaluateParameterChange(Component)} hívással olcsó.
+ * @author Simon Zoltán
+ *
+ */
+public class NodalCurrentSolver extends CurrentSolver {
+
+	private final double pivotThreshold;
+
+	/**
+	 * Island sums of the inputed currents are considered nonzero, if they exceed this times the largest inputed current.
+	 * HUN: A befolyó áramok szigetenkénti összege nem nulla, ha meghaladja a legnagyobb befolyó áram ennyiszeresét.
+	 */
+	private final double balanceTolerance = 1e-9;
+
+	/**
+	 * Largest number of changed admittances, that are solved with a low-rank update instead of a new factorization.
+	 * HUN: A megváltozott admittanciák legnagyobb száma, amit alacsony rangú módosítással old meg új felbontás helyett.
+	 */
+	private final int maxUpdateRank = 4;
+
+	/**
+	 * Limit of the stored factor entries of all the frequencies. 0 disables the low-rank updates.
+	 * HUN: Az összes frekvencia tárolt felbontásainak elemszám korlátja. 0 esetén nincs alacsony rangú módosítás.
+	 */
+	private final long storedFactorLimit;
+
+	//Graph:
+	private int noOfVertices;
+	private int edgeInput[];
+	private int edgeOutput[];
+	private int island[];
+	private int noOfIslands;
+
+	/**
+	 * Index of the potential of each vertex among the unknowns, -1 for reference vertices.
+	 * HUN: A csúcsok potenciáljának indexe az ismeretlenek között, referencia csúcsokra -1.
+	 */
+	private int potentialUnknown[];
+	private int noOfPotentials;
+
+	//System for the current set of zero impedance edges:
+	private boolean shorted[];
+	/**
+	 * Index of the current of each zero impedance edge among the unknowns, -1 for the other edges.
+	 * HUN: A nulla impedanciájú élek áramának indexe az ismeretlenek között, a többi élre -1.
+	 */
+	private int currentUnknown[];
+	/**
+	 * Four positions for each edge in the system, -1 where a reference vertex is involved.
+	 * Admittance: (input, input), (output, output), (input, output), (output, input).
+	 * Zero impedance: (input, current), (output, current), (current, input), (current, output).
+	 * HUN: Minden élhez négy pozíció a rendszerben, -1 ahol referencia csúcs szerepel.
+	 */
+	private int positions[];
+	private SparseMatrix system;
+	private SparseLU lu;
+	private double rightSide[];
+	private double solution[];
+	private double islandBalance[];
+	private Vector current;
+
+	//Low-rank update:
+	private FactorStore store;
+	private int updatedEdges[];
+	private double updateRightSide[];
+	private double updateColumns[][];
+	private final Matrix updateSystems[] = new Matrix[maxUpdateRank + 1];
+	private final Vector updateSolutions[] = new Vector[maxUpdateRank + 1];
+	private final GaussWorkspace updateWorkspace = new GaussWorkspace();
+
+	/**
+	 * Factorization of the system at one frequency index with the impedances it was made with.
+	 * HUN: A rendszer felbontása egy frekvencia indexen, a hozzá tartozó impedanciákkal.
+	 */
+	private static class FactorSlot {
+		SparseLU lu;
+		boolean shorted[];
+		double impedance[];
+	}
+
+	/**
+	 * Factorizations of every frequency index. Shared by the workers, that always solve different frequency indices at the same time.
+	 * HUN: Minden frekvencia index felbontása. A munkások közösen használják.
+	 */
+	private static class FactorStore {
+		private final long limit;
+		private long storedEntries = 0;
+		private FactorSlot slots[] = new FactorSlot[0];
+
+		FactorStore(long limit) {
+			this.limit = limit;
+		}
+
+		synchronized FactorSlot slot(int k) {
+			if (k >= slots.length) {
+				slots = Arrays.copyOf(slots, Math.max(k + 1, 2 * slots.length));
+			}
+			if (slots[k] == null) {
+				slots[k] = new FactorSlot();
+			}
+			return slots[k];
+		}
+
+		/**
+		 * Accounts for a new stored factorization, if it fits in the limit.
+		 * @return	Whether the factorization can be stored.
+		 */
+		synchronized boolean reserve(long entries) {
+			if (storedEntries + entries > limit) {
+				return false;
+			}
+			storedEntries += entries;
+			return true;
+		}
+	}
+
+	public NodalCurrentSolver() {
+		this(0.1);
+	}
+
+	/**
+	 * @param pivotThreshold	Relative threshold of the partial pivoting of the LU factorization in (0, 1].
+	 */
+	public NodalCurrentSolver(double pivotThreshold) {
+		this(pivotThreshold, 4000000);
+	}
+
+	/**
+	 * @param pivotThreshold	Relative threshold of the partial pivoting of the LU factorization in (0, 1].
+	 * @param storedFactorLimit	Limit of the stored factor entries of all the frequencies for the low-rank updates. 0 disables them.
+	 */
+	public NodalCurrentSolver(double pivotThreshold, long storedFactorLimit) {
+		this.pivotThreshold = pivotThreshold;
+		this.storedFactorLimit = storedFactorLimit;
+	}
+
+	@Override
+	void prepare(GraphSnapshot graph) {
+		noOfVertices = graph.getNoOfVertices();
+		edgeInput = graph.edgeInput;
+		edgeOutput = graph.edgeOutput;
+		island = graph.island;
+		noOfIslands = graph.getNoOfIslands();
+
+		potentialUnknown = new int[noOfVertices];
+		noOfPotentials = 0;
+		for (int v = 0; v < noOfVertices; v++) {
+			if (graph.getFirstOfIsland(island[v]) == v) {
+				potentialUnknown[v] = -1;		//Reference vertex
+			}
+			else {
+				potentialUnknown[v] = noOfPotentials++;
+			}
+		}
+		islandBalance = new double[2 * noOfIslands];
+		current = new Vector(graph.getNoOfEdges());
+		store = (storedFactorLimit > 0)? new FactorStore(storedFactorLimit) : null;
+		updatedEdges = new int[maxUpdateRank];
+		shorted = null;
+	}
+
+	/**
+	 * Builds the pattern of the system and its symbolic analysis for the given set of zero impedance edges.
+	 * HUN: Felépíti a rendszer mintázatát és szimbolikus analízisét a nulla impedanciájú élek adott halmazára.
+	 */
+	private void buildSystem(boolean shorted[]) {
+		this.shorted = shorted;
+		currentUnknown = new int[shorted.length];
+		int n = noOfPotentials;
+		for (int e = 0; e < shorted.length; e++) {
+			currentUnknown[e] = shorted[e]? n++ : -1;
+		}
+		system = new SparseMatrix(n, n);
+		for (int e = 0; e < shorted.length; e++) {
+			int a = potentialUnknown[edgeInput[e]];
+			int b = potentialUnknown[edgeOutput[e]];
+			int j = currentUnknown[e];
+			if (j < 0) {
+				addToPattern(a, a);
+				addToPattern(b, b);
+				addToPattern(a, b);
+				addToPattern(b, a);
+			}
+			else {
+				addToPattern(a, j);
+				addToPattern(b, j);
+				addToPattern(j, a);
+				addToPattern(j, b);
+			}
+		}
+		system.compress();
+
+		positions = new int[4 * shorted.length];
+		for (int e = 0; e < shorted.length; e++) {
+			int a = potentialUnknown[edgeInput[e]];
+			int b = potentialUnknown[edgeOutput[e]];
+			int j = currentUnknown[e];
+			if (j < 0) {
+				positions[4 * e] = positionOf(a, a);
+				positions[4 * e + 1] = positionOf(b, b);
+				positions[4 * e + 2] = positionOf(a, b);
+				positions[4 * e + 3] = positionOf(b, a);
+			}
+			else {
+				positions[4 * e] = positionOf(a, j);
+				positions[4 * e + 1] = positionOf(b, j);
+				positions[4 * e + 2] = positionOf(j, a);
+				positions[4 * e + 3] = positionOf(j, b);
+			}
+		}
+		lu = new SparseLU(system, pivotThreshold);
+		rightSide = new double[2 * n];
+		solution = new double[2 * n];
+		updateRightSide = new double[2 * n];
+		updateColumns = new double[maxUpdateRank][2 * n];
+	}
+
+	private void addToPattern(int r, int c) {
+		if (r >= 0 && c >= 0) {
+			system.add(r, c, 0, 0);
+		}
+	}
+
+	private int positionOf(int r, int c) {
+		return (r >= 0 && c >= 0)? system.positionOf(r, c) : -1;
+	}
+
+	private void addAt(int position, double re, double im) {
+		if (position >= 0) {
+			system.addAt(position, re, im);
+		}
+	}
+
+	@Override
+	Vector solve(Vector impedance, Vector sourceVoltage, Vector inputCurrent) throws GaussException {
+		int noOfEdges = edgeInput.length;
+		boolean changed = (shorted == null);
+		for (int e = 0; e < noOfEdges && !changed; e++) {
+			changed = isShorted(impedance, e) != shorted[e];
+		}
+		if (changed) {
+			boolean currentShorted[] = new boolean[noOfEdges];
+			for (int e = 0; e < noOfEdges; e++) {
+				currentShorted[e] = isShorted(impedance, e);
+			}
+			buildSystem(currentShorted);
+		}
+
+		//Inputed currents. The ground vertex gets all of them back:
+		Arrays.fill(rightSide, 0);
+		Arrays.fill(islandBalance, 0);
+		double sumRe = 0;
+		double sumIm = 0;
+		double scale = 0;
+		for (int v = 0; v < noOfVertices; v++) {
+			double re = (v == 0)? 0 : inputCurrent.getRe(v);
+			double im = (v == 0)? 0 : inputCurrent.getIm(v);
+			sumRe += re;
+			sumIm += im;
+			addInputCurrent(v, re, im);
+			scale = Math.max(scale, Math.hypot(re, im));
+		}
+		if (noOfVertices > 0) {
+			addInputCurrent(0, -sumRe, -sumIm);
+		}
+		for (int i = 0; i < noOfIslands; i++) {
+			if (Math.hypot(islandBalance[2 * i], islandBalance[2 * i + 1]) > balanceTolerance * scale) {
+				throw new NoSolution();		//The current law of the reference vertex can not be satisfied.
+			}
+		}
+
+		//Sources of the edges on the right side:
+		for (int e = 0; e < noOfEdges; e++) {
+			int a = potentialUnknown[edgeInput[e]];
+			int b = potentialUnknown[edgeOutput[e]];
+			double uRe = sourceVoltage.getRe(e);
+			double uIm = sourceVoltage.getIm(e);
+			int j = currentUnknown[e];
+			if (j < 0) {
+				//I = Y * (V(input) - V(output) + U)
+				double zRe = impedance.getRe(e);
+				double zIm = impedance.getIm(e);
+				double denominator = zRe * zRe + zIm * zIm;
+				double yRe = zRe / denominator;
+				double yIm = -zIm / denominator;
+				double iRe = yRe * uRe - yIm * uIm;
+				double iIm = yRe * uIm + yIm * uRe;
+				if (a >= 0) {
+					rightSide[2 * a] -= iRe;
+					rightSide[2 * a + 1] -= iIm;
+				}
+				if (b >= 0) {
+					rightSide[2 * b] += iRe;
+					rightSide[2 * b + 1] += iIm;
+				}
+			}
+			else {
+				//V(input) - V(output) = -U
+				rightSide[2 * j] = -uRe;
+				rightSide[2 * j + 1] = -uIm;
+			}
+		}
+
+		if (system.row > 0) {
+			FactorSlot slot = (store != null)? store.slot(frequencyIndex) : null;
+			if (slot == null || !updateSolve(slot, impedance)) {
+				stampSystem(impedance);		//Only a new factorization needs the whole system.
+				if (!lu.refactor(system)) {
+					lu.factor(system);
+				}
+				lu.solve(rightSide, solution);
+				if (slot != null) {
+					keepFactorization(slot, impedance);
+				}
+			}
+		}
+
+		for (int e = 0; e < noOfEdges; e++) {
+			int j = currentUnknown[e];
+			if (j >= 0) {
+				current.setAt(e, solution[2 * j], solution[2 * j + 1]);
+			}
+			else {
+				int a = potentialUnknown[edgeInput[e]];
+				int b = potentialUnknown[edgeOutput[e]];
+				double vRe = sourceVoltage.getRe(e);
+				double vIm = sourceVoltage.getIm(e);
+				if (a >= 0) {
+					vRe += solution[2 * a];
+					vIm += solution[2 * a + 1];
+				}
+				if (b >= 0) {
+					vRe -= solution[2 * b];
+					vIm -= solution[2 * b + 1];
+				}
+				double zRe = impedance.getRe(e);
+				double zIm = impedance.getIm(e);
+				double denominator = zRe * zRe + zIm * zIm;
+				current.setAt(e, (vRe * zRe + vIm * zIm) / denominator, (vIm * zRe - vRe * zIm) / denominator);
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Stamps the admittances of the edges and the voltage equations of the zero impedance edges into the system.
+	 * HUN: Beírja a rendszerbe az élek admittanciáit és a nulla impedanciájú élek feszültség egyenleteit.
+	 */
+	private void stampSystem(Vector impedance) {
+		system.clearValues();
+		for (int e = 0; e < edgeInput.length; e++) {
+			if (currentUnknown[e] < 0) {
+				double zRe = impedance.getRe(e);
+				double zIm = impedance.getIm(e);
+				double denominator = zRe * zRe + zIm * zIm;
+				double yRe = zRe / denominator;
+				double yIm = -zIm / denominator;
+				addAt(positions[4 * e], yRe, yIm);
+				addAt(positions[4 * e + 1], yRe, yIm);
+				addAt(positions[4 * e + 2], -yRe, -yIm);
+				addAt(positions[4 * e + 3], -yRe, -yIm);
+			}
+			else {
+				addAt(positions[4 * e], 1, 0);
+				addAt(positions[4 * e + 1], -1, 0);
+				addAt(positions[4 * e + 2], 1, 0);
+				addAt(positions[4 * e + 3], -1, 0);
+			}
+		}
+	}
+
+	/**
+	 * Solves the system with the stored factorization of the frequency, if only a few admittances differ from the factorized ones.
+	 * The changed admittances are a sum of rank-one terms dY * u * u^T, where u has 1 at the input and -1 at the output of the edge.
+	 * By the Woodbury formula x = x0 - Z * y, where A0 * x0 = b, A0 * Z = U and (I + dY * U^T * Z) * y = dY * U^T * x0.
+	 * HUN: A frekvencia tárolt felbontásával oldja meg a rendszert, ha csak néhány admittancia tér el a felbontottól.
+	 * A megváltozott admittanciák dY * u * u^T alakú egyes rangú tagok összege, ahol u az él bemeneténél 1, a kimeneténél -1.
+	 * A Woodbury formula szerint x = x0 - Z * y, ahol A0 * x0 = b, A0 * Z = U és (I + dY * U^T * Z) * y = dY * U^T * x0.
+	 * @return	Whether the system was solved. If not, a new factorization is needed.
+	 */
+	private boolean updateSolve(FactorSlot slot, Vector impedance) throws GaussException {
+		if (slot.lu == null || !Arrays.equals(slot.shorted, shorted)) {
+			return false;
+		}
+		int rank = 0;
+		for (int e = 0; e < edgeInput.length; e++) {
+			if (impedance.getRe(e) != slot.impedance[2 * e] || impedance.getIm(e) != slot.impedance[2 * e + 1]) {
+				if (rank == maxUpdateRank) {
+					return false;
+				}
+				updatedEdges[rank++] = e;
+			}
+		}
+		slot.lu.solve(rightSide, solution);
+		if (rank == 0) {
+			return true;
+		}
+
+		for (int i = 0; i < rank; i++) {
+			int e = updatedEdges[i];
+			Arrays.fill(updateRightSide, 0);
+			addDifference(updateRightSide, e, 1, 0);
+			slot.lu.solve(updateRightSide, updateColumns[i]);
+		}
+		if (updateSystems[rank] == null) {
+			updateSystems[rank] = new Matrix(rank + 1, rank);
+			updateSolutions[rank] = new Vector(rank);
+		}
+		Matrix M = updateSystems[rank];
+		for (int i = 0; i < rank; i++) {
+			//dY of the edge of equation i:
+			int e = updatedEdges[i];
+			double zRe = impedance.getRe(e);
+			double zIm = impedance.getIm(e);
+			double denominator = zRe * zRe + zIm * zIm;
+			double dRe = zRe / denominator;
+			double dIm = -zIm / denominator;
+			zRe = slot.impedance[2 * e];
+			zIm = slot.impedance[2 * e + 1];
+			denominator = zRe * zRe + zIm * zIm;
+			dRe -= zRe / denominator;
+			dIm += zIm / denominator;
+
+			for (int j = 0; j <= rank; j++) {
+				double column[] = (j < rank)? updateColumns[j] : solution;
+				double uRe = difference(column, e, 0);
+				double uIm = difference(column, e, 1);
+				double re = dRe * uRe - dIm * uIm;
+				double im = dRe * uIm + dIm * uRe;
+				if (i == j) {
+					re += 1;
+				}
+				M.setAt(j, i, re, im);
+			}
+		}
+		Vector y = updateSolutions[rank];
+		try {
+			Gauss.EliminateWithPivoting(M, updateWorkspace, y, Gauss.defaultTolerance, 1);
+		}
+		catch (GaussException e) {
+			return false;		//The updated system is singular with this factorization.
+		}
+		for (int j = 0; j < rank; j++) {
+			double column[] = updateColumns[j];
+			double yRe = y.getRe(j);
+			double yIm = y.getIm(j);
+			for (int i = 0; i < system.column; i++) {
+				solution[2 * i] -= column[2 * i] * yRe - column[2 * i + 1] * yIm;
+				solution[2 * i + 1] -= column[2 * i] * yIm + column[2 * i + 1] * yRe;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds a value at the input and subtracts it at the output of an edge in an interleaved vector of unknowns.
+	 */
+	private void addDifference(double vector[], int e, double re, double im) {
+		int a = potentialUnknown[edgeInput[e]];
+		int b = potentialUnknown[edgeOutput[e]];
+		if (a >= 0) {
+			vector[2 * a] += re;
+			vector[2 * a + 1] += im;
+		}
+		if (b >= 0) {
+			vector[2 * b] -= re;
+			vector[2 * b + 1] -= im;
+		}
+	}
+
+	/**
+	 * Difference of the input and output potentials of an edge in an interleaved vector of unknowns.
+	 * @param part	0 for the real part, 1 for the imaginary part.
+	 */
+	private double difference(double vector[], int e, int part) {
+		int a = potentialUnknown[edgeInput[e]];
+		int b = potentialUnknown[edgeOutput[e]];
+		return ((a >= 0)? vector[2 * a + part] : 0) - ((b >= 0)? vector[2 * b + part] : 0);
+	}
+
+	/**
+	 * Stores a copy of the new factorization as the one of the frequency, if it fits in the memory limit.
+	 * The working factorization remains, so its pivot sequence can be reused for the next frequency.
+	 * HUN: Az új felbontás másolatát tárolja a frekvencia felbontásaként, ha belefér a memóriakorlátba.
+	 * A munka felbontás megmarad, így a főelem sorrendje a következő frekvencián újrahasznosítható.
+	 */
+	private void keepFactorization(FactorSlot slot, Vector impedance) {
+		int noOfEdges = edgeInput.length;
+		if (slot.lu == null) {
+			if (!store.reserve(lu.factorNonZeros() + noOfEdges)) {
+				return;
+			}
+			slot.impedance = new double[2 * noOfEdges];
+		}
+		if (slot.lu == null || !Arrays.equals(slot.shorted, shorted)) {
+			slot.lu = new SparseLU(lu);
+			slot.shorted = shorted;
+		}
+		slot.lu.copyFactors(lu);
+		for (int e = 0; e < noOfEdges; e++) {
+			slot.impedance[2 * e] = impedance.getRe(e);
+			slot.impedance[2 * e + 1] = impedance.getIm(e);
+		}
+	}
+
+	private static boolean isShorted(Vector impedance, int e) {
+		return impedance.getRe(e) == 0 && impedance.getIm(e) == 0;
+	}
+
+	/**
+	 * Adds a current inputed to a vertex to the right side of its current law and to the balance of its island.
+	 */
+	private void addInputCurrent(int v, double re, double im) {
+		islandBalance[2 * island[v]] += re;
+		islandBalance[2 * island[v] + 1] += im;
+		int a = potentialUnknown[v];
+		if (a >= 0) {
+			rightSide[2 * a] += re;
+			rightSide[2 * a + 1] += im;
+		}
+	}
+
+	@Override
+	CurrentSolver createWorker() {
+		NodalCurrentSolver worker = new NodalCurrentSolver(pivotThreshold, storedFactorLimit);
+		worker.noOfVertices = noOfVertices;
+		worker.edgeInput = edgeInput;
+		worker.edgeOutput = edgeOutput;
+		worker.island = island;
+		worker.noOfIslands = noOfIslands;
+		worker.potentialUnknown = potentialUnknown;
+		worker.noOfPotentials = noOfPotentials;
+		worker.islandBalance = new double[islandBalance.length];
+		worker.current = new Vector(current.dimension);
+		worker.store = store;
+		worker.updatedEdges = new int[maxUpdateRank];
+		return worker;
+	}
+}
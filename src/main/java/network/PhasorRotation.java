@@ -0,0 +1,113 @@
+package network;
+
+import java.util.ArrayList;
+
+/**
+ * Rotation factors cos(omega * t) and sin(omega * t) of the simulated angular frequencies at a point of time,
+ * shared by the time domain synthesis of all the edges and vertices, so a frame computes each of them once instead of once per edge.
+ * When the time advances by the same step as before, the factors are rotated forward by the factors of the step, instead of evaluating the trigonometric functions.
+ * The table is keyed by the list of the frequencies and the version of the set of frequencies, so it is not compared element by element.
+ * Each thread has its own table.
+ * HUN: A szimulált körfrekvenciák cos(omega * t) és sin(omega * t) forgatási tényezői egy időpontban,
+ * amelyeken az összes él és csúcs időtartománybeli szintézise osztozik, így egy képkocka mindegyiket egyszer számolja, nem élenként.
+ * Ha az idő az előzővel azonos lépéssel halad, a tényezők a lépés tényezőivel forognak tovább, a szögfüggvények kiértékelése helyett.
+ * A tábla kulcsa a frekvenciák listája és a frekvenciahalmaz verziója, így nem elemenként hasonlítódik össze.
+ * Minden szálnak saját táblája van.
+ * @author Simon Zoltán
+ *
+ */
+final class PhasorRotation {
+
+	private static final ThreadLocal<PhasorRotation> shared = ThreadLocal.withInitial(PhasorRotation::new);
+
+	/**
+	 * Number of rotations by the step, after which the factors are evaluated exactly again, so the rounding errors do not accumulate.
+	 * HUN: A lépéssel való forgatások száma, amely után a tényezők újra pontosan számolódnak, hogy a kerekítési hibák ne halmozódjanak.
+	 */
+	private static final int maxRotations = 64;
+
+	private double omega[] = new double[0];
+	private ArrayList<Double> frequencies = null;
+	private int frequencySetVersion;
+	private double time = Double.NaN;
+	double cos[] = new double[0];
+	double sin[] = new double[0];
+	int size = 0;
+
+	/**
+	 * Rotation of the last time step, and the number of times it was applied since the last exact evaluation.
+	 * HUN: Az utolsó időlépés forgatása, és hogy a legutóbbi pontos számolás óta hányszor alkalmazódott.
+	 */
+	private double step = Double.NaN;
+	private double stepCos[] = new double[0];
+	private double stepSin[] = new double[0];
+	private int rotations = 0;
+
+	private PhasorRotation() {
+	}
+
+	/**
+	 * The rotation factors of the calling thread for the given frequencies and time.
+	 * HUN: A hívó szál forgatási tényezői a megadott frekvenciákra és időpontra.
+	 * @param omega	Simulated angular frequencies of the network.
+	 * @param frequencySetVersion	{@link Network#getFrequencySetVersion()}, that the list belongs to.
+	 * @param totalTimeSec	Point of time.
+	 */
+	static PhasorRotation at(ArrayList<Double> omega, int frequencySetVersion, double totalTimeSec) {
+		PhasorRotation rotation = shared.get();
+		rotation.update(omega, frequencySetVersion, totalTimeSec);
+		return rotation;
+	}
+
+	private void update(ArrayList<Double> frequencies, int frequencySetVersion, double totalTimeSec) {
+		if (frequencies != this.frequencies || frequencySetVersion != this.frequencySetVersion) {
+			this.frequencies = frequencies;
+			this.frequencySetVersion = frequencySetVersion;
+			size = frequencies.size();
+			if (omega.length < size) {
+				omega = new double[size];
+				cos = new double[size];
+				sin = new double[size];
+				stepCos = new double[size];
+				stepSin = new double[size];
+			}
+			for (int k = 0; k < size; k++) {
+				omega[k] = frequencies.get(k);
+			}
+			evaluate(totalTimeSec);
+			return;
+		}
+		if (totalTimeSec == time) {
+			return;
+		}
+		double dt = totalTimeSec - time;
+		if (dt == step && rotations < maxRotations) {
+			for (int k = 0; k < size; k++) {
+				double c = cos[k];
+				double s = sin[k];
+				cos[k] = c * stepCos[k] - s * stepSin[k];
+				sin[k] = s * stepCos[k] + c * stepSin[k];
+			}
+			time = totalTimeSec;
+			rotations++;
+			return;
+		}
+		evaluate(totalTimeSec);
+		step = dt;
+		for (int k = 0; k < size; k++) {
+			stepCos[k] = Math.cos(omega[k] * dt);
+			stepSin[k] = Math.sin(omega[k] * dt);
+		}
+	}
+
+	private void evaluate(double totalTimeSec) {
+		for (int k = 0; k < size; k++) {
+			double phase = omega[k] * totalTimeSec;
+			cos[k] = Math.cos(phase);
+			sin[k] = Math.sin(phase);
+		}
+		time = totalTimeSec;
+		step = Double.NaN;
+		rotations = 0;
+	}
+}
@@ -77,6 +77,9 @@ public class Resistance extends Component {
 	public Vector getFrequencyDomainVoltageDrop() {
 		return e.getVoltageDrop();
 	}
+
+	@Override
+	Edge getSampledEdge() { return e; }
 	// Build/Destroy:------------------------------------------------------------------------------------
 
 	@Override
@@ -158,7 +161,7 @@ public class Resistance extends Component {
 
 	@Override
 	public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas) {
-		e.updateTimeDomainParameters(omegas, totalTimeSec);
+		e.updateTimeDomainParameters(omegas, getParent().getFrequencySetVersion(), totalTimeSec);
 	}
 
 	@Override
@@ -22,6 +22,20 @@ public class SawtoothVoltageSource extends Component {
 	private double sourceVoltageAngularFrequency = 2.0 * Math.PI;
 	private double sourceVoltagePhaseRad = 0.0;
 	private static final int maxN = 1000;
+	private static final int firstHarmonic = 0;
+	private static final int harmonicStep = 1;
+	private static final int maxNoOfHarmonics = maxN + 1;
+
+	/**
+	 * Number of the registered harmonics, after the truncation of the series by the network.
+	 */
+	private int noOfHarmonics = maxNoOfHarmonics;
+
+	/**
+	 * Indices of the harmonics among the simulated frequencies, valid while the set of simulated frequencies is unchanged.
+	 */
+	private int harmonicIndices[] = null;
+	private int harmonicIndicesVersion;
 
 	//Constructors:---------------------------------------------------------------------------------------
 
@@ -39,14 +53,7 @@ public class SawtoothVoltageSource extends Component {
 
 		Vector source =  Vector.Zeros(simulatedAngularFrequencies.size());
 		source.fill(new Complex(0, 0));
-		int idx = getParent().getAngularFrequencyIndex(0.0);
-		source.setAt(idx,
-				Complex.euler(sourceVoltageAmplitude / 2.0, 0));
-
-		for (int n = 1; n <= maxN; n += 1) {
-			idx = getParent().getAngularFrequencyIndex(n * this.sourceVoltageAngularFrequency);
-			source.setAt(idx, Complex.euler(-1.0 / (Math.PI * n), sourceVoltagePhaseRad * n - Math.PI / 2));
-		}
+		fillSourceVoltage(source);
 		e.setSourceVoltage(source);
 
 		Vector inputCurrentVector = new Vector(simulatedAngularFrequencies.size());
@@ -70,13 +77,68 @@ public class SawtoothVoltageSource extends Component {
 	public double getSourceVoltageAngularFrequency() { return sourceVoltageAngularFrequency; }
 
 	public void setSourceVoltageAmplitude(double sourceVoltageAmplitude) {
+		if (sourceVoltageAmplitude == this.sourceVoltageAmplitude) {
+			return;
+		}
+
+		//Only the DC term scales with the amplitude, so the truncation of the series is decided again:
+		releaseHarmonics();
 		this.sourceVoltageAmplitude = sourceVoltageAmplitude;
-		int idx = getParent().getAngularFrequencyIndex(0.0);
-		e.getSourceVoltage().setAt(idx,
-				Complex.euler(sourceVoltageAmplitude / 2.0, 0));
-		for (int n = 1; n <= maxN; n += 1) {
-			idx = getParent().getAngularFrequencyIndex(n * this.sourceVoltageAngularFrequency);
-			e.getSourceVoltage().setAt(idx, Complex.euler(-1.0 / (Math.PI * n), sourceVoltagePhaseRad * n - Math.PI / 2));
+		requestHarmonics();
+
+		Vector source =  Vector.Zeros(getParent().getSimulatedAngularFrequencies().size());
+		source.fill(new Complex(0, 0));
+		fillSourceVoltage(source);
+		e.setSourceVoltage(source);
+	}
+
+	/**
+	 * Registers the harmonics of the Fourier series at the current fundamental frequency, and keeps their indices.
+	 */
+	private void requestHarmonics() {
+		noOfHarmonics = getParent().truncatedHarmonicCount(sourceVoltageAngularFrequency, firstHarmonic, harmonicStep, maxNoOfHarmonics,
+				n -> (n == 0) ? sourceVoltageAmplitude / 2.0 : 1.0 / (Math.PI * n));
+		harmonicIndices = getParent().requestHarmonicSeries(sourceVoltageAngularFrequency, firstHarmonic, harmonicStep, noOfHarmonics);
+		harmonicIndicesVersion = getParent().getFrequencySetVersion();
+	}
+
+	private void releaseHarmonics() {
+		getParent().releaseHarmonicSeries(sourceVoltageAngularFrequency, firstHarmonic, harmonicStep, noOfHarmonics);
+		harmonicIndices = null;
+	}
+
+	@Override
+	void updateHarmonicTruncation() {
+		if (e != null) {
+			releaseHarmonics();
+			requestHarmonics();
+		}
+	}
+
+	/**
+	 * Indices of the harmonics among the simulated frequencies, looked up again only after the set of simulated frequencies changed.
+	 */
+	private int[] harmonicIndices() {
+		if (harmonicIndices == null || harmonicIndicesVersion != getParent().getFrequencySetVersion()) {
+			harmonicIndices = getParent().getHarmonicSeriesIndices(sourceVoltageAngularFrequency, firstHarmonic, harmonicStep, noOfHarmonics);
+			harmonicIndicesVersion = getParent().getFrequencySetVersion();
+		}
+		return harmonicIndices;
+	}
+
+	/**
+	 * Sets the Fourier coefficients of the sawtooth wave at the harmonics in the source voltage vector.
+	 */
+	private void fillSourceVoltage(Vector source) {
+		int indices[] = harmonicIndices();
+		for (int i = 0; i < indices.length; i++) {
+			int n = firstHarmonic + i * harmonicStep;
+			if (n == 0) {
+				source.setAt(indices[i], Complex.euler(sourceVoltageAmplitude / 2.0, 0));	// DC component
+			}
+			else {
+				source.setAt(indices[i], Complex.euler(-1.0 / (Math.PI * n), sourceVoltagePhaseRad * n - Math.PI / 2));
+			}
 		}
 	}
 
@@ -85,27 +147,13 @@ public class SawtoothVoltageSource extends Component {
 			return;
 		}
 
-		for (int n = 0; n <= maxN; n += 1) {		// Request all the required angular frequencies
-			getParent().releaseAngularFrequency(this.sourceVoltageAngularFrequency * n);
-		}
-
+		releaseHarmonics();
 		this.sourceVoltageAngularFrequency = omega;
-
-		ArrayList<Integer> fourierSeriesFrequencyIndices = new ArrayList<Integer>();
-		for (int n = 0; n <= maxN; n += 1) {		// Request all the required angular frequencies
-			fourierSeriesFrequencyIndices.add(getParent().requestAngularFrequency(omega * n));
-		}
+		requestHarmonics();
 
 		Vector source =  Vector.Zeros(getParent().getSimulatedAngularFrequencies().size());
 		source.fill(new Complex(0, 0));
-		int i = 0;
-		source.setAt(fourierSeriesFrequencyIndices.get(0),
-				Complex.euler(sourceVoltageAmplitude / 2.0, 0));
-		for (int n = 1; n <= maxN; n += 1) {
-			source.setAt(fourierSeriesFrequencyIndices.get(i),
-					Complex.euler(-1.0 / (Math.PI * n), sourceVoltagePhaseRad * n - Math.PI / 2));
-			i++;
-		}
+		fillSourceVoltage(source);
 		e.setSourceVoltage(source);
 	}
 
@@ -117,13 +165,7 @@ public class SawtoothVoltageSource extends Component {
 	public void setSourceVoltagePhaseRad(double phase)
 	{
 		this.sourceVoltagePhaseRad = phase;
-		int idx = getParent().getAngularFrequencyIndex(0.0);
-		e.getSourceVoltage().setAt(idx, Complex.euler(sourceVoltageAmplitude / 2.0,0));	// DC component
-		for (int n = 1; n <= maxN; n += 1) {
-			idx = getParent().getAngularFrequencyIndex(n * this.sourceVoltageAngularFrequency);
-			e.getSourceVoltage().setAt(idx,
-					Complex.euler(-1.0 / (Math.PI * n), sourceVoltagePhaseRad * n - Math.PI / 2));
-		}
+		fillSourceVoltage(e.getSourceVoltage());
 	}
 
 	@Override
@@ -145,6 +187,17 @@ public class SawtoothVoltageSource extends Component {
 		return e.getVoltageDrop();
 	}
 
+	@Override
+	public Vector getTimeDomainVoltageDropPhasors() {
+		return e.getSourceVoltage();
+	}
+
+	@Override
+	Edge getSampledEdge() { return e; }
+
+	@Override
+	SampledVoltage getSampledVoltage() { return SampledVoltage.SOURCE; }
+
 	//Build/Destroy:------------------------------------------------------------------------------------
 
 	@Override
@@ -154,9 +207,7 @@ public class SawtoothVoltageSource extends Component {
 		e = new Edge();
 		super.getParent().addEdge(e);
 
-		for (int n = 0; n <= maxN; n += 1) {		// Request all the required angular frequencies
-			getParent().requestAngularFrequency(this.sourceVoltageAngularFrequency * n);
-		}
+		requestHarmonics();
 
 		this.updateFrequencyDependentParameters(getParent().getSimulatedAngularFrequencies());
 
@@ -208,9 +259,7 @@ public class SawtoothVoltageSource extends Component {
 	public void destroy() {
 		super.removeEndNodes();
 		super.getParent().removeEdge(e);
-		for (int n = 0; n <= maxN; n += 1) {		// Request all the required angular frequencies
-			getParent().releaseAngularFrequency(this.sourceVoltageAngularFrequency * n);
-		}
+		releaseHarmonics();
 	}
 
 	//Persistence:-----------------------------------------------------------------------------------
@@ -255,7 +304,7 @@ public class SawtoothVoltageSource extends Component {
 
 	@Override
 	public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas) {
-		e.updateTimeDomainParameters(omegas, totalTimeSec);
+		e.updateTimeDomainParameters(omegas, getParent().getFrequencySetVersion(), totalTimeSec);
 	}
 
 	@Override
@@ -432,6 +481,7 @@ public class SawtoothVoltageSource extends Component {
 			clone.sourceVoltageAmplitude = this.sourceVoltageAmplitude;
 			clone.sourceVoltageAngularFrequency = this.sourceVoltageAngularFrequency;
 			clone.sourceVoltagePhaseRad = this.sourceVoltagePhaseRad;
+			clone.harmonicIndices = null;
 			return clone;
 		} catch (CloneNotSupportedException e) {
 			throw new AssertionError();
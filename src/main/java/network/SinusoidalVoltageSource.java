@@ -6,6 +6,7 @@ import math.Complex;
 import math.Coordinate;
 import math.Line;
 import math.Vector;
+import math.Waveform;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -115,6 +116,17 @@ public class SinusoidalVoltageSource extends Component {
 		return e.getVoltageDrop();
 	}
 
+	@Override
+	public Vector getTimeDomainVoltageDropPhasors() {
+		return e.getSourceVoltage();
+	}
+
+	@Override
+	Edge getSampledEdge() { return e; }
+
+	@Override
+	SampledVoltage getSampledVoltage() { return SampledVoltage.SOURCE; }
+
 	//Build/Destroy:------------------------------------------------------------------------------------
 
 	@Override
@@ -220,7 +232,7 @@ public class SinusoidalVoltageSource extends Component {
 
 	@Override
 	public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas) {
-		e.updateTimeDomainParameters(omegas, totalTimeSec);
+		e.updateTimeDomainParameters(omegas, getParent().getFrequencySetVersion(), totalTimeSec);
 	}
 
 	@Override
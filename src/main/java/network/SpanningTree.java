@@ -0,0 +1,316 @@
+package network;
+
+import math.SparseMatrix;
+
+/**
+ * Depth first or breadth first spanning forest of a {@link GraphSnapshot} and the base cycles of its other edges.
+ * The traversal is iterative and keeps a cursor in the neighbours of every vertex, so each neighbour is looked at once and the build is linear in the size of the graph.
+ * The base cycles of a breadth first forest are at most twice as long as the depth of the trees, while those of a depth first forest
+ * can be as long as the whole graph, so the sparse solvers use the breadth first one.
+ * HUN: Egy {@link GraphSnapshot} mélységi vagy szélességi feszítő erdője és a többi él alapkörei.
+ * A bejárás iteratív és minden csúcs szomszédaiban egy kurzort tart, így minden szomszédot egyszer néz meg, és a felépítés lineáris a gráf méretében.
+ * A szélességi erdő alapkörei legfeljebb kétszer olyan hosszúak, mint a fák mélysége, míg a mélységi erdőé az egész gráfnyi hosszú is lehet,
+ * ezért a ritka megoldók a szélességi erdőt használják.
+ * @author Simon Zoltán
+ *
+ */
+class SpanningTree {
+
+	final GraphSnapshot graph;
+
+	/**
+	 * Depth of each vertex in its tree: the root has 0, every other vertex has one more than its parent.
+	 * HUN: A csúcsok mélysége a fájukban: a gyökéré 0, minden más csúcsé eggyel több a szülőjénél.
+	 */
+	private final int depth[];
+
+	/**
+	 * Parent vertex of each vertex in the forest and the tree edge leading to it from the parent. -1 for the roots.
+	 * HUN: A csúcsok szülője az erdőben és a szülőtől hozzájuk vezető faél. A gyökereknél -1.
+	 */
+	final int parent[];
+	final int parentEdge[];
+
+	/**
+	 * Vertices in the order of their discovery. Every vertex comes after its parent.
+	 * HUN: A csúcsok az elérésük sorrendjében. Minden csúcs a szülője után következik.
+	 */
+	final int order[];
+
+	/**
+	 * Builds the depth first spanning forest. The trees are started from the first unvisited vertex.
+	 * HUN: Felépíti a mélységi feszítő erdőt. A fák az első még be nem járt csúcsból indulnak.
+	 * @param graph	Structure of the graph.
+	 */
+	SpanningTree(GraphSnapshot graph) {
+		this(graph, false);
+	}
+
+	/**
+	 * Builds the spanning forest. The trees are started from the first unvisited vertex.
+	 * HUN: Felépíti a feszítő erdőt. A fák az első még be nem járt csúcsból indulnak.
+	 * @param graph	Structure of the graph.
+	 * @param breadthFirst	Whether to search breadth first instead of depth first.
+	 */
+	SpanningTree(GraphSnapshot graph, boolean breadthFirst) {
+		if (graph.getNoOfVertices() == 0) {
+			throw new RuntimeException("No nodes to work with.");
+		}
+		this.graph = graph;
+		depth = new int[graph.getNoOfVertices()];
+		parent = new int[graph.getNoOfVertices()];
+		parentEdge = new int[graph.getNoOfVertices()];
+		order = new int[graph.getNoOfVertices()];
+		if (breadthFirst) {
+			searchBreadthFirst();
+		}
+		else {
+			search();
+		}
+	}
+
+	/**
+	 * Iterative depth first search. Always steps to the first unvisited neighbour, and backtracks to the parent, when there is none.
+	 * HUN: Iteratív mélységi keresés. Mindig az első még be nem járt szomszédra lép, és ha nincs ilyen, visszalép a szülőre.
+	 */
+	private void search() {
+		int vertexCount = depth.length;
+		int adjacencyStart[] = graph.adjacencyStart;
+		int neighbour[] = graph.neighbour;
+		int cursor[] = new int[vertexCount];
+		System.arraycopy(adjacencyStart, 0, cursor, 0, vertexCount);
+		for (int v = 0; v < vertexCount; v++) {
+			depth[v] = -1;
+			parent[v] = -1;
+			parentEdge[v] = -1;
+		}
+
+		int noOfDiscovered = 0;
+		for (int root = 0; root < vertexCount; root++) {
+			if (depth[root] != -1) {
+				continue;
+			}
+			depth[root] = 0;
+			order[noOfDiscovered++] = root;
+			int current = root;
+			while (current != -1) {
+				int next = -1;
+				while (cursor[current] < adjacencyStart[current + 1]) {
+					int a = cursor[current]++;
+					if (depth[neighbour[a]] == -1) {
+						next = neighbour[a];
+						parentEdge[next] = graph.neighbourEdge[a];
+						break;
+					}
+				}
+				if (next != -1) {		//Found unvisited neighbour
+					depth[next] = depth[current] + 1;
+					order[noOfDiscovered++] = next;
+					parent[next] = current;
+					current = next;
+				} else {				//Backtracking
+					current = parent[current];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Iterative breadth first search. The discovered vertices are queued in {@link #order}, so no other queue is needed.
+	 * HUN: Iteratív szélességi keresés. Az elért csúcsok a {@link #order} tömbben állnak sorba, így nem kell más sor.
+	 */
+	private void searchBreadthFirst() {
+		int vertexCount = depth.length;
+		int adjacencyStart[] = graph.adjacencyStart;
+		int neighbour[] = graph.neighbour;
+		for (int v = 0; v < vertexCount; v++) {
+			depth[v] = -1;
+			parent[v] = -1;
+			parentEdge[v] = -1;
+		}
+
+		int noOfDiscovered = 0;
+		for (int root = 0; root < vertexCount; root++) {
+			if (depth[root] != -1) {
+				continue;
+			}
+			depth[root] = 0;
+			order[noOfDiscovered++] = root;
+			for (int head = noOfDiscovered - 1; head < noOfDiscovered; head++) {
+				int current = order[head];
+				for (int a = adjacencyStart[current]; a < adjacencyStart[current + 1]; a++) {
+					int next = neighbour[a];
+					if (depth[next] == -1) {
+						depth[next] = depth[current] + 1;
+						parent[next] = current;
+						parentEdge[next] = graph.neighbourEdge[a];
+						order[noOfDiscovered++] = next;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Whether the edge is the tree edge of one of its endpoints. Every other edge closes a base cycle,
+	 * including an edge parallel to a tree edge.
+	 * HUN: Az él valamelyik végpontjának faéle-e. Minden más él egy alapkört zár, a faéllel párhuzamos él is.
+	 * @param e	Position of the edge.
+	 */
+	private boolean isTreeEdge(int e) {
+		return parentEdge[graph.edgeInput[e]] == e || parentEdge[graph.edgeOutput[e]] == e;
+	}
+
+	/**
+	 * Fills up the incidence matrix: +1 at the input and -1 at the output vertex of each edge.
+	 * HUN: Feltölti az illeszkedési mátrixot: minden élnél +1 a bemeneti és -1 a kimeneti csúcsnál.
+	 * @param incidence	Matrix to fill up, edges in rows, vertices in columns.
+	 */
+	void fillIncidence(SparseMatrix incidence) {
+		int input[] = graph.edgeInput;
+		int output[] = graph.edgeOutput;
+		incidence.reset(input.length, depth.length);
+		for (int i = 0; i < input.length; i++) {
+			incidence.add(i, input[i], 1, 0);
+			incidence.add(i, output[i], -1, 0);
+		}
+		incidence.compress();
+	}
+
+	/**
+	 * Fills up the base cycle matrix: one cycle for each edge outside the forest, closed along the tree path between its endpoints.
+	 * The cycle goes along its edge and returns through the common ancestor of the endpoints. In a depth first forest one endpoint is always the ancestor of the other.
+	 * HUN: Feltölti az alapkör mátrixot: egy kör minden feszítő erdőn kívüli élhez, a végpontjai közti faúton zárva.
+	 * A kör az éle mentén halad, és a végpontok közös ősén át tér vissza. Mélységi erdőben az egyik végpont mindig a másik őse.
+	 * @param cycle	Matrix to fill up, edges in rows, cycles in columns.
+	 */
+	void fillCycles(SparseMatrix cycle) {
+		int input[] = graph.edgeInput;
+		int output[] = graph.edgeOutput;
+		int noOfCycles = 0;
+		for (int i = 0; i < input.length; i++) {
+			if (!isTreeEdge(i)) {
+				noOfCycles++;
+			}
+		}
+
+		cycle.reset(input.length, noOfCycles);
+		int currentCycle = 0;
+		for (int i = 0; i < input.length && currentCycle < noOfCycles; i++) {
+			if (isTreeEdge(i)) {
+				continue;
+			}
+			cycle.add(i, currentCycle, 1, 0);
+			int back = output[i];		//Returns from the output towards the common ancestor
+			int forth = input[i];		//Arrives from the common ancestor to the input
+			while (back != forth) {
+				if (depth[back] >= depth[forth]) {
+					int e = parentEdge[back];
+					cycle.add(e, currentCycle, (input[e] == back) ? 1 : -1, 0);
+					back = parent[back];
+				}
+				else {
+					int e = parentEdge[forth];
+					cycle.add(e, currentCycle, (output[e] == forth) ? 1 : -1, 0);
+					forth = parent[forth];
+				}
+			}
+			currentCycle++;
+		}
+		cycle.compress();
+	}
+
+	/**
+	 * Fills up the cycle matrix with a basis of short cycles. The edges not in the forest are taken in the order of the length of their base cycle,
+	 * and each is closed by a shortest path between its endpoints through the forest and the edges taken before it.
+	 * So every cycle has an edge, that the cycles before it do not contain, and the cycles are independent.
+	 * In a grid the cycles become its meshes instead of the long base cycles, so the cycle equations stay sparse.
+	 * HUN: Feltölti a kör mátrixot rövid körök bázisával. A feszítő erdőn kívüli éleket az alapkörük hossza szerinti sorrendben veszi,
+	 * és mindegyiket a végpontjai közti legrövidebb úttal zárja az erdőn és a korábban vett éleken át.
+	 * Így minden körnek van olyan éle, ami a korábbi körökben nincs, tehát a körök függetlenek.
+	 * Egy rácsban a körök a hosszú alapkörök helyett a rács szemei lesznek, így a kör egyenletek ritkák maradnak.
+	 * @param cycle	Matrix to fill up, edges in rows, cycles in columns.
+	 */
+	void fillShortCycles(SparseMatrix cycle) {
+		int input[] = graph.edgeInput;
+		int output[] = graph.edgeOutput;
+		int vertexCount = depth.length;
+
+		//Edges outside the forest by the length of their base cycle (counting sort):
+		int length[] = new int[input.length];
+		int noOfCycles = 0;
+		int longest = 0;
+		for (int i = 0; i < input.length; i++) {
+			if (isTreeEdge(i)) {
+				continue;
+			}
+			int back = output[i];
+			int forth = input[i];
+			length[i] = 1;
+			while (back != forth) {
+				if (depth[back] >= depth[forth]) {
+					back = parent[back];
+				}
+				else {
+					forth = parent[forth];
+				}
+				length[i]++;
+			}
+			longest = Math.max(longest, length[i]);
+			noOfCycles++;
+		}
+		int start[] = new int[longest + 2];
+		for (int i = 0; i < input.length; i++) {
+			if (!isTreeEdge(i)) {
+				start[length[i] + 1]++;
+			}
+		}
+		for (int l = 0; l <= longest; l++) {
+			start[l + 1] += start[l];
+		}
+		int sorted[] = new int[noOfCycles];
+		for (int i = 0; i < input.length; i++) {
+			if (!isTreeEdge(i)) {
+				sorted[start[length[i]]++] = i;
+			}
+		}
+
+		boolean usable[] = new boolean[input.length];
+		for (int i = 0; i < input.length; i++) {
+			usable[i] = isTreeEdge(i);
+		}
+		int visited[] = new int[vertexCount];
+		int arrivalEdge[] = new int[vertexCount];
+		int queue[] = new int[vertexCount];
+		cycle.reset(input.length, noOfCycles);
+		for (int c = 0; c < noOfCycles; c++) {
+			int i = sorted[c];
+			//Breadth first search from the output to the input of the edge:
+			int stamp = c + 1;
+			visited[output[i]] = stamp;
+			queue[0] = output[i];
+			int tail = 1;
+			for (int head = 0; head < tail && visited[input[i]] != stamp; head++) {
+				int v = queue[head];
+				for (int a = graph.adjacencyStart[v]; a < graph.adjacencyStart[v + 1]; a++) {
+					int e = graph.neighbourEdge[a];
+					int w = graph.neighbour[a];
+					if (usable[e] && visited[w] != stamp) {
+						visited[w] = stamp;
+						arrivalEdge[w] = e;
+						queue[tail++] = w;
+					}
+				}
+			}
+			cycle.add(i, c, 1, 0);
+			for (int v = input[i]; v != output[i]; ) {
+				int e = arrivalEdge[v];
+				int from = (output[e] == v) ? input[e] : output[e];
+				cycle.add(e, c, (input[e] == from) ? 1 : -1, 0);
+				v = from;
+			}
+			usable[i] = true;
+		}
+		cycle.compress();
+	}
+}
@@ -0,0 +1,170 @@
+package network;
+
+import math.GaussException;
+import math.SparseLU;
+import math.SparseMatrix;
+import math.Vector;
+
+/**
+ * Solves the same incidence and cycle equations as {@link GaussCurrentSolver}, but keeps them in a {@link SparseMatrix}
+ * and uses sparse LU factorization. Suited for large networks, where the dense system would not fit in the memory.
+ * Each row of the system is an equation: first the current law of every vertex, then the voltage law of every cycle.
+ * The cycles are the short ones of {@link SpanningTree#fillShortCycles(SparseMatrix)} instead of the base cycles, so the equations stay sparse.
+ * The redundant current law equations (one for each connected part of the graph) are detected by the factorization.
+ * The symbolic analysis is done once for each structure of the graph, the frequencies only need numeric refactorization.
+ * HUN: Ugyanazokat az illeszkedési és kör egyenleteket oldja meg, mint a {@link GaussCurrentSolver}, de {@link SparseMatrix} formában
+ * tárolja őket, és ritka LU felbontást használ. Nagy hálózatokhoz való, ahol a sűrű rendszer nem férne el a memóriában.
+ * A körök a {@link SpanningTree#fillShortCycles(SparseMatrix)} rövid körei az alapkörök helyett, így az egyenletek ritkák maradnak.
+ * A szimbolikus analízis a gráf minden szerkezetéhez egyszer fut le, a frekvenciákhoz csak numerikus újrafelbontás kell.
+ * @author Simon Zoltán
+ *
+ */
+public class SparseCurrentSolver extends CurrentSolver {
+
+	private final double pivotThreshold;
+
+	private SparseMatrix system;
+	private SparseLU lu;
+
+	/**
+	 * Independent cycles of the graph representation: each edge outside the breadth-first spanning tree closed by a short path.
+	 * HUN: A gráf-reprezentáció független körei: a szélességi feszítőfán kívüli élek, mindegyik egy rövid úttal lezárva.
+	 */
+	private SparseMatrix cycle;
+	private int noOfVertices;
+
+	/**
+	 * Position of each impedance coefficient in the system, with the edge and the sign it belongs to.
+	 * HUN: Az impedancia együtthatók helye a rendszerben, a hozzájuk tartozó éllel és előjellel.
+	 */
+	private int impedancePositions[];
+	private int impedanceEdges[];
+	private int impedanceSigns[];
+
+	private double rightSide[];
+	private double solution[];
+	private Vector current;
+
+	public SparseCurrentSolver() {
+		this(0.1);
+	}
+
+	/**
+	 * @param pivotThreshold	Relative threshold of the partial pivoting of the LU factorization in (0, 1].
+	 */
+	public SparseCurrentSolver(double pivotThreshold) {
+		this.pivotThreshold = pivotThreshold;
+	}
+
+	@Override
+	void prepare(GraphSnapshot graph) {
+		//Breadth first tree, so the search of the short cycles starts from short base cycles:
+		SpanningTree tree = new SpanningTree(graph, true);
+		SparseMatrix incidence = new SparseMatrix(0, 0);
+		cycle = new SparseMatrix(0, 0);
+		tree.fillIncidence(incidence);
+		tree.fillShortCycles(cycle);
+
+		int noOfEdges = incidence.row;
+		noOfVertices = incidence.column;
+		system = new SparseMatrix(noOfVertices + cycle.column, noOfEdges);
+		for (int v = 0; v < incidence.column; v++) {
+			for (int p = incidence.columnStart(v); p < incidence.columnStart(v + 1); p++) {
+				system.add(v, incidence.rowOf(p), incidence.getRe(p), incidence.getIm(p));
+			}
+		}
+		for (int c = 0; c < cycle.column; c++) {
+			for (int p = cycle.columnStart(c); p < cycle.columnStart(c + 1); p++) {
+				system.add(noOfVertices + c, cycle.rowOf(p), 0, 0);
+			}
+		}
+		system.compress();
+
+		int count = cycle.nonZeros();
+		impedancePositions = new int[count];
+		impedanceEdges = new int[count];
+		impedanceSigns = new int[count];
+		int t = 0;
+		for (int c = 0; c < cycle.column; c++) {
+			for (int p = cycle.columnStart(c); p < cycle.columnStart(c + 1); p++) {
+				int edge = cycle.rowOf(p);
+				impedancePositions[t] = system.positionOf(noOfVertices + c, edge);
+				impedanceEdges[t] = edge;
+				impedanceSigns[t] = (int)Math.signum(cycle.getRe(p));
+				t++;
+			}
+		}
+
+		lu = new SparseLU(system, pivotThreshold);
+		rightSide = new double[2 * system.row];
+		solution = new double[2 * system.column];
+		current = new Vector(system.column);
+	}
+
+	@Override
+	Vector solve(Vector impedance, Vector sourceVoltage, Vector inputCurrent) throws GaussException {
+		for (int t = 0; t < impedancePositions.length; t++) {
+			int edge = impedanceEdges[t];
+			int sign = impedanceSigns[t];
+			system.setAt(impedancePositions[t], sign * impedance.getRe(edge), sign * impedance.getIm(edge));
+		}
+
+		//Current law: the ground vertex gets all the inputed currents back.
+		double sumRe = 0;
+		double sumIm = 0;
+		for (int v = 1; v < noOfVertices; v++) {
+			rightSide[2 * v] = inputCurrent.getRe(v);
+			rightSide[2 * v + 1] = inputCurrent.getIm(v);
+			sumRe += inputCurrent.getRe(v);
+			sumIm += inputCurrent.getIm(v);
+		}
+		rightSide[0] = -sumRe;
+		rightSide[1] = -sumIm;
+
+		//Voltage law: sum of source voltages in the cycle, signed by the orientation of their edges.
+		for (int c = 0; c < cycle.column; c++) {
+			sumRe = 0;
+			sumIm = 0;
+			for (int p = cycle.columnStart(c); p < cycle.columnStart(c + 1); p++) {
+				double sign = cycle.getRe(p);
+				if (sign > 0) {
+					sumRe += sourceVoltage.getRe(cycle.rowOf(p));
+					sumIm += sourceVoltage.getIm(cycle.rowOf(p));
+				}
+				else if (sign < 0) {
+					sumRe -= sourceVoltage.getRe(cycle.rowOf(p));
+					sumIm -= sourceVoltage.getIm(cycle.rowOf(p));
+				}
+			}
+			rightSide[2 * (noOfVertices + c)] = sumRe;
+			rightSide[2 * (noOfVertices + c) + 1] = sumIm;
+		}
+
+		//The pattern is the same for every frequency, so the pivot sequence of an earlier frequency can usually be reused:
+		if (!lu.refactor(system)) {
+			lu.factor(system);
+		}
+		lu.solve(rightSide, solution);
+
+		for (int i = 0; i < system.column; i++) {
+			current.setAt(i, solution[2 * i], solution[2 * i + 1]);
+		}
+		return current;
+	}
+
+	@Override
+	CurrentSolver createWorker() {
+		SparseCurrentSolver worker = new SparseCurrentSolver(pivotThreshold);
+		worker.cycle = cycle;
+		worker.noOfVertices = noOfVertices;
+		worker.impedancePositions = impedancePositions;
+		worker.impedanceEdges = impedanceEdges;
+		worker.impedanceSigns = impedanceSigns;
+		worker.system = new SparseMatrix(system);
+		worker.lu = new SparseLU(lu);
+		worker.rightSide = new double[rightSide.length];
+		worker.solution = new double[solution.length];
+		worker.current = new Vector(current.dimension);
+		return worker;
+	}
+}
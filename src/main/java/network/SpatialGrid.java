@@ -0,0 +1,129 @@
+package network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Uniform grid hash of items with a rectangular extent on the board, for example component nodes (points) and components (segments).
+ * An item is stored in every cell its bounding box overlaps, so a lookup around a point visits only the few cells near it.
+ * HUN: Táblán elhelyezkedő, téglalap kiterjedésű elemek (például csomópontok és komponensek) egyenletes rács hash-e.
+ * Egy elem minden olyan cellában tárolódik, amit a befoglaló téglalapja érint, így egy pont körüli keresés csak a közeli cellákat nézi meg.
+ * @author Simon Zoltán
+ *
+ * @param <T>	Type of the items.
+ */
+class SpatialGrid<T> {
+
+	private final int cellSize;
+
+	private final HashMap<Long, ArrayList<T>> cells = new HashMap<Long, ArrayList<T>>();
+
+	/**
+	 * Range of cells of each item: first and last cell column and row.
+	 * HUN: Az elemek cellatartománya: első és utolsó cella oszlop és sor.
+	 */
+	private final IdentityHashMap<T, int[]> extent = new IdentityHashMap<T, int[]>();
+
+	/**
+	 * @param cellSize	Size of the cells. The grid size of the board is a good choice.
+	 */
+	SpatialGrid(int cellSize) {
+		this.cellSize = Math.max(1, cellSize);
+	}
+
+	private static long key(int column, int row) {
+		return ((long)column << 32) | (row & 0xffffffffL);
+	}
+
+	private int cellOf(int coordinate) {
+		return Math.floorDiv(coordinate, cellSize);
+	}
+
+	/**
+	 * Stores the item with the given bounding box, or moves it there, if already stored.
+	 * HUN: Eltárolja az elemet a megadott befoglaló téglalappal, vagy oda mozgatja, ha már tárolva van.
+	 */
+	void put(T item, int x0, int y0, int x1, int y1) {
+		int c0 = cellOf(Math.min(x0, x1));
+		int r0 = cellOf(Math.min(y0, y1));
+		int c1 = cellOf(Math.max(x0, x1));
+		int r1 = cellOf(Math.max(y0, y1));
+		int range[] = extent.get(item);
+		if (range != null) {
+			if (range[0] == c0 && range[1] == r0 && range[2] == c1 && range[3] == r1) {
+				return;		//Still in the same cells
+			}
+			removeFromCells(item, range);
+		}
+		else {
+			range = new int[4];
+			extent.put(item, range);
+		}
+		range[0] = c0;
+		range[1] = r0;
+		range[2] = c1;
+		range[3] = r1;
+		for (int c = c0; c <= c1; c++) {
+			for (int r = r0; r <= r1; r++) {
+				cells.computeIfAbsent(key(c, r), k -> new ArrayList<T>(2)).add(item);
+			}
+		}
+	}
+
+	/**
+	 * Removes the item from the grid, if stored.
+	 * HUN: Eltávolítja az elemet a rácsból, ha tárolva van.
+	 */
+	void remove(T item) {
+		int range[] = extent.remove(item);
+		if (range != null) {
+			removeFromCells(item, range);
+		}
+	}
+
+	private void removeFromCells(T item, int range[]) {
+		for (int c = range[0]; c <= range[2]; c++) {
+			for (int r = range[1]; r <= range[3]; r++) {
+				ArrayList<T> cell = cells.get(key(c, r));
+				cell.remove(item);
+				if (cell.isEmpty()) {
+					cells.remove(key(c, r));
+				}
+			}
+		}
+	}
+
+	boolean contains(T item) {
+		return extent.containsKey(item);
+	}
+
+	void clear() {
+		cells.clear();
+		extent.clear();
+	}
+
+	/**
+	 * Collects the items, whose cells overlap the square of the given radius around the given point. Each item is collected once.
+	 * The candidates must still be checked for the exact distance.
+	 * HUN: Összegyűjti azokat az elemeket, amelyek cellái átfedik az adott pont körüli, adott sugarú négyzetet. Minden elemet egyszer gyűjt.
+	 * A jelölteket még ellenőrizni kell a pontos távolságra.
+	 * @param candidates	Cleared and filled up with the items.
+	 */
+	void collect(int x, int y, int radius, ArrayList<T> candidates) {
+		candidates.clear();
+		for (int c = cellOf(x - radius); c <= cellOf(x + radius); c++) {
+			for (int r = cellOf(y - radius); r <= cellOf(y + radius); r++) {
+				ArrayList<T> cell = cells.get(key(c, r));
+				if (cell == null) {
+					continue;
+				}
+				for (T item : cell) {
+					if (!candidates.contains(item)) {
+						candidates.add(item);
+					}
+				}
+			}
+		}
+	}
+}
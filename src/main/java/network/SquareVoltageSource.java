@@ -22,6 +22,20 @@ public class SquareVoltageSource extends Component {
 	private double sourceVoltageAngularFrequency = 2.0 * Math.PI;
 	private double sourceVoltagePhaseRad = 0.0;
 	private static final int maxN = 2000;
+	private static final int firstHarmonic = 1;
+	private static final int harmonicStep = 2;
+	private static final int maxNoOfHarmonics = maxN / 2;
+
+	/**
+	 * Number of the registered harmonics, after the truncation of the series by the network.
+	 */
+	private int noOfHarmonics = maxNoOfHarmonics;
+
+	/**
+	 * Indices of the harmonics among the simulated frequencies, valid while the set of simulated frequencies is unchanged.
+	 */
+	private int harmonicIndices[] = null;
+	private int harmonicIndicesVersion;
 
 	//Constructors:---------------------------------------------------------------------------------------
 
@@ -38,11 +52,7 @@ public class SquareVoltageSource extends Component {
 		e.setImpedance(impedance);
 		math.Vector source =  Vector.Zeros(simulatedAngularFrequencies.size());
 		source.fill(new Complex(0, 0));
-		for (int n = 1; n <= maxN; n += 2) {
-			int idx = getParent().getAngularFrequencyIndex(n * this.sourceVoltageAngularFrequency);
-			source.setAt(idx,
-					Complex.euler(4.0 * sourceVoltageAmplitude / (double)n / Math.PI, sourceVoltagePhaseRad * n - Math.PI / 2));
-		}
+		fillSourceVoltage(source);
 		e.setSourceVoltage(source);
 
 		Vector inputCurrentVector = new Vector(simulatedAngularFrequencies.size());
@@ -67,10 +77,51 @@ public class SquareVoltageSource extends Component {
 
 	public void setSourceVoltageAmplitude(double sourceVoltageAmplitude) {
 		this.sourceVoltageAmplitude = sourceVoltageAmplitude;
-		for (int n = 1; n <= maxN; n += 2) {
-			int idx = getParent().getAngularFrequencyIndex(n * this.sourceVoltageAngularFrequency);
-			e.getSourceVoltage().setAt(idx,
-					Complex.euler(4.0 * sourceVoltageAmplitude / (double)n / Math.PI, sourceVoltagePhaseRad * n - Math.PI / 2));
+		fillSourceVoltage(e.getSourceVoltage());
+	}
+
+	/**
+	 * Registers the harmonics of the Fourier series at the current fundamental frequency, and keeps their indices.
+	 */
+	private void requestHarmonics() {
+		noOfHarmonics = getParent().truncatedHarmonicCount(sourceVoltageAngularFrequency, firstHarmonic, harmonicStep, maxNoOfHarmonics,
+				n -> 4.0 * sourceVoltageAmplitude / (double)n / Math.PI);
+		harmonicIndices = getParent().requestHarmonicSeries(sourceVoltageAngularFrequency, firstHarmonic, harmonicStep, noOfHarmonics);
+		harmonicIndicesVersion = getParent().getFrequencySetVersion();
+	}
+
+	private void releaseHarmonics() {
+		getParent().releaseHarmonicSeries(sourceVoltageAngularFrequency, firstHarmonic, harmonicStep, noOfHarmonics);
+		harmonicIndices = null;
+	}
+
+	@Override
+	void updateHarmonicTruncation() {
+		if (e != null) {
+			releaseHarmonics();
+			requestHarmonics();
+		}
+	}
+
+	/**
+	 * Indices of the harmonics among the simulated frequencies, looked up again only after the set of simulated frequencies changed.
+	 */
+	private int[] harmonicIndices() {
+		if (harmonicIndices == null || harmonicIndicesVersion != getParent().getFrequencySetVersion()) {
+			harmonicIndices = getParent().getHarmonicSeriesIndices(sourceVoltageAngularFrequency, firstHarmonic, harmonicStep, noOfHarmonics);
+			harmonicIndicesVersion = getParent().getFrequencySetVersion();
+		}
+		return harmonicIndices;
+	}
+
+	/**
+	 * Sets the Fourier coefficients of the square wave at the harmonics in the source voltage vector.
+	 */
+	private void fillSourceVoltage(Vector source) {
+		int indices[] = harmonicIndices();
+		for (int i = 0; i < indices.length; i++) {
+			int n = firstHarmonic + i * harmonicStep;
+			source.setAt(indices[i], Complex.euler(4.0 * sourceVoltageAmplitude / (double)n / Math.PI, sourceVoltagePhaseRad * n - Math.PI / 2));
 		}
 	}
 
@@ -79,25 +130,13 @@ public class SquareVoltageSource extends Component {
 			return;
 		}
 
-		for (int n = 1; n <= maxN; n += 2) {		// Request all the required angular frequencies
-			getParent().releaseAngularFrequency(this.sourceVoltageAngularFrequency * n);
-		}
-
+		releaseHarmonics();
 		this.sourceVoltageAngularFrequency = omega;
+		requestHarmonics();
 
-		ArrayList<Integer> fourierSeriesFrequencyIndices = new ArrayList<Integer>();
-		for (int n = 1; n <= maxN; n += 2) {		// Request all the required angular frequencies
-			fourierSeriesFrequencyIndices.add(getParent().requestAngularFrequency(omega * n));
-		}
-
-		math.Vector source =  Vector.Zeros(getParent().getSimulatedAngularFrequencies().size());
+		Vector source =  Vector.Zeros(getParent().getSimulatedAngularFrequencies().size());
 		source.fill(new Complex(0, 0));
-		int i = 0;
-		for (int n = 1; n <= maxN; n += 2) {
-			source.setAt(fourierSeriesFrequencyIndices.get(i),
-					Complex.euler(4.0 * sourceVoltageAmplitude / (double)n / Math.PI, sourceVoltagePhaseRad * n - Math.PI / 2));
-			i++;
-		}
+		fillSourceVoltage(source);
 		e.setSourceVoltage(source);
 	}
 
@@ -109,11 +148,7 @@ public class SquareVoltageSource extends Component {
 	public void setSourceVoltagePhaseRad(double phase)
 	{
 		this.sourceVoltagePhaseRad = phase;
-		for (int n = 1; n <= maxN; n += 2) {
-			int idx = getParent().getAngularFrequencyIndex(n * this.sourceVoltageAngularFrequency);
-			e.getSourceVoltage().setAt(idx,
-					Complex.euler(4.0 * sourceVoltageAmplitude / (double)n / Math.PI, sourceVoltagePhaseRad * n - Math.PI / 2));
-		}
+		fillSourceVoltage(e.getSourceVoltage());
 	}
 
 	@Override
@@ -135,6 +170,17 @@ public class SquareVoltageSource extends Component {
 		return e.getVoltageDrop();
 	}
 
+	@Override
+	public Vector getTimeDomainVoltageDropPhasors() {
+		return e.getSourceVoltage();
+	}
+
+	@Override
+	Edge getSampledEdge() { return e; }
+
+	@Override
+	SampledVoltage getSampledVoltage() { return SampledVoltage.SOURCE; }
+
 	//Build/Destroy:------------------------------------------------------------------------------------
 
 	@Override
@@ -144,9 +190,7 @@ public class SquareVoltageSource extends Component {
 		e = new Edge();
 		super.getParent().addEdge(e);
 
-		for (int n = 1; n <= maxN; n += 2) {		// Request all the required angular frequencies
-			getParent().requestAngularFrequency(this.sourceVoltageAngularFrequency * n);
-		}
+		requestHarmonics();
 
 		this.updateFrequencyDependentParameters(getParent().getSimulatedAngularFrequencies());
 
@@ -198,9 +242,7 @@ public class SquareVoltageSource extends Component {
 	public void destroy() {
 		super.removeEndNodes();
 		super.getParent().removeEdge(e);
-		for (int n = 1; n <= maxN; n += 2) {		// Release all the used angular frequencies
-			getParent().releaseAngularFrequency(this.sourceVoltageAngularFrequency * n);
-		}
+		releaseHarmonics();
 	}
 
 	//Persistence:-----------------------------------------------------------------------------------
@@ -245,7 +287,7 @@ public class SquareVoltageSource extends Component {
 
 	@Override
 	public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas) {
-		e.updateTimeDomainParameters(omegas, totalTimeSec);
+		e.updateTimeDomainParameters(omegas, getParent().getFrequencySetVersion(), totalTimeSec);
 	}
 
 	@Override
@@ -426,6 +468,7 @@ public class SquareVoltageSource extends Component {
 			clone.sourceVoltageAmplitude = this.sourceVoltageAmplitude;
 			clone.sourceVoltageAngularFrequency = this.sourceVoltageAngularFrequency;
 			clone.sourceVoltagePhaseRad = this.sourceVoltagePhaseRad;
+			clone.harmonicIndices = null;
 			return clone;
 		} catch (CloneNotSupportedException e) {
 			throw new AssertionError();
@@ -22,6 +22,20 @@ public class TriangleVoltageSource extends Component {
 	private double sourceVoltageAngularFrequency = 2.0 * Math.PI;
 	private double sourceVoltagePhaseRad = 0.0;
 	private static final int maxN = 2000;
+	private static final int firstHarmonic = 1;
+	private static final int harmonicStep = 2;
+	private static final int maxNoOfHarmonics = maxN / 2;
+
+	/**
+	 * Number of the registered harmonics, after the truncation of the series by the network.
+	 */
+	private int noOfHarmonics = maxNoOfHarmonics;
+
+	/**
+	 * Indices of the harmonics among the simulated frequencies, valid while the set of simulated frequencies is unchanged.
+	 */
+	private int harmonicIndices[] = null;
+	private int harmonicIndicesVersion;
 
 	//Constructors:---------------------------------------------------------------------------------------
 
@@ -39,13 +53,7 @@ public class TriangleVoltageSource extends Component {
 
 		math.Vector source =  Vector.Zeros(simulatedAngularFrequencies.size());
 		source.fill(new Complex(0, 0));
-		for (int n = 1; n <= maxN; n += 2) {
-			int idx = getParent().getAngularFrequencyIndex(n * this.sourceVoltageAngularFrequency);
-			source.setAt(idx,
-					Complex.euler(
-							8.0 * sourceVoltageAmplitude / Math.pow((double)n * Math.PI, 2) * Math.pow(-1, (n - 1) / 2.0),
-							sourceVoltagePhaseRad * n - Math.PI / 2));
-		}
+		fillSourceVoltage(source);
 		e.setSourceVoltage(source);
 
 		Vector inputCurrentVector = new Vector(simulatedAngularFrequencies.size());
@@ -70,12 +78,53 @@ public class TriangleVoltageSource extends Component {
 
 	public void setSourceVoltageAmplitude(double sourceVoltageAmplitude) {
 		this.sourceVoltageAmplitude = sourceVoltageAmplitude;
-		for (int n = 1; n <= maxN; n += 2) {
-			int idx = getParent().getAngularFrequencyIndex(n * this.sourceVoltageAngularFrequency);
-			e.getSourceVoltage().setAt(idx,
-					Complex.euler(
-							8.0 * sourceVoltageAmplitude / Math.pow((double)n * Math.PI, 2) * Math.pow(-1, (n - 1) / 2.0),
-							sourceVoltagePhaseRad * n - Math.PI / 2));
+		fillSourceVoltage(e.getSourceVoltage());
+	}
+
+	/**
+	 * Registers the harmonics of the Fourier series at the current fundamental frequency, and keeps their indices.
+	 */
+	private void requestHarmonics() {
+		noOfHarmonics = getParent().truncatedHarmonicCount(sourceVoltageAngularFrequency, firstHarmonic, harmonicStep, maxNoOfHarmonics,
+				n -> 8.0 * sourceVoltageAmplitude / Math.pow((double)n * Math.PI, 2));
+		harmonicIndices = getParent().requestHarmonicSeries(sourceVoltageAngularFrequency, firstHarmonic, harmonicStep, noOfHarmonics);
+		harmonicIndicesVersion = getParent().getFrequencySetVersion();
+	}
+
+	private void releaseHarmonics() {
+		getParent().releaseHarmonicSeries(sourceVoltageAngularFrequency, firstHarmonic, harmonicStep, noOfHarmonics);
+		harmonicIndices = null;
+	}
+
+	@Override
+	void updateHarmonicTruncation() {
+		if (e != null) {
+			releaseHarmonics();
+			requestHarmonics();
+		}
+	}
+
+	/**
+	 * Indices of the harmonics among the simulated frequencies, looked up again only after the set of simulated frequencies changed.
+	 */
+	private int[] harmonicIndices() {
+		if (harmonicIndices == null || harmonicIndicesVersion != getParent().getFrequencySetVersion()) {
+			harmonicIndices = getParent().getHarmonicSeriesIndices(sourceVoltageAngularFrequency, firstHarmonic, harmonicStep, noOfHarmonics);
+			harmonicIndicesVersion = getParent().getFrequencySetVersion();
+		}
+		return harmonicIndices;
+	}
+
+	/**
+	 * Sets the Fourier coefficients of the triangle wave at the harmonics in the source voltage vector.
+	 */
+	private void fillSourceVoltage(Vector source) {
+		int indices[] = harmonicIndices();
+		for (int i = 0; i < indices.length; i++) {
+			int n = firstHarmonic + i * harmonicStep;
+			source.setAt(indices[i], Complex.euler(
+					8.0 * sourceVoltageAmplitude / Math.pow((double)n * Math.PI, 2) * Math.pow(-1, (n - 1) / 2.0),
+					sourceVoltagePhaseRad * n - Math.PI / 2));
 		}
 	}
 
@@ -84,27 +133,13 @@ public class TriangleVoltageSource extends Component {
 			return;
 		}
 
-		for (int n = 1; n <= maxN; n += 2) {		// Request all the required angular frequencies
-			getParent().releaseAngularFrequency(this.sourceVoltageAngularFrequency * n);
-		}
-
+		releaseHarmonics();
 		this.sourceVoltageAngularFrequency = omega;
+		requestHarmonics();
 
-		ArrayList<Integer> fourierSeriesFrequencyIndices = new ArrayList<Integer>();
-		for (int n = 1; n <= maxN; n += 2) {		// Request all the required angular frequencies
-			fourierSeriesFrequencyIndices.add(getParent().requestAngularFrequency(omega * n));
-		}
-
-		math.Vector source =  Vector.Zeros(getParent().getSimulatedAngularFrequencies().size());
+		Vector source =  Vector.Zeros(getParent().getSimulatedAngularFrequencies().size());
 		source.fill(new Complex(0, 0));
-		int i = 0;
-		for (int n = 1; n <= maxN; n += 2) {
-			source.setAt(fourierSeriesFrequencyIndices.get(i),
-				Complex.euler(
-				8.0 * sourceVoltageAmplitude / Math.pow((double)n * Math.PI, 2) * Math.pow(-1, (n - 1) / 2.0),
-				sourceVoltagePhaseRad * n - Math.PI / 2));
-			i++;
-		}
+		fillSourceVoltage(source);
 		e.setSourceVoltage(source);
 	}
 
@@ -116,13 +151,7 @@ public class TriangleVoltageSource extends Component {
 	public void setSourceVoltagePhaseRad(double phase)
 	{
 		this.sourceVoltagePhaseRad = phase;
-		for (int n = 1; n <= maxN; n += 2) {
-			int idx = getParent().getAngularFrequencyIndex(n * this.sourceVoltageAngularFrequency);
-			e.getSourceVoltage().setAt(idx,
-					Complex.euler(
-							8.0 * sourceVoltageAmplitude / Math.pow((double)n * Math.PI, 2) * Math.pow(-1, (n - 1) / 2.0),
-							sourceVoltagePhaseRad * n - Math.PI / 2));
-		}
+		fillSourceVoltage(e.getSourceVoltage());
 	}
 
 	@Override
@@ -144,6 +173,17 @@ public class TriangleVoltageSource extends Component {
 		return e.getVoltageDrop();
 	}
 
+	@Override
+	public Vector getTimeDomainVoltageDropPhasors() {
+		return e.getSourceVoltage();
+	}
+
+	@Override
+	Edge getSampledEdge() { return e; }
+
+	@Override
+	SampledVoltage getSampledVoltage() { return SampledVoltage.SOURCE; }
+
 	//Build/Destroy:------------------------------------------------------------------------------------
 
 	@Override
@@ -153,9 +193,7 @@ public class TriangleVoltageSource extends Component {
 		e = new Edge();
 		super.getParent().addEdge(e);
 
-		for (int n = 1; n <= maxN; n += 2) {		// Request all the required angular frequencies
-			getParent().requestAngularFrequency(this.sourceVoltageAngularFrequency * n);
-		}
+		requestHarmonics();
 
 		this.updateFrequencyDependentParameters(getParent().getSimulatedAngularFrequencies());
 
@@ -207,9 +245,7 @@ public class TriangleVoltageSource extends Component {
 	public void destroy() {
 		super.removeEndNodes();
 		super.getParent().removeEdge(e);
-		for (int n = 1; n <= maxN; n += 2) {		// Request all the required angular frequencies
-			getParent().releaseAngularFrequency(this.sourceVoltageAngularFrequency * n);
-		}
+		releaseHarmonics();
 	}
 
 	//Persistence:-----------------------------------------------------------------------------------
@@ -254,7 +290,7 @@ public class TriangleVoltageSource extends Component {
 
 	@Override
 	public void updateTimeDomainParameters(double totalTimeSec, ArrayList<Double> omegas) {
-		e.updateTimeDomainParameters(omegas, totalTimeSec);
+		e.updateTimeDomainParameters(omegas, getParent().getFrequencySetVersion(), totalTimeSec);
 	}
 
 	@Override
@@ -431,6 +467,7 @@ public class TriangleVoltageSource extends Component {
 			clone.sourceVoltageAmplitude = this.sourceVoltageAmplitude;
 			clone.sourceVoltageAngularFrequency = this.sourceVoltageAngularFrequency;
 			clone.sourceVoltagePhaseRad = this.sourceVoltagePhaseRad;
+			clone.harmonicIndices = null;
 			return clone;
 		} catch (CloneNotSupportedException e) {
 			throw new AssertionError();
@@ -34,6 +34,12 @@ public class Vertex implements Cloneable {
 	
 	static int gen = 0;
 	private int id;
+
+	/**
+	 * Position of the vertex in the vertex list of the network. Maintained by {@link Network}, -1 if the vertex is not in a network.
+	 * HUN: A csúcs helye a hálózat csúcslistájában. A {@link Network} tartja karban, -1, ha a csúcs nincs hálózatban.
+	 */
+	private int index = -1;
 	private Vector inputCurrent;
 
 	private double timeDomainInputCurrent = 0;
@@ -87,6 +93,14 @@ public class Vertex implements Cloneable {
 		return id;
 	}
 
+	public int getIndex() {
+		return index;
+	}
+
+	void setIndex(int index) {
+		this.index = index;
+	}
+
 	public Vector getInputCurrent() {
 		return inputCurrent;
 	}
@@ -149,15 +163,16 @@ public class Vertex implements Cloneable {
         return timeDomainInputCurrent;
     }
 
-	public void updateTimeDomainParameters(ArrayList<Double> omega, double totalTimeSec)
+	public void updateTimeDomainParameters(ArrayList<Double> omega, int frequencySetVersion, double totalTimeSec)
 	{
-		timeDomainInputCurrent = 0;
-		for (int k = 0; k < omega.size(); k++) {
-			timeDomainInputCurrent += Complex.multiply(
-					inputCurrent.at(k),
-					Complex.euler(1, omega.get(k) * totalTimeSec)
-			).getRe();
+		PhasorRotation rotation = PhasorRotation.at(omega, frequencySetVersion, totalTimeSec);
+		double cos[] = rotation.cos;
+		double sin[] = rotation.sin;
+		double sum = 0;
+		for (int k = 0; k < rotation.size; k++) {
+			sum += inputCurrent.getRe(k) * cos[k] - inputCurrent.getIm(k) * sin[k];
 		}
+		timeDomainInputCurrent = sum;
 	}
 
     @Override
@@ -0,0 +1,79 @@
+package test.java.math;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import math.Complex;
+import math.Gauss;
+import math.GaussException;
+import math.InfiniteSolutions;
+import math.Matrix;
+import math.NoSolution;
+import math.Vector;
+
+/**
+ * Gaussian elimination with partial pivoting on singular, contradictory and badly scaled systems.
+ * HUN: Részleges főelemkiválasztásos Gauss elimináció szinguláris, ellentmondásos és rosszul skálázott rendszereken.
+ * @author Simon Zoltán
+ *
+ */
+public class GaussPivotingTest {
+
+	@Test(expected=InfiniteSolutions.class)
+	public void testEliminateWithPivotingInfSol() throws GaussException {
+		Matrix linSys = new Matrix(4, 3);
+		linSys.fill(new Complex(0, 0));
+		//x0 + x2 = 1, x1 + x2 = 2 and their sum x0 + x1 + 2 * x2 = 3
+		linSys.setAt(0, 0, new Complex(1, 0));
+		linSys.setAt(2, 0, new Complex(1, 0));
+		linSys.setAt(1, 1, new Complex(1, 0));
+		linSys.setAt(2, 1, new Complex(1, 0));
+		linSys.setAt(0, 2, new Complex(1, 0));
+		linSys.setAt(1, 2, new Complex(1, 0));
+		linSys.setAt(2, 2, new Complex(2, 0));
+		linSys.setAt(3, 0, new Complex(1, 0));
+		linSys.setAt(3, 1, new Complex(2, 0));
+		linSys.setAt(3, 2, new Complex(3, 0));
+		
+		Gauss.EliminateWithPivoting(linSys);
+	}
+	
+	@Test(expected=NoSolution.class)
+	public void testEliminateWithPivotingContradiction() throws GaussException {
+		Matrix linSys = new Matrix(3, 3);
+		linSys.fill(new Complex(0, 0));
+		//x0 = 1, x1 = 2, x0 + x1 = 4
+		linSys.setAt(0, 0, new Complex(1, 0));
+		linSys.setAt(1, 1, new Complex(1, 0));
+		linSys.setAt(0, 2, new Complex(1, 0));
+		linSys.setAt(1, 2, new Complex(1, 0));
+		linSys.setAt(2, 0, new Complex(1, 0));
+		linSys.setAt(2, 1, new Complex(2, 0));
+		linSys.setAt(2, 2, new Complex(4, 0));
+		
+		Gauss.EliminateWithPivoting(linSys);
+	}
+	
+	@Test
+	public void testEliminateWithPivotingSmallPivot() throws GaussException {
+		Matrix linSys = new Matrix(3, 3);
+		linSys.fill(new Complex(0, 0));
+		//1e-20 * x0 + x1 = 1, x0 + x1 = 2, and the redundant 2 * x0 + 2 * x1 = 4
+		linSys.setAt(0, 0, new Complex(1e-20, 0));
+		linSys.setAt(1, 0, new Complex(1, 0));
+		linSys.setAt(0, 1, new Complex(1, 0));
+		linSys.setAt(1, 1, new Complex(1, 0));
+		linSys.setAt(0, 2, new Complex(2, 0));
+		linSys.setAt(1, 2, new Complex(2, 0));
+		linSys.setAt(2, 0, new Complex(1, 0));
+		linSys.setAt(2, 1, new Complex(2, 0));
+		linSys.setAt(2, 2, new Complex(4, 0));
+		
+		Vector solution = Gauss.EliminateWithPivoting(linSys);
+		assertEquals(1, solution.getRe(0), 1e-12);
+		assertEquals(1, solution.getRe(1), 1e-12);
+		assertEquals(0, solution.getIm(0), 1e-12);
+		assertEquals(0, solution.getIm(1), 1e-12);
+	}
+}
@@ -0,0 +1,166 @@
+package test.java.network;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import math.Coordinate;
+import math.Vector;
+import network.Component;
+import network.CurrentSolver;
+import network.DCVoltageSource;
+import network.GaussCurrentSolver;
+import network.Inductor;
+import network.IslandCurrentSolver;
+import network.Network;
+import network.NodalCurrentSolver;
+import network.Resistance;
+import network.SparseCurrentSolver;
+import network.SquareVoltageSource;
+
+/**
+ * The cycle based and the nodal solvers must give the same currents, including the signs of sources,
+ * that are oriented against the cycles.
+ * HUN: A körökön alapuló és a csomóponti megoldóknak ugyanazokat az áramokat kell adniuk, a körökkel ellentétes irányú források előjelével együtt.
+ * @author Simon Zoltán
+ *
+ */
+public class CurrentSolverAgreementTest {
+
+	private static void place(Network network, Component component, int x0, int y0, int x1, int y1) {
+		network.addComponent(component);
+		component.getInput().setPos(new Coordinate(x0, y0));
+		network.releaseComponentNode(component.getInput());
+		component.getOutput().setPos(new Coordinate(x1, y1));
+		network.releaseComponentNode(component.getOutput());
+	}
+
+	private static void resistance(Network network, double resistance, int x0, int y0, int x1, int y1) {
+		Resistance component = new Resistance();
+		place(network, component, x0, y0, x1, y1);
+		component.setResistance(resistance);
+	}
+
+	/**
+	 * Two meshes sharing an edge, with sources in both directions.
+	 * HUN: Két közös élű hurok, mindkét irányú forrásokkal.
+	 */
+	private static ArrayList<Vector> solve(CurrentSolver solver) {
+		return solve(solver, 1, 1);
+	}
+
+	/**
+	 * The two meshes copied into separate islands, evaluated with the given parallelism.
+	 * HUN: A két hurok külön szigetekre másolva, a megadott párhuzamossággal kiértékelve.
+	 */
+	private static ArrayList<Vector> solve(CurrentSolver solver, int noOfIslands, int parallelism) {
+		Network network = new Network();
+		network.setCurrentSolver(solver);
+		network.setParallelism(parallelism);
+		for (int i = 0; i < noOfIslands; i++) {
+			int x = i * 300;
+			place(network, new DCVoltageSource(10), x, 0, x + 60, 0);
+			resistance(network, 100, x + 60, 0, x + 60, 60);
+			place(network, new DCVoltageSource(4), x, 60, x + 60, 60);		// Against the first one around the left mesh
+			resistance(network, 220, x, 60, x, 0);
+			place(network, new SquareVoltageSource(), x + 120, 60, x + 120, 0);
+			place(network, new Inductor(), x + 60, 0, x + 120, 0);
+			resistance(network, 470, x + 60, 60, x + 120, 60);
+		}
+		network.evaluate(true);
+		network.setParallelism(1);
+		assertTrue(network.isValid());
+		ArrayList<Vector> currents = new ArrayList<Vector>();
+		for (Component component : network.getComponents()) {
+			currents.add(new Vector(component.getFrequencyDomainCurrent()));
+		}
+		return currents;
+	}
+
+	/**
+	 * Grid of resistances with an inductor, where most cycles are closed through other edges outside the spanning tree.
+	 * HUN: Ellenállásokból és egy tekercsből álló rács, ahol a legtöbb kör a feszítőfán kívüli más éleken át záródik.
+	 */
+	private static ArrayList<Vector> solveGrid(CurrentSolver solver) {
+		Network network = new Network();
+		network.setCurrentSolver(solver);
+		int size = 8;
+		int gridSize = 60;
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (i + 1 < size) {
+					resistance(network, 100 + 10 * j, i * gridSize, j * gridSize, (i + 1) * gridSize, j * gridSize);
+				}
+				if (j + 1 < size) {
+					if (i == 0 && j == 0) {
+						place(network, new SquareVoltageSource(), 0, 0, 0, gridSize);
+					}
+					else if (i == 3 && j == 4) {
+						place(network, new Inductor(), i * gridSize, j * gridSize, i * gridSize, (j + 1) * gridSize);
+					}
+					else {
+						resistance(network, 100 + 10 * i, i * gridSize, (j + 1) * gridSize, i * gridSize, j * gridSize);
+					}
+				}
+			}
+		}
+		network.evaluate(true);
+		assertTrue(network.isValid());
+		ArrayList<Vector> currents = new ArrayList<Vector>();
+		for (Component component : network.getComponents()) {
+			currents.add(new Vector(component.getFrequencyDomainCurrent()));
+		}
+		return currents;
+	}
+
+	private static void assertAgree(ArrayList<Vector> expected, ArrayList<Vector> actual) {
+		double largest = 0;
+		for (Vector current : expected) {
+			for (int k = 0; k < current.dimension; k++) {
+				largest = Math.max(largest, current.at(k).getAbs());
+			}
+		}
+		assertTrue(largest > 0);
+		assertEquals(expected.size(), actual.size());
+		for (int c = 0; c < expected.size(); c++) {
+			for (int k = 0; k < expected.get(c).dimension; k++) {
+				assertEquals(expected.get(c).getRe(k), actual.get(c).getRe(k), 1e-9 * largest);
+				assertEquals(expected.get(c).getIm(k), actual.get(c).getIm(k), 1e-9 * largest);
+			}
+		}
+	}
+
+	@Test
+	public void testSolversAgreeOnGrid() {
+		ArrayList<Vector> expected = solveGrid(new GaussCurrentSolver());
+		assertAgree(expected, solveGrid(new SparseCurrentSolver()));
+		assertAgree(expected, solveGrid(new NodalCurrentSolver()));
+	}
+
+	@Test
+	public void testSolversAgree() {
+		ArrayList<Supplier<CurrentSolver>> solvers = new ArrayList<Supplier<CurrentSolver>>();
+		solvers.add(SparseCurrentSolver::new);
+		solvers.add(NodalCurrentSolver::new);
+		ArrayList<Vector> expected = solve(new GaussCurrentSolver());
+		for (Supplier<CurrentSolver> solver : solvers) {
+			assertAgree(expected, solve(solver.get()));
+		}
+	}
+
+	@Test
+	public void testDefaultSolverIsGauss() {
+		assertTrue(new Network().getCurrentSolver() instanceof GaussCurrentSolver);
+	}
+
+	@Test
+	public void testIslandsAgreeOnEvaluationPool() {
+		ArrayList<Vector> expected = solve(new GaussCurrentSolver(), 3, 1);
+		assertAgree(expected, solve(new IslandCurrentSolver(GaussCurrentSolver::new), 3, 1));
+		assertAgree(expected, solve(new IslandCurrentSolver(GaussCurrentSolver::new), 3, 4));
+		assertAgree(expected, solve(new IslandCurrentSolver(SparseCurrentSolver::new), 3, 4));
+	}
+}
@@ -0,0 +1,162 @@
+package test.java.network;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import math.Coordinate;
+import network.Capacitor;
+import network.Component;
+import network.DCVoltageSource;
+import network.GaussCurrentSolver;
+import network.Network;
+import network.Resistance;
+import network.SparseCurrentSolver;
+
+/**
+ * A capacitor has an impedance of about -1e13j at zero frequency, so its column is many orders of magnitude larger,
+ * than the others. The network must still be solvable with the capacitor behaving as an open circuit.
+ * HUN: A kondenzátor impedanciája nulla frekvencián kb. -1e13j, így az oszlopa nagyságrendekkel nagyobb a többinél.
+ * A hálózatnak ekkor is megoldhatónak kell lennie, a kondenzátor szakadásként viselkedik.
+ * @author Simon Zoltán
+ *
+ */
+public class DirectCurrentCapacitorTest {
+
+	private Network network;
+
+	@Before
+	public void setUp() {
+		network = new Network();
+		network.setCurrentSolver(new GaussCurrentSolver());
+	}
+
+	private void place(Component component, int x0, int y0, int x1, int y1) {
+		network.addComponent(component);
+		component.getInput().setPos(new Coordinate(x0, y0));
+		network.releaseComponentNode(component.getInput());
+		component.getOutput().setPos(new Coordinate(x1, y1));
+		network.releaseComponentNode(component.getOutput());
+	}
+
+	private Resistance resistance(double resistance, int x0, int y0, int x1, int y1) {
+		Resistance component = new Resistance();
+		place(component, x0, y0, x1, y1);
+		component.setResistance(resistance);
+		return component;
+	}
+
+	private static double directCurrent(Component component) {
+		return component.getFrequencyDomainCurrent().at(0).getAbs();
+	}
+
+	@Test
+	public void testSeriesCapacitorBlocksCurrent() {
+		Component source = new DCVoltageSource(10);
+		Component capacitor = new Capacitor(0.001);
+		place(source, 0, 0, 60, 0);
+		Component resistance = resistance(100, 60, 0, 60, 60);
+		place(capacitor, 60, 60, 0, 0);
+
+		network.evaluate(true);
+
+		assertTrue(network.isValid());
+		assertEquals(0, directCurrent(source), 1e-9);
+		assertEquals(0, directCurrent(resistance), 1e-9);
+		assertEquals(0, directCurrent(capacitor), 1e-9);
+	}
+
+	@Test
+	public void testParallelCapacitorIsOpenCircuit() {
+		Component source = new DCVoltageSource(10);
+		Component capacitor = new Capacitor(0.001);
+		place(source, 0, 0, 60, 0);
+		Component resistance1 = resistance(100, 60, 0, 60, 60);
+		Component resistance2 = resistance(400, 60, 60, 0, 0);
+		place(capacitor, 60, 60, 0, 0);
+
+		network.evaluate(true);
+
+		assertTrue(network.isValid());
+		assertEquals(0.02, directCurrent(source), 1e-9);
+		assertEquals(0.02, directCurrent(resistance1), 1e-9);
+		assertEquals(0.02, directCurrent(resistance2), 1e-9);
+		assertEquals(0, directCurrent(capacitor), 1e-9);
+	}
+
+	/**
+	 * Grid of resistances, where every period-th element is a capacitor, driven by a source in the corner.
+	 * HUN: Ellenállásokból álló rács, ahol minden period-adik elem kondenzátor, a sarokban lévő forrással.
+	 */
+	private void buildGrid(int size, int period) {
+		int gridSize = 60;
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (i + 1 < size) {
+					placeGridElement(count++ % period == 1, i * gridSize, j * gridSize, (i + 1) * gridSize, j * gridSize);
+				}
+				if (j + 1 < size) {
+					if (i == 0 && j == 0) {
+						place(new DCVoltageSource(10), 0, 0, 0, gridSize);
+					}
+					else {
+						placeGridElement(count++ % period == 1, i * gridSize, j * gridSize, i * gridSize, (j + 1) * gridSize);
+					}
+				}
+			}
+		}
+	}
+
+	private void placeGridElement(boolean capacitor, int x0, int y0, int x1, int y1) {
+		if (capacitor) {
+			place(new Capacitor(0.001), x0, y0, x1, y1);
+		}
+		else {
+			resistance(100, x0, y0, x1, y1);
+		}
+	}
+
+	private void assertCapacitorsOpen() {
+		assertTrue(network.isValid());
+		for (Component component : network.getComponents()) {
+			if (component instanceof Capacitor) {
+				assertEquals(0, directCurrent(component), 1e-9);
+			}
+			else if (component instanceof DCVoltageSource) {
+				assertTrue(directCurrent(component) > 1e-3);
+			}
+		}
+	}
+
+	@Test
+	public void testCapacitorGrid() {
+		buildGrid(4, 7);
+		network.evaluate(true);
+		assertCapacitorsOpen();
+	}
+
+	@Test
+	public void testDenseCapacitorGrid() {
+		buildGrid(6, 5);
+		network.evaluate(true);
+		assertCapacitorsOpen();
+	}
+
+	@Test
+	public void testCapacitorGridSparse() {
+		network.setCurrentSolver(new SparseCurrentSolver());
+		buildGrid(4, 3);
+		network.evaluate(true);
+		assertCapacitorsOpen();
+	}
+
+	@Test
+	public void testDenseCapacitorGridSparse() {
+		network.setCurrentSolver(new SparseCurrentSolver());
+		buildGrid(5, 3);
+		network.evaluate(true);
+		assertCapacitorsOpen();
+	}
+}
@@ -0,0 +1,60 @@
+package test.java.network;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import math.Coordinate;
+import network.Component;
+import network.Network;
+import network.Resistance;
+import network.SawtoothVoltageSource;
+
+/**
+ * The truncation of the Fourier series of a source depends only on its current parameters, not on how they were set.
+ * HUN: Egy forrás Fourier sorának csonkolása csak a pillanatnyi paramétereitől függ, attól nem, hogyan lettek beállítva.
+ * @author Simon Zoltán
+ *
+ */
+public class HarmonicTruncationTest {
+
+	private static void place(Network network, Component component, int x0, int y0, int x1, int y1) {
+		network.addComponent(component);
+		component.getInput().setPos(new Coordinate(x0, y0));
+		network.releaseComponentNode(component.getInput());
+		component.getOutput().setPos(new Coordinate(x1, y1));
+		network.releaseComponentNode(component.getOutput());
+	}
+
+	/**
+	 * Sawtooth source closed by a resistance, with the series truncated at 5% RMS error.
+	 * HUN: Ellenállással lezárt fűrészfog forrás, a sor 5%-os effektív hibánál csonkolva.
+	 */
+	private static Network sawtoothLoop(SawtoothVoltageSource source) {
+		Network network = new Network();
+		network.setHarmonicTruncation(0.05, Double.POSITIVE_INFINITY);
+		place(network, source, 0, 0, 60, 0);
+		Resistance resistance = new Resistance();
+		place(network, resistance, 60, 0, 0, 0);
+		resistance.setResistance(100);
+		network.evaluate(true);
+		assertTrue(network.isValid());
+		return network;
+	}
+
+	@Test
+	public void testSawtoothAmplitudeChangeTruncatesAgain() {
+		double omega = 2 * Math.PI * 50;
+		for (double amplitude : new double[] {0.1, 100}) {
+			int expected = sawtoothLoop(new SawtoothVoltageSource(amplitude, omega)).getSimulatedAngularFrequencies().size();
+
+			SawtoothVoltageSource source = new SawtoothVoltageSource(1, omega);
+			Network network = sawtoothLoop(source);
+			source.setSourceVoltageAmplitude(amplitude);
+			network.evaluate(true);
+			assertTrue(network.isValid());
+			assertEquals(expected, network.getSimulatedAngularFrequencies().size());
+			assertEquals(expected, source.getFrequencyDomainCurrent().dimension);
+		}
+	}
+}
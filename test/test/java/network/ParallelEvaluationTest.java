@@ -0,0 +1,88 @@
+package test.java.network;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import math.Coordinate;
+import math.Vector;
+import network.Capacitor;
+import network.Component;
+import network.Inductor;
+import network.Network;
+import network.Resistance;
+import network.SquareVoltageSource;
+import network.Wire;
+
+/**
+ * The frequencies solved concurrently must give the same currents as the sequential evaluation.
+ * HUN: A párhuzamosan megoldott frekvenciáknak ugyanazokat az áramokat kell adniuk, mint a soros kiértékelésnek.
+ * @author Simon Zoltán
+ *
+ */
+public class ParallelEvaluationTest {
+
+	private Network network;
+
+	@Before
+	public void setUp() {
+		network = new Network();
+	}
+
+	@After
+	public void tearDown() {
+		network.setParallelism(1);		// Shuts down the evaluation pool
+	}
+
+	private void place(Component component, int x0, int y0, int x1, int y1) {
+		network.addComponent(component);
+		component.getInput().setPos(new Coordinate(x0, y0));
+		network.releaseComponentNode(component.getInput());
+		component.getOutput().setPos(new Coordinate(x1, y1));
+		network.releaseComponentNode(component.getOutput());
+	}
+
+	private ArrayList<Vector> currents() {
+		ArrayList<Vector> currents = new ArrayList<Vector>();
+		for (Component component : network.getComponents()) {
+			currents.add(new Vector(component.getFrequencyDomainCurrent()));
+		}
+		return currents;
+	}
+
+	@Test
+	public void testParallelMatchesSequential() {
+		place(new SquareVoltageSource(), 0, 0, 60, 0);
+		place(new Resistance(), 60, 0, 120, 0);
+		place(new Inductor(), 120, 0, 120, 60);
+		place(new Capacitor(), 120, 60, 0, 60);
+		place(new Wire(), 0, 60, 0, 0);
+		place(new Resistance(), 120, 0, 180, 0);
+		place(new Resistance(), 180, 0, 180, 60);
+		place(new Wire(), 180, 60, 120, 60);
+
+		network.setParallelism(1);
+		network.evaluate(true);
+		assertTrue(network.isValid());
+		ArrayList<Vector> expected = currents();
+		int noOfFrequencies = network.getSimulatedAngularFrequencies().size();
+		assertTrue(noOfFrequencies > 1);
+
+		network.setParallelism(8);
+		for (int repeat = 0; repeat < 50; repeat++) {
+			network.evaluate(true);		// Rebuilds the current vectors unmaterialized
+			assertTrue(network.isValid());
+			ArrayList<Vector> actual = currents();
+			for (int c = 0; c < expected.size(); c++) {
+				for (int k = 0; k < noOfFrequencies; k++) {
+					assertEquals(expected.get(c).getRe(k), actual.get(c).getRe(k), 1e-12);
+					assertEquals(expected.get(c).getIm(k), actual.get(c).getIm(k), 1e-12);
+				}
+			}
+		}
+	}
+}
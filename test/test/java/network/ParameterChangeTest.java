@@ -0,0 +1,103 @@
+package test.java.network;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import math.Coordinate;
+import math.Vector;
+import network.Capacitor;
+import network.Component;
+import network.CurrentSolver;
+import network.GaussCurrentSolver;
+import network.Network;
+import network.NodalCurrentSolver;
+import network.Resistance;
+import network.SparseCurrentSolver;
+import network.SquareVoltageSource;
+
+/**
+ * Evaluating only the edited parameter must give the same currents as a full evaluation.
+ * HUN: A csak a szerkesztett paraméterre szorítkozó kiértékelésnek ugyanazokat az áramokat kell adnia, mint a teljes kiértékelésnek.
+ * @author Simon Zoltán
+ *
+ */
+public class ParameterChangeTest {
+
+	private static void place(Network network, Component component, int x0, int y0, int x1, int y1) {
+		network.addComponent(component);
+		component.getInput().setPos(new Coordinate(x0, y0));
+		network.releaseComponentNode(component.getInput());
+		component.getOutput().setPos(new Coordinate(x1, y1));
+		network.releaseComponentNode(component.getOutput());
+	}
+
+	/**
+	 * Square source driving an RC ladder. Returns the edited resistance.
+	 * HUN: RC létrát tápláló négyszög forrás. A szerkesztett ellenállást adja vissza.
+	 */
+	private static Resistance buildLadder(Network network, double resistance) {
+		place(network, new SquareVoltageSource(), 0, 0, 60, 0);
+		Resistance edited = new Resistance();
+		place(network, edited, 60, 0, 120, 0);
+		edited.setResistance(resistance);
+		place(network, new Capacitor(), 120, 0, 120, 60);
+		Resistance load = new Resistance();
+		place(network, load, 120, 60, 0, 60);
+		load.setResistance(330);
+		Resistance closing = new Resistance();
+		place(network, closing, 0, 60, 0, 0);
+		closing.setResistance(47);
+		return edited;
+	}
+
+	private static ArrayList<Vector> currents(Network network) {
+		assertTrue(network.isValid());
+		ArrayList<Vector> currents = new ArrayList<Vector>();
+		for (Component component : network.getComponents()) {
+			currents.add(new Vector(component.getFrequencyDomainCurrent()));
+		}
+		return currents;
+	}
+
+	@Test
+	public void testParameterChangeMatchesFullEvaluation() {
+		ArrayList<Supplier<CurrentSolver>> solvers = new ArrayList<Supplier<CurrentSolver>>();
+		solvers.add(GaussCurrentSolver::new);
+		solvers.add(SparseCurrentSolver::new);
+		solvers.add(NodalCurrentSolver::new);
+		for (Supplier<CurrentSolver> solver : solvers) {
+			Network expectedNetwork = new Network();
+			expectedNetwork.setCurrentSolver(solver.get());
+			buildLadder(expectedNetwork, 220);
+			expectedNetwork.evaluate(true);
+			ArrayList<Vector> expected = currents(expectedNetwork);
+
+			Network network = new Network();
+			network.setCurrentSolver(solver.get());
+			Resistance edited = buildLadder(network, 100);
+			network.evaluate(true);
+			edited.setResistance(220);
+			network.evaluateParameterChange(edited);
+			ArrayList<Vector> actual = currents(network);
+
+			double largest = 0;
+			for (Vector current : expected) {
+				for (int k = 0; k < current.dimension; k++) {
+					largest = Math.max(largest, current.at(k).getAbs());
+				}
+			}
+			assertTrue(largest > 0);
+			assertEquals(expected.size(), actual.size());
+			for (int c = 0; c < expected.size(); c++) {
+				for (int k = 0; k < expected.get(c).dimension; k++) {
+					assertEquals(expected.get(c).getRe(k), actual.get(c).getRe(k), 1e-9 * largest);
+					assertEquals(expected.get(c).getIm(k), actual.get(c).getIm(k), 1e-9 * largest);
+				}
+			}
+		}
+	}
+}